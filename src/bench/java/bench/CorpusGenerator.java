@@ -0,0 +1,207 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Générateur d'arborescences Java synthétiques pour les mesures de passage à l'échelle.
+ *
+ * Chaque classe a des attributs, des méthodes avec boucles, conditions et commentaires, et appelle
+ * fanOut méthodes d'autres classes par méthode : avec la probabilité locality dans son propre package
+ * (couplage local), sinon n'importe où. Une classe sur interfaceEvery implémente une interface du package.
+ * Le code est compilable et Spoon résout le type déclarant de chaque appel.
+ *
+ * Usage : CorpusGenerator <dossier> [--classes N] [--packages N] [--methods N] [--fields N]
+ *                                    [--fan-out N] [--locality 0..1] [--seed N]
+ */
+public class CorpusGenerator {
+
+    private int classes = 1000;
+    private int packages = 0;          // 0 : une vingtaine de classes par package
+    private int methods = 6;
+    private int fields = 4;
+    private int fanOut = 3;
+    private double locality = 0.8;
+    private int interfaceEvery = 10;
+    private long seed = 42L;
+
+    public CorpusGenerator classes(int classes) { this.classes = classes; return this; }
+    public CorpusGenerator packages(int packages) { this.packages = packages; return this; }
+    public CorpusGenerator methods(int methods) { this.methods = methods; return this; }
+    public CorpusGenerator fields(int fields) { this.fields = fields; return this; }
+    public CorpusGenerator fanOut(int fanOut) { this.fanOut = fanOut; return this; }
+    public CorpusGenerator locality(double locality) { this.locality = locality; return this; }
+    public CorpusGenerator seed(long seed) { this.seed = seed; return this; }
+
+    public int getClasses() { return classes; }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage : CorpusGenerator <dossier> [--classes N] [--packages N] [--methods N]"
+                    + " [--fields N] [--fan-out N] [--locality 0..1] [--seed N]");
+            System.exit(1);
+        }
+        CorpusGenerator generator = new CorpusGenerator();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--classes": generator.classes(Integer.parseInt(value)); break;
+                case "--packages": generator.packages(Integer.parseInt(value)); break;
+                case "--methods": generator.methods(Integer.parseInt(value)); break;
+                case "--fields": generator.fields(Integer.parseInt(value)); break;
+                case "--fan-out": generator.fanOut(Integer.parseInt(value)); break;
+                case "--locality": generator.locality(Double.parseDouble(value)); break;
+                case "--seed": generator.seed(Long.parseLong(value)); break;
+                default: throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+        long lines = generator.generate(new File(args[0]));
+        System.out.println(generator.classes + " classes, " + lines + " lignes générées dans " + args[0]);
+    }
+
+    private int packageCount() {
+        return packages > 0 ? Math.min(packages, classes) : Math.max(1, (classes + 19) / 20);
+    }
+
+    private int packageOf(int c) {
+        return (int) ((long) c * packageCount() / classes);
+    }
+
+    // premier indice de classe du package p
+    private int packageStart(int p) {
+        return (int) (((long) p * classes + packageCount() - 1) / packageCount());
+    }
+
+    private static String typeName(int c) {
+        return "Type" + c;
+    }
+
+    private String qualifiedName(int c) {
+        return "p" + packageOf(c) + "." + typeName(c);
+    }
+
+    /**
+     * Écrit le corpus sous root/p<k>/Type<c>.java (et une interface par package).
+     * @return nombre total de lignes écrites
+     */
+    public long generate(File root) throws IOException {
+        Random random = new Random(seed);
+        long lines = 0;
+        int packageCount = packageCount();
+
+        for (int p = 0; p < packageCount; p++) {
+            File dir = new File(root, "p" + p);
+            Files.createDirectories(dir.toPath());
+            lines += write(new File(dir, "Service" + p + ".java"), interfaceSource(p));
+        }
+
+        for (int c = 0; c < classes; c++) {
+            int p = packageOf(c);
+            File file = new File(new File(root, "p" + p), typeName(c) + ".java");
+            lines += write(file, classSource(c, random));
+        }
+        return lines;
+    }
+
+    private String interfaceSource(int p) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package p").append(p).append(";\n\n");
+        sb.append("/**\n * Contrat commun du package p").append(p).append(".\n */\n");
+        sb.append("public interface Service").append(p).append(" {\n\n");
+        sb.append("    int handle(int request);\n\n");
+        sb.append("    default String describe() {\n        return \"service p").append(p).append("\";\n    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private String classSource(int c, Random random) {
+        int p = packageOf(c);
+        int start = packageStart(p);
+        int end = p + 1 < packageCount() ? packageStart(p + 1) : classes;
+        boolean implementsService = c % interfaceEvery == 0;
+
+        StringBuilder sb = new StringBuilder(2048);
+        sb.append("package p").append(p).append(";\n\n");
+        sb.append("import java.util.ArrayList;\nimport java.util.List;\n\n");
+        sb.append("/**\n * Classe synthétique n°").append(c).append(".\n */\n");
+        sb.append("public class ").append(typeName(c));
+        if (implementsService) sb.append(" implements Service").append(p);
+        sb.append(" {\n\n");
+
+        for (int f = 0; f < fields; f++) {
+            switch (f % 3) {
+                case 0: sb.append("    private int count").append(f).append(";\n"); break;
+                case 1: sb.append("    private String name").append(f).append(" = \"f").append(f).append("\";\n"); break;
+                default: sb.append("    private final List<Integer> values").append(f).append(" = new ArrayList<>();\n");
+            }
+        }
+        sb.append('\n');
+
+        for (int m = 0; m < methods; m++) {
+            int params = arity(c, m);
+            sb.append("    // opération ").append(m).append('\n');
+            sb.append("    public int m").append(m).append("(int x");
+            for (int k = 1; k < params; k++) sb.append(", int a").append(k);
+            sb.append(") {\n");
+            sb.append("        int result = x;\n");
+            if (random.nextBoolean()) {
+                sb.append("        for (int i = 0; i < x % 7; i++) {\n");
+                sb.append("            result += i * ").append(1 + random.nextInt(9)).append(";\n");
+                sb.append("        }\n");
+            }
+            for (int k = 0; k < fanOut; k++) {
+                int target = random.nextDouble() < locality
+                        ? start + random.nextInt(end - start)
+                        : random.nextInt(classes);
+                int targetMethod = random.nextInt(methods);
+                String call = "m" + targetMethod + "(result" + extraArguments(target, targetMethod) + ")";
+                if (target == c) {
+                    sb.append("        if (x > 0) result += ").append(call).append(";\n");
+                } else {
+                    sb.append("        result += new ").append(qualifiedName(target)).append("().").append(call).append(";\n");
+                }
+            }
+            sb.append("        /* valeur normalisée */\n");
+            sb.append("        return Math.abs(result) % 1000;\n");
+            sb.append("    }\n\n");
+        }
+
+        if (implementsService) {
+            sb.append("    @Override\n    public int handle(int request) {\n");
+            sb.append("        return m0(request").append(extraArguments(c, 0)).append(");\n    }\n\n");
+        }
+
+        sb.append("    @Override\n    public String toString() {\n");
+        sb.append("        return \"").append(typeName(c)).append("\";\n    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    // arguments supplémentaires selon l'arité (déterministe) de la méthode cible
+    private String extraArguments(int target, int method) {
+        int params = arity(target, method);
+        StringBuilder sb = new StringBuilder();
+        for (int k = 1; k < params; k++) sb.append(", ").append(k);
+        return sb.toString();
+    }
+
+    // nombre de paramètres (1 à 3) de la méthode m<method> de Type<type>, fonction de la graine
+    private int arity(int type, int method) {
+        long h = (seed * 31 + type) * 0x9E3779B97F4A7C15L + method;
+        h ^= h >>> 29;
+        return 1 + (int) Math.floorMod(h, 3L);
+    }
+
+    private static long write(File file, String content) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        long lines = 0;
+        for (int i = 0; i < content.length(); i++) if (content.charAt(i) == '\n') lines++;
+        return lines;
+    }
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import graph.CallGraph;
+import org.openjdk.jmh.annotations.*;
+import webanalyzer.service.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Couplage, identification des modules et dendrogramme sur des graphes synthétiques
+ * (taille : nombre de classes, densité : appels sortants par classe).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class GraphBenchmarks {
+
+    @Param({"100", "1000", "10000"})
+    public int classes;
+
+    @Param({"2", "8"})
+    public int density;
+
+    private CallGraph callGraph;
+    private CouplingMatrix coupling;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        callGraph = SyntheticGraphs.callGraph(classes, density, 42L);
+        coupling = CouplingMatrix.of(callGraph);
+    }
+
+    /** Ancien calculateCouplingRatio : matrice de couplage à partir du graphe d'appels */
+    @Benchmark
+    public CouplingMatrix couplingRatio() {
+        return CouplingMatrix.of(callGraph);
+    }
+
+    /** Balayage de tous les seuils (union-find) puis une requête au seuil par défaut */
+    @Benchmark
+    public List<Set<String>> identifyModules() {
+        return ModuleIdentifierService.identifyModules(coupling, ModuleIdentifierService.DEFAULT_THRESHOLD);
+    }
+
+    @Benchmark
+    public Dendrogram buildDendrogram() {
+        return DendrogramService.buildDendrogram(coupling);
+    }
+}
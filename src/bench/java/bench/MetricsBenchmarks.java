@@ -0,0 +1,51 @@
+package bench;
+
+import analyse.LineCounter;
+import org.openjdk.jmh.annotations.*;
+import visiteurs.Parser;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des lignes de code (automate de LineCounter) et classement des 10 % premiers (topPercent).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmarks {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private String source;
+    private Map<String, Integer> methodsPerClass;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = SyntheticGraphs.sourceText(size, 42L);
+        Random random = new Random(42L);
+        methodsPerClass = new HashMap<>();
+        for (int c = 0; c < size; c++) {
+            methodsPerClass.put(SyntheticGraphs.className(c), random.nextInt(50));
+        }
+    }
+
+    /** size = nombre de lignes du texte analysé */
+    @Benchmark
+    public LineCounter.SourceLines countLines() {
+        return LineCounter.scan(source);
+    }
+
+    /** size = nombre de classes classées */
+    @Benchmark
+    public List<String> topPercent() {
+        return Parser.topPercent(methodsPerClass, 10);
+    }
+}
@@ -0,0 +1,78 @@
+package bench;
+
+import analyse.FactsCache;
+import graph.SpoonClassMethodCallVisitor;
+import graph.SpoonParser;
+import org.openjdk.jmh.annotations.*;
+import webanalyzer.parser.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Analyse Spoon complète d'un projet réel (par défaut celui-ci : -p project=/chemin/du/projet).
+ * cold : cache des faits vide à chaque appel (tout est reparsé) ; warm : cache déjà rempli.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ParseBenchmarks {
+
+    /** Racine du projet (contenant src/) */
+    @Param({"."})
+    public String project;
+
+    @Param({"cold", "warm"})
+    public String cache;
+
+    private Path cacheDir;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        cacheDir = Files.createTempDirectory("bench-facts");
+        System.setProperty(FactsCache.CACHE_DIR_PROPERTY, cacheDir.toString());
+        SpoonParser.setProjectPath(project);
+        if (cache.equals("warm")) SpoonParser.parseProject();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+        if (cache.equals("cold")) clear(cacheDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        clear(cacheDir);
+        Files.deleteIfExists(cacheDir);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> parseProject() {
+        return SpoonParser.parseProject();
+    }
+
+    @Benchmark
+    public Parser analyzeProject() throws IOException {
+        Parser parser = new Parser();
+        parser.analyzeProject(new File(project, "src").getPath());
+        return parser;
+    }
+
+    private static void clear(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .filter(p -> !p.equals(dir))
+                    .forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package bench;
+
+import analyse.FactsCache;
+import analyse.FileFacts;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import webanalyzer.service.AnalysisJsonWriter;
+import webanalyzer.service.AnalysisResultCache;
+import webanalyzer.service.ProjectAnalysis;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Mesure de passage à l'échelle de la chaîne d'analyse web (celle de ProjectControllerSpoon) sur des
+ * corpus synthétiques de tailles croissantes.
+ *
+ * Pour chaque taille : génération du corpus (CorpusGenerator), puis analyse dans une JVM fille
+ * (cache de faits vide) pour que pic de tas et pic RSS ne dépendent que de cette taille.
+ * Une ligne CSV par taille : temps et allocation par étape, pic de tas, pic RSS (VmHWM, Linux).
+ *
+ * Usage : ScalabilityHarness [--sizes 100,1000,10000] [--out target/scalability.csv] [--xmx 4g]
+ *                            [--fan-out N] [--locality 0..1] [--keep]
+ */
+public class ScalabilityHarness {
+
+    private static final String[] PHASES = {"parse", "metrics", "coupling", "modules", "dendrogram", "render"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--run")) {
+            System.out.println("RESULT," + measure(new File(args[1]), Integer.parseInt(args[2])));
+            return;
+        }
+
+        int[] sizes = {100, 1000, 5000, 10000};
+        File out = new File("target/scalability.csv");
+        String xmx = "4g";
+        int fanOut = 3;
+        double locality = 0.8;
+        boolean keep = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes": sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "--out": out = new File(args[++i]); break;
+                case "--xmx": xmx = args[++i]; break;
+                case "--fan-out": fanOut = Integer.parseInt(args[++i]); break;
+                case "--locality": locality = Double.parseDouble(args[++i]); break;
+                case "--keep": keep = true; break;
+                default: throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+
+        if (out.getParentFile() != null) Files.createDirectories(out.getParentFile().toPath());
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out.toPath(), StandardCharsets.UTF_8))) {
+            csv.println(header());
+            for (int size : sizes) {
+                Path corpus = Files.createTempDirectory("corpus-" + size + "-");
+                long lines = new CorpusGenerator().classes(size).fanOut(fanOut).locality(locality).generate(corpus.toFile());
+                System.out.println("Corpus de " + size + " classes (" + lines + " lignes) : " + corpus);
+
+                String result = runChild(corpus, size, xmx);
+                if (result != null) {
+                    csv.println(result);
+                    csv.flush();
+                    System.out.println(header());
+                    System.out.println(result);
+                }
+                if (!keep) delete(corpus);
+            }
+        }
+        System.out.println("Résultats : " + out.getAbsolutePath());
+    }
+
+    private static String header() {
+        StringBuilder sb = new StringBuilder("classes,files,lines");
+        for (String phase : PHASES) sb.append(',').append(phase).append("_ms");
+        sb.append(",total_ms");
+        for (String phase : PHASES) sb.append(',').append(phase).append("_alloc_mb");
+        sb.append(",peak_heap_mb,peak_rss_mb");
+        return sb.toString();
+    }
+
+    // analyse dans une JVM fille ; retourne sa ligne de résultat (null en cas d'échec)
+    private static String runChild(Path corpus, int size, String xmx) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Path cacheDir = Files.createTempDirectory("facts-");
+        ProcessBuilder pb = new ProcessBuilder(java, "-Xmx" + xmx,
+                "-D" + FactsCache.CACHE_DIR_PROPERTY + "=" + cacheDir,
+                "-cp", System.getProperty("java.class.path"),
+                ScalabilityHarness.class.getName(), "--run", corpus.toString(), String.valueOf(size));
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+
+        String result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("RESULT,")) result = line.substring("RESULT,".length());
+                else System.out.println("  " + line);
+            }
+        }
+        int exit = process.waitFor();
+        delete(cacheDir);
+        if (exit != 0) {
+            System.err.println("Échec de l'analyse de " + size + " classes (code " + exit + ")");
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Analyse complète du corpus (JVM fille) : même enchaînement que /analyze puis rendu des données JSON.
+     */
+    static String measure(File corpus, int classes) throws IOException {
+        List<File> javaFiles = analyse.AnalysisSession.listJavaFiles(corpus);
+        long lines = 0;
+        for (File f : javaFiles) {
+            try (Stream<String> s = Files.lines(f.toPath(), StandardCharsets.UTF_8)) {
+                lines += s.count();
+            }
+        }
+
+        AllocationMeter allocation = new AllocationMeter();
+        long[] millis = new long[PHASES.length];
+        long[] allocated = new long[PHASES.length];
+        long[] phaseStart = {System.nanoTime(), allocation.total()};
+        int[] current = {0};
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+
+        ProjectAnalysis.Listener listener = new ProjectAnalysis.Listener() {
+            @Override
+            public void fileAnalyzed(int index, File file, FileFacts facts, boolean fromCache) {
+                allocation.sampleCurrentThread();
+            }
+
+            @Override
+            public void phase(ProjectAnalysis.Phase phase) {
+                if (phase == ProjectAnalysis.Phase.PARSING) return;
+                long now = System.nanoTime();
+                long bytes = allocation.total();
+                millis[current[0]] = (now - phaseStart[0]) / 1_000_000;
+                allocated[current[0]] = bytes - phaseStart[1];
+                phaseStart[0] = now;
+                phaseStart[1] = bytes;
+                current[0]++;
+            }
+        };
+
+        ProjectAnalysis analysis = ProjectAnalysis.run(corpus.getPath(), corpus, javaFiles,
+                AnalysisResultCache.fingerprint(javaFiles), listener);
+
+        // rendu des données servies à la page (graphe, matrice, dendrogramme), sans réseau
+        long renderStart = System.nanoTime();
+        long renderBytes = allocation.total();
+        JsonFactory factory = new JsonFactory();
+        try (JsonGenerator gen = factory.createGenerator(OutputStream.nullOutputStream())) {
+            AnalysisJsonWriter.writeCouplingGraph(gen, analysis.getCoupling(), 0, 0, 0);
+            AnalysisJsonWriter.writeCouplingMatrix(gen, analysis.getCoupling(), 0, 0, 0);
+            AnalysisJsonWriter.writeDendrogram(gen, analysis.getDendrogram(), 120, 600, 0, 0);
+        }
+        millis[PHASES.length - 1] = (System.nanoTime() - renderStart) / 1_000_000;
+        allocated[PHASES.length - 1] = allocation.total() - renderBytes;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(classes).append(',').append(javaFiles.size()).append(',').append(lines);
+        long total = 0;
+        for (long ms : millis) {
+            sb.append(',').append(ms);
+            total += ms;
+        }
+        sb.append(',').append(total);
+        for (long bytes : allocated) sb.append(',').append(bytes / (1024 * 1024));
+        sb.append(',').append(peakHeap / (1024 * 1024));
+        sb.append(',').append(peakRssMb());
+        return sb.toString();
+    }
+
+    // pic de mémoire résidente du processus (VmHWM), -1 hors Linux
+    private static long peakRssMb() {
+        File status = new File("/proc/self/status");
+        if (!status.exists()) return -1;
+        try {
+            for (String line : Files.readAllLines(status.toPath())) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Lecture de /proc/self/status impossible : " + e.getMessage());
+        }
+        return -1;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Octets alloués par tous les threads depuis le début, approximativement : les threads vivants
+     * sont relevés à chaque appel, les threads de travail éphémères (pool d'analyse des fichiers)
+     * se relèvent eux-mêmes après chaque fichier et leur dernière valeur est conservée après leur fin.
+     */
+    static class AllocationMeter {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+
+        void sampleCurrentThread() {
+            lastSeen.put(Thread.currentThread().getId(), threads.getCurrentThreadAllocatedBytes());
+        }
+
+        long total() {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) lastSeen.put(ids[i], bytes[i]);
+            }
+            long sum = 0;
+            for (long b : lastSeen.values()) sum += b;
+            return sum;
+        }
+    }
+}
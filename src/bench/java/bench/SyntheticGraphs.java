@@ -0,0 +1,80 @@
+package bench;
+
+import graph.CallGraph;
+
+import java.util.Random;
+
+/**
+ * Graphes d'appels synthétiques pour les benchmarks.
+ *
+ * Les classes sont regroupées en paquets de PACKAGE_SIZE ; une classe fait 2 * density appels vers
+ * d'autres classes du projet, 80 % dans son propre paquet (couplage local, comme un vrai projet)
+ * et le reste n'importe où. Graine fixe : même entrée d'une exécution à l'autre.
+ */
+public final class SyntheticGraphs {
+
+    public static final int PACKAGE_SIZE = 20;
+    public static final int METHODS_PER_CLASS = 5;
+
+    private SyntheticGraphs() {
+    }
+
+    public static String className(int c) {
+        return "C" + c;
+    }
+
+    /**
+     * @param classes nombre de classes du projet
+     * @param density nombre moyen de classes appelées par classe
+     */
+    public static CallGraph callGraph(int classes, int density, long seed) {
+        Random random = new Random(seed);
+        CallGraph.Builder builder = CallGraph.builder();
+        for (int c = 0; c < classes; c++) {
+            builder.addClass(className(c));
+            int packageStart = (c / PACKAGE_SIZE) * PACKAGE_SIZE;
+            int packageSize = Math.min(PACKAGE_SIZE, classes - packageStart);
+
+            for (int m = 0; m < METHODS_PER_CLASS; m++) {
+                builder.addMethod("m" + m);
+                // 2 * density appels par classe répartis sur ses méthodes ; les cibles se répètent
+                // (multiplicités), ce qui donne de l'ordre de density classes distinctes
+                int perClass = 2 * density;
+                int calls = perClass / METHODS_PER_CLASS + (m < perClass % METHODS_PER_CLASS ? 1 : 0);
+                for (int k = 0; k < calls; k++) {
+                    int target = random.nextInt(10) < 8
+                            ? packageStart + random.nextInt(packageSize)
+                            : random.nextInt(classes);
+                    builder.addCall("m" + random.nextInt(METHODS_PER_CLASS), className(target));
+                }
+                // appels vers la bibliothèque standard (hors projet)
+                builder.addCall("println", "PrintStream");
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Texte source synthétique : code, lignes vides, commentaires de ligne et de bloc, chaînes.
+     */
+    public static String sourceText(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 32);
+        boolean inBlock = false;
+        for (int i = 0; i < lines; i++) {
+            if (inBlock) {
+                sb.append(random.nextInt(4) == 0 ? "     */\n" : "     * commentaire de bloc\n");
+                if (sb.charAt(sb.length() - 2) == '/') inBlock = false;
+                continue;
+            }
+            switch (random.nextInt(8)) {
+                case 0: sb.append('\n'); break;
+                case 1: sb.append("    // commentaire de ligne\n"); break;
+                case 2: sb.append("    /**\n"); inBlock = true; break;
+                case 3: sb.append("    String s = \"/* pas un commentaire */\"; // fin\n"); break;
+                default: sb.append("    int x").append(i).append(" = compute(").append(i).append(");\n");
+            }
+        }
+        return sb.toString();
+    }
+}
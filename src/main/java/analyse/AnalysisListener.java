@@ -0,0 +1,38 @@
+package analyse;
+
+import java.io.File;
+
+/**
+ * Suivi d'une analyse parallèle : avancement de la construction du modèle, notification par fichier
+ * terminé et demande d'annulation.
+ * Les méthodes sont appelées depuis les threads de travail et doivent être thread-safe.
+ */
+public interface AnalysisListener {
+
+    /**
+     * Avancement de la construction du modèle Spoon, avant les fileAnalyzed des fichiers parsés :
+     * chaque fichier compte deux étapes (compilation JDT puis construction de son arbre).
+     */
+    default void modelProgress(int steps, int totalSteps) {
+    }
+
+    /**
+     * Un fichier vient d'être analysé (ou relu depuis le cache).
+     */
+    default void fileAnalyzed(int index, File file, FileFacts facts, boolean fromCache) {
+    }
+
+    /**
+     * Des fichiers viennent d'être parsés : durées de construction du modèle Spoon et d'extraction des faits.
+     */
+    default void batchAnalyzed(int files, long modelNanos, long extractionNanos) {
+    }
+
+    /**
+     * Interrogé avant le parsing, à chaque étape de la construction du modèle puis entre deux fichiers :
+     * true pour abandonner l'analyse.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,181 @@
+package analyse;
+
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.SpoonProgress;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Session d'analyse Spoon :
+ * construit le CtModel une seule fois par projet et le partage entre tous les consommateurs
+ * (visiteurs, graphe d'appels, couplage, comptage des packages).
+ */
+public class AnalysisSession {
+
+    private final File sourceRoot;
+    private final List<File> inputFiles;
+    private SpoonProgress progress;
+    private Launcher launcher;
+    private CtModel model;
+    private List<File> javaFiles;
+    private Map<String, CtCompilationUnit> unitsByPath;
+
+    public AnalysisSession(File sourceRoot) {
+        this.sourceRoot = sourceRoot;
+        this.inputFiles = null;
+    }
+
+    /**
+     * Session limitée à une liste de fichiers (les types absents de la liste restent non résolus).
+     */
+    public AnalysisSession(File sourceRoot, List<File> javaFiles) {
+        this.sourceRoot = sourceRoot;
+        this.inputFiles = List.copyOf(javaFiles);
+        this.javaFiles = this.inputFiles;
+    }
+
+    public static AnalysisSession open(String path) {
+        return new AnalysisSession(new File(path));
+    }
+
+    public File getSourceRoot() {
+        return sourceRoot;
+    }
+
+    /**
+     * Suivi de la construction du modèle (appelé par Spoon pour chaque fichier, à chaque étape) ;
+     * une exception levée par le suivi interrompt la construction.
+     */
+    public synchronized void setProgress(SpoonProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Retourne le modèle Spoon du projet, construit au premier appel uniquement.
+     */
+    public synchronized CtModel getModel() {
+        if (model == null) {
+            launcher = new Launcher();
+            if (inputFiles == null) {
+                launcher.addInputResource(sourceRoot.getAbsolutePath());
+            } else {
+                for (File file : inputFiles) launcher.addInputResource(file.getAbsolutePath());
+            }
+            launcher.getEnvironment().setNoClasspath(true);
+            launcher.getEnvironment().setCommentEnabled(false);
+            if (progress != null) launcher.getEnvironment().setSpoonProgress(progress);
+            model = launcher.buildModel();
+        }
+        return model;
+    }
+
+    /**
+     * Liste des fichiers .java du projet (parcours du disque fait une seule fois).
+     */
+    public synchronized List<File> getJavaFiles() {
+        if (javaFiles == null) {
+            javaFiles = listJavaFiles(sourceRoot);
+        }
+        return javaFiles;
+    }
+
+    /**
+     * Nombre de packages du projet (sans le package racine anonyme).
+     */
+    public int countPackages() {
+        return Math.max(0, getModel().getAllPackages().size() - 1);
+    }
+
+    /**
+     * Unité de compilation correspondant à un fichier source, ou null si Spoon ne l'a pas chargé.
+     */
+    public synchronized CtCompilationUnit getCompilationUnit(File file) {
+        getModel();
+        if (unitsByPath == null) {
+            unitsByPath = new HashMap<>();
+            for (CtCompilationUnit cu : launcher.getFactory().CompilationUnit().getMap().values()) {
+                if (cu.getFile() != null) {
+                    unitsByPath.put(canonicalPath(cu.getFile()), cu);
+                }
+            }
+        }
+        return unitsByPath.get(canonicalPath(file));
+    }
+
+    /**
+     * Éléments d'un type donné déclarés dans un fichier (types imbriqués et anonymes compris).
+     */
+    public <T extends CtElement> List<T> getElements(File file, Class<? super T> type) {
+        CtCompilationUnit cu = getCompilationUnit(file);
+        if (cu == null) return Collections.emptyList();
+        List<T> elements = new ArrayList<>();
+        for (CtType<?> declared : cu.getDeclaredTypes()) {
+            elements.addAll(declared.getElements(new TypeFilter<>(type)));
+        }
+        return elements;
+    }
+
+    /**
+     * Faits de toutes les unités de compilation du modèle, dans l'ordre des fichiers du projet.
+     */
+    public List<FileFacts> extractFacts() {
+        List<FileFacts> facts = new ArrayList<>();
+        String root = canonicalPath(sourceRoot) + File.separator;
+        for (File file : getJavaFiles()) {
+            CtCompilationUnit cu = getCompilationUnit(file);
+            if (cu == null) continue;
+            String path = canonicalPath(file);
+            if (path.startsWith(root)) path = path.substring(root.length());
+            facts.add(FactsExtractor.extract(path, "", cu));
+        }
+        return facts;
+    }
+
+    /**
+     * Mode extraction seule : faits de toutes les unités de compilation, puis libération immédiate
+     * du modèle et de l'état JDT du Launcher. Les étapes suivantes (métriques, couplage, regroupement)
+     * ne gardent en mémoire que les faits, beaucoup plus petits que l'AST.
+     */
+    public synchronized List<FileFacts> extractFactsAndRelease() {
+        try {
+            return extractFacts();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Libère le modèle : le prochain getModel() reconstruira l'AST.
+     */
+    public synchronized void release() {
+        launcher = null;
+        model = null;
+        unitsByPath = null;
+    }
+
+    public static List<File> listJavaFiles(File folder) {
+        List<File> files = new ArrayList<>();
+        File[] entries = folder.listFiles();
+        if (entries == null) return files;
+        for (File f : entries) {
+            if (f.isDirectory()) files.addAll(listJavaFiles(f));
+            else if (f.getName().endsWith(".java")) files.add(f);
+        }
+        return files;
+    }
+
+    static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package analyse;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache disque des faits extraits par fichier, pour l'analyse incrémentale.
+ * Chaque entrée garde l'empreinte du contenu du fichier, les noms des types qu'il référence et ceux
+ * des supertypes de ses types : les faits d'un fichier dépendent aussi des types déclarants résolus
+ * dans les autres, c'est ce qui permet de reparser, en plus des fichiers modifiés, ceux qui dépendent
+ * de leurs types (ReparsePlan).
+ *
+ * Un fichier de cache par projet, dans ~/.spoon-analyzer/cache (ou -Danalyse.cache.dir=...).
+ * Plusieurs processus (application web, interface graphique) peuvent partager un même cache :
+ * chaque écriture passe par un fichier temporaire unique, renommé de façon atomique.
+ */
+public class FactsCache {
+
+    public static final String CACHE_DIR_PROPERTY = "analyse.cache.dir";
+
+    private static final int MAGIC = 0x53504F4E; // "SPON"
+    private static final int VERSION = 3;
+
+    private final File projectRoot;
+    private final File cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    public FactsCache(File projectRoot, File cacheDir) {
+        this.projectRoot = new File(AnalysisSession.canonicalPath(projectRoot));
+        this.cacheFile = new File(cacheDir, sha1Hex(this.projectRoot.getPath().getBytes(StandardCharsets.UTF_8)) + ".facts");
+        load();
+    }
+
+    /**
+     * Ouvre le cache du projet dans le répertoire par défaut.
+     */
+    public static FactsCache open(File projectRoot) {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY,
+                System.getProperty("user.home") + File.separator + ".spoon-analyzer" + File.separator + "cache");
+        return new FactsCache(projectRoot, new File(dir));
+    }
+
+    public File getProjectRoot() {
+        return projectRoot;
+    }
+
+    /**
+     * Chemin du fichier relatif à la racine du projet (clé du cache).
+     */
+    public String relativePath(File file) {
+        String path = AnalysisSession.canonicalPath(file);
+        String root = projectRoot.getPath() + File.separator;
+        return path.startsWith(root) ? path.substring(root.length()) : path;
+    }
+
+    /**
+     * Faits en cache pour ce fichier, ou null si absent ou si le contenu a changé.
+     * Ne suffit pas à valider une entrée : un fichier dont il dépend a pu changer (voir ReparsePlan).
+     */
+    public FileFacts lookup(String path, String hash) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.facts.getHash().equals(hash) ? entry.facts : null;
+    }
+
+    /**
+     * Derniers faits enregistrés pour ce chemin, quel que soit son contenu actuel (ou null).
+     */
+    public FileFacts previous(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.facts : null;
+    }
+
+    /**
+     * Noms simples des types référencés par le fichier lors de son dernier parsing (vide si absent).
+     */
+    public Set<String> references(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.references : Collections.emptySet();
+    }
+
+    /**
+     * Noms simples des supertypes des types du fichier lors de son dernier parsing (vide si absent).
+     */
+    public Set<String> supertypes(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.supertypes : Collections.emptySet();
+    }
+
+    public void put(FileFacts facts, Collection<String> references, Collection<String> supertypes) {
+        entries.put(facts.getPath(), new Entry(facts, new HashSet<>(references), new HashSet<>(supertypes)));
+        dirty = true;
+    }
+
+    /**
+     * Chemins des fichiers en cache.
+     */
+    public Set<String> paths() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    /**
+     * Supprime les entrées des fichiers qui n'existent plus dans le projet.
+     */
+    public void retainOnly(Collection<String> paths) {
+        Set<String> keep = new HashSet<>(paths);
+        if (entries.keySet().retainAll(keep)) dirty = true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Vide le cache et supprime son fichier.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        dirty = false;
+        if (cacheFile.exists() && !cacheFile.delete()) {
+            System.err.println("Impossible de supprimer le cache : " + cacheFile);
+        }
+    }
+
+    /**
+     * Écrit le cache sur disque s'il a changé : fichier temporaire propre à cette écriture, puis
+     * renommage atomique (le dernier écrivain l'emporte, un lecteur ne voit jamais un fichier partiel).
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) return;
+        File dir = cacheFile.getParentFile();
+        if (!dir.exists() && !dir.mkdirs() && !dir.isDirectory()) throw new IOException("Impossible de créer " + dir);
+
+        Path tmp = Files.createTempFile(dir.toPath(), cacheFile.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(projectRoot.getPath());
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    entry.facts.writeTo(out);
+                    writeNames(out, entry.references);
+                    writeNames(out, entry.supertypes);
+                }
+            }
+            try {
+                Files.move(tmp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        dirty = false;
+    }
+
+    private void load() {
+        if (!cacheFile.isFile()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            if (!in.readUTF().equals(projectRoot.getPath())) return;
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                FileFacts facts = FileFacts.readFrom(in);
+                Set<String> references = readNames(in);
+                entries.put(facts.getPath(), new Entry(facts, references, readNames(in)));
+            }
+        } catch (IOException e) {
+            // cache illisible ou d'une ancienne version : on repart de zéro
+            System.err.println("Cache ignoré (" + cacheFile + ") : " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private static void writeNames(DataOutput out, Set<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) out.writeUTF(name);
+    }
+
+    private static Set<String> readNames(DataInput in) throws IOException {
+        int n = in.readInt();
+        Set<String> names = new HashSet<>(n);
+        for (int i = 0; i < n; i++) names.add(in.readUTF().intern());
+        return names;
+    }
+
+    /**
+     * Empreinte du contenu d'un fichier.
+     */
+    public static String hash(File file) throws IOException {
+        return sha1Hex(Files.readAllBytes(file.toPath()));
+    }
+
+    private static String sha1Hex(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        final FileFacts facts;
+        final Set<String> references;
+        final Set<String> supertypes;
+
+        Entry(FileFacts facts, Set<String> references, Set<String> supertypes) {
+            this.facts = facts;
+            this.references = references;
+            this.supertypes = supertypes;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package analyse;
+
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.*;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extraction des faits d'une unité de compilation Spoon.
+ * Une fois les faits produits, l'AST du fichier n'est plus nécessaire.
+ */
+public final class FactsExtractor {
+
+    private FactsExtractor() {
+    }
+
+    public static FileFacts extract(String path, String hash, CtCompilationUnit cu) {
+        List<FileFacts.TypeFacts> types = new ArrayList<>();
+        String packageName = "";
+
+        if (cu != null) {
+            CtPackage pkg = cu.getDeclaredPackage();
+            if (pkg != null && !pkg.isUnnamedPackage()) packageName = pkg.getQualifiedName();
+
+            for (CtType<?> declared : cu.getDeclaredTypes()) {
+                for (CtType<?> type : declared.getElements(new TypeFilter<>(CtType.class))) {
+                    if (type instanceof CtTypeParameter) continue;
+                    types.add(extractType(type));
+                }
+            }
+        }
+        return new FileFacts(path, hash, packageName, types);
+    }
+
+    /**
+     * Noms simples des types référencés par le fichier (types déclarants compris), pour retrouver
+     * les fichiers dont ses faits dépendent. Noms simples : une référence non résolue en mode
+     * noClasspath n'a pas toujours le bon package.
+     */
+    public static Set<String> referencedTypes(CtCompilationUnit cu) {
+        Set<String> names = new HashSet<>();
+        if (cu == null) return names;
+        for (CtType<?> declared : cu.getDeclaredTypes()) {
+            for (CtTypeReference<?> ref : declared.getElements(new TypeFilter<>(CtTypeReference.class))) {
+                if (!ref.isPrimitive()) names.add(ref.getSimpleName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Noms simples des supertypes (classe mère et interfaces) des types déclarés par le fichier :
+     * leurs membres hérités font partie de ceux des types du fichier.
+     */
+    public static Set<String> supertypes(CtCompilationUnit cu) {
+        Set<String> names = new HashSet<>();
+        if (cu == null) return names;
+        for (CtType<?> declared : cu.getDeclaredTypes()) {
+            for (CtType<?> type : declared.getElements(new TypeFilter<>(CtType.class))) {
+                if (type.getSuperclass() != null) names.add(type.getSuperclass().getSimpleName());
+                for (CtTypeReference<?> ref : type.getSuperInterfaces()) names.add(ref.getSimpleName());
+            }
+        }
+        return names;
+    }
+
+    private static FileFacts.TypeFacts extractType(CtType<?> type) {
+        List<FileFacts.MethodFacts> methods = new ArrayList<>();
+        for (CtMethod<?> m : type.getMethods()) {
+            List<FileFacts.CallFacts> calls = new ArrayList<>();
+            for (CtInvocation<?> inv : m.getElements(new TypeFilter<>(CtInvocation.class))) {
+                CtExecutableReference<?> execRef = inv.getExecutable();
+                String declaringType = execRef.getDeclaringType() != null
+                        ? execRef.getDeclaringType().getSimpleName()
+                        : null;
+                calls.add(new FileFacts.CallFacts(execRef.getSimpleName(), declaringType));
+            }
+            methods.add(new FileFacts.MethodFacts(m.getSimpleName(), m.getParameters().size(),
+                    LineCounter.lines(m), LineCounter.lines(m.getBody()), m.getBody() != null, calls));
+        }
+
+        CtPackage pkg = type.getPackage();
+        return new FileFacts.TypeFacts(
+                type.getQualifiedName(),
+                type.getSimpleName(),
+                pkg != null ? pkg.getQualifiedName() : "",
+                type.isTopLevel(),
+                type instanceof CtClass,
+                type.isInterface(),
+                LineCounter.lines(type),
+                type.getFields().size(),
+                methods);
+    }
+}
@@ -0,0 +1,197 @@
+package analyse;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Faits extraits d'un fichier source (types, méthodes, attributs, lignes, appels sortants).
+ * Immuables et sérialisables : ils sont mis en cache sur disque, indexés par chemin + empreinte du contenu.
+ *
+ * Compacts : listes copiées à leur taille exacte, noms (packages, méthodes, types appelés) internés,
+ * car ils se répètent dans tout le projet. Aucune référence vers l'AST Spoon n'est conservée.
+ */
+public class FileFacts {
+
+    private final String path;
+    private final String hash;
+    private final String packageName;
+    private final List<TypeFacts> types;
+
+    public FileFacts(String path, String hash, String packageName, List<TypeFacts> types) {
+        this.path = path;
+        this.hash = hash;
+        this.packageName = packageName.intern();
+        this.types = List.copyOf(types);
+    }
+
+    /** Chemin relatif à la racine du projet */
+    public String getPath() { return path; }
+    /** Empreinte SHA-1 du contenu du fichier */
+    public String getHash() { return hash; }
+    /** Package déclaré par le fichier ("" pour le package par défaut) */
+    public String getPackageName() { return packageName; }
+    /** Tous les types du fichier (imbriqués, locaux et anonymes compris) */
+    public List<TypeFacts> getTypes() { return types; }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(path);
+        out.writeUTF(hash);
+        out.writeUTF(packageName);
+        out.writeInt(types.size());
+        for (TypeFacts t : types) t.writeTo(out);
+    }
+
+    static FileFacts readFrom(DataInput in) throws IOException {
+        String path = in.readUTF();
+        String hash = in.readUTF();
+        String packageName = in.readUTF();
+        int n = in.readInt();
+        List<TypeFacts> types = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) types.add(TypeFacts.readFrom(in));
+        return new FileFacts(path, hash, packageName, types);
+    }
+
+    /** Faits d'un type */
+    public static class TypeFacts {
+        private final String qualifiedName;
+        private final String simpleName;
+        private final String packageName;
+        private final boolean topLevel;
+        private final boolean isClass;
+        private final boolean isInterface;
+        private final int lines;
+        private final int fieldCount;
+        private final List<MethodFacts> methods;
+
+        public TypeFacts(String qualifiedName, String simpleName, String packageName,
+                         boolean topLevel, boolean isClass, boolean isInterface,
+                         int lines, int fieldCount, List<MethodFacts> methods) {
+            this.qualifiedName = qualifiedName;
+            this.simpleName = simpleName.intern();
+            this.packageName = packageName.intern();
+            this.topLevel = topLevel;
+            this.isClass = isClass;
+            this.isInterface = isInterface;
+            this.lines = lines;
+            this.fieldCount = fieldCount;
+            this.methods = List.copyOf(methods);
+        }
+
+        public String getQualifiedName() { return qualifiedName; }
+        public String getSimpleName() { return simpleName; }
+        /** Nom qualifié du package tel que rapporté par Spoon */
+        public String getPackageName() { return packageName; }
+        public boolean isTopLevel() { return topLevel; }
+        /** Vrai pour un CtClass (classes, enums, records, classes anonymes) */
+        public boolean isClass() { return isClass; }
+        public boolean isInterface() { return isInterface; }
+        public int getLines() { return lines; }
+        public int getFieldCount() { return fieldCount; }
+        /** Méthodes déclarées par ce type */
+        public List<MethodFacts> getMethods() { return methods; }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(qualifiedName);
+            out.writeUTF(simpleName);
+            out.writeUTF(packageName);
+            out.writeByte((topLevel ? 1 : 0) | (isClass ? 2 : 0) | (isInterface ? 4 : 0));
+            out.writeInt(lines);
+            out.writeInt(fieldCount);
+            out.writeInt(methods.size());
+            for (MethodFacts m : methods) m.writeTo(out);
+        }
+
+        static TypeFacts readFrom(DataInput in) throws IOException {
+            String qualifiedName = in.readUTF();
+            String simpleName = in.readUTF();
+            String packageName = in.readUTF();
+            int flags = in.readByte();
+            int lines = in.readInt();
+            int fieldCount = in.readInt();
+            int n = in.readInt();
+            List<MethodFacts> methods = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) methods.add(MethodFacts.readFrom(in));
+            return new TypeFacts(qualifiedName, simpleName, packageName,
+                    (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, lines, fieldCount, methods);
+        }
+    }
+
+    /** Faits d'une méthode */
+    public static class MethodFacts {
+        private final String name;
+        private final int parameterCount;
+        private final int lines;
+        private final int bodyLines;
+        private final boolean hasBody;
+        private final List<CallFacts> calls;
+
+        public MethodFacts(String name, int parameterCount, int lines, int bodyLines, boolean hasBody,
+                           List<CallFacts> calls) {
+            this.name = name.intern();
+            this.parameterCount = parameterCount;
+            this.lines = lines;
+            this.bodyLines = bodyLines;
+            this.hasBody = hasBody;
+            this.calls = List.copyOf(calls);
+        }
+
+        public String getName() { return name; }
+        public int getParameterCount() { return parameterCount; }
+        public int getLines() { return lines; }
+        public int getBodyLines() { return bodyLines; }
+        public boolean hasBody() { return hasBody; }
+        /** Appels sortants, dans l'ordre du source */
+        public List<CallFacts> getCalls() { return calls; }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(name);
+            out.writeInt(parameterCount);
+            out.writeInt(lines);
+            out.writeInt(bodyLines);
+            out.writeBoolean(hasBody);
+            out.writeInt(calls.size());
+            for (CallFacts c : calls) c.writeTo(out);
+        }
+
+        static MethodFacts readFrom(DataInput in) throws IOException {
+            String name = in.readUTF();
+            int parameterCount = in.readInt();
+            int lines = in.readInt();
+            int bodyLines = in.readInt();
+            boolean hasBody = in.readBoolean();
+            int n = in.readInt();
+            List<CallFacts> calls = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) calls.add(CallFacts.readFrom(in));
+            return new MethodFacts(name, parameterCount, lines, bodyLines, hasBody, calls);
+        }
+    }
+
+    /** Un site d'appel : méthode appelée et type déclarant (null si Spoon ne l'a pas résolu) */
+    public static class CallFacts {
+        private final String name;
+        private final String declaringType;
+
+        public CallFacts(String name, String declaringType) {
+            this.name = name.intern();
+            this.declaringType = declaringType != null ? declaringType.intern() : null;
+        }
+
+        public String getName() { return name; }
+        public String getDeclaringType() { return declaringType; }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(name);
+            out.writeBoolean(declaringType != null);
+            if (declaringType != null) out.writeUTF(declaringType);
+        }
+
+        static CallFacts readFrom(DataInput in) throws IOException {
+            String name = in.readUTF();
+            String declaringType = in.readBoolean() ? in.readUTF() : null;
+            return new CallFacts(name, declaringType);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package analyse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Résultat de l'analyse d'un seul fichier source (immuable, produit par un thread de travail).
+ */
+public class FileMetrics {
+
+    private final File file;
+    private final String packageName;
+    private final int lineCount;
+    private final List<ClassMetrics> classes;
+    private final List<MethodMetrics> methods;
+
+    public FileMetrics(File file, String packageName, int lineCount,
+                       List<ClassMetrics> classes, List<MethodMetrics> methods) {
+        this.file = file;
+        this.packageName = packageName;
+        this.lineCount = lineCount;
+        this.classes = Collections.unmodifiableList(classes);
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * Métriques du fichier calculées à partir de ses faits extraits (ou relus du cache).
+     */
+    public static FileMetrics from(File file, FileFacts facts) {
+        List<ClassMetrics> classes = new ArrayList<>();
+        List<MethodMetrics> methods = new ArrayList<>();
+        int lines = 0;
+        for (FileFacts.TypeFacts type : facts.getTypes()) {
+            if (type.isClass()) {
+                classes.add(new ClassMetrics(type.getSimpleName(), type.getQualifiedName(),
+                        type.getMethods().size(), type.getFieldCount()));
+                lines += type.getLines();
+            }
+            for (FileFacts.MethodFacts m : type.getMethods()) {
+                methods.add(new MethodMetrics(m.getName(), m.getParameterCount(), m.getBodyLines(), m.hasBody()));
+            }
+        }
+        return new FileMetrics(file, facts.getPackageName(), lines, classes, methods);
+    }
+
+    public File getFile() { return file; }
+    public String getFileName() { return file.getName(); }
+    public String getPackageName() { return packageName; }
+    public int getLineCount() { return lineCount; }
+    public List<ClassMetrics> getClasses() { return classes; }
+    public List<MethodMetrics> getMethods() { return methods; }
+
+    public int getClassCount() { return classes.size(); }
+    public int getMethodCount() { return methods.size(); }
+
+    public int getAttributeCount() {
+        int sum = 0;
+        for (ClassMetrics c : classes) sum += c.getFieldCount();
+        return sum;
+    }
+
+    /**
+     * Nombre de packages traversés par le fichier (a.b.c -> 3).
+     */
+    public int getPackageDepth() {
+        if (packageName == null || packageName.isEmpty()) return 0;
+        return packageName.split("\\.").length;
+    }
+
+    public double getAvgMethodsPerClass() {
+        return classes.isEmpty() ? 0 : (double) methods.size() / classes.size();
+    }
+
+    public double getAvgAttributesPerClass() {
+        return classes.isEmpty() ? 0 : (double) getAttributeCount() / classes.size();
+    }
+
+    /**
+     * Moyenne des lignes de corps des méthodes qui en possèdent un.
+     */
+    public double getAvgLinesPerMethod() {
+        return methods.stream()
+                .filter(MethodMetrics::hasBody)
+                .mapToInt(MethodMetrics::getBodyLines)
+                .average().orElse(0);
+    }
+
+    /** Métriques d'une classe du fichier */
+    public static class ClassMetrics {
+        private final String simpleName;
+        private final String qualifiedName;
+        private final int methodCount;
+        private final int fieldCount;
+
+        public ClassMetrics(String simpleName, String qualifiedName, int methodCount, int fieldCount) {
+            this.simpleName = simpleName;
+            this.qualifiedName = qualifiedName;
+            this.methodCount = methodCount;
+            this.fieldCount = fieldCount;
+        }
+
+        public String getSimpleName() { return simpleName; }
+        public String getQualifiedName() { return qualifiedName; }
+        public int getMethodCount() { return methodCount; }
+        public int getFieldCount() { return fieldCount; }
+    }
+
+    /** Métriques d'une méthode du fichier */
+    public static class MethodMetrics {
+        private final String simpleName;
+        private final int parameterCount;
+        private final int bodyLines;
+        private final boolean hasBody;
+
+        public MethodMetrics(String simpleName, int parameterCount, int bodyLines, boolean hasBody) {
+            this.simpleName = simpleName;
+            this.parameterCount = parameterCount;
+            this.bodyLines = bodyLines;
+            this.hasBody = hasBody;
+        }
+
+        public String getSimpleName() { return simpleName; }
+        public int getParameterCount() { return parameterCount; }
+        public int getBodyLines() { return bodyLines; }
+        public boolean hasBody() { return hasBody; }
+    }
+}
@@ -0,0 +1,125 @@
+package analyse;
+
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Comptage des lignes de code à partir des positions source Spoon.
+ * Aucune impression de l'AST (toString) : on lit simplement les lignes de début et de fin
+ * déjà calculées par le compilateur, sans allocation.
+ */
+public final class LineCounter {
+
+    private LineCounter() {
+    }
+
+    /**
+     * Nombre de lignes source couvertes par l'élément (0 pour un élément implicite ou sans position).
+     */
+    public static int lines(CtElement element) {
+        if (element == null) return 0;
+        SourcePosition pos = element.getPosition();
+        if (pos == null || !pos.isValidPosition()) return 0;
+        return pos.getEndLine() - pos.getLine() + 1;
+    }
+
+    /**
+     * Analyse brute d'un fichier source : lignes physiques, vides, de commentaire et de code.
+     */
+    public static SourceLines scan(File file) throws IOException {
+        return scan(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parcourt le texte caractère par caractère (automate commentaire / chaîne / code).
+     * Une ligne contenant du code et un commentaire compte comme ligne de code.
+     */
+    public static SourceLines scan(CharSequence src) {
+        int physical = 0, blank = 0, comment = 0, code = 0;
+        boolean inBlockComment = false;
+        boolean lineHasCode = false, lineHasComment = false;
+        int len = src.length();
+
+        for (int i = 0; i < len; i++) {
+            char c = src.charAt(i);
+
+            if (c == '\n') {
+                physical++;
+                if (lineHasCode) code++;
+                else if (lineHasComment || inBlockComment) comment++;
+                else blank++;
+                lineHasCode = lineHasComment = false;
+                continue;
+            }
+            if (inBlockComment) {
+                lineHasComment = true;
+                if (c == '*' && i + 1 < len && src.charAt(i + 1) == '/') {
+                    inBlockComment = false;
+                    i++;
+                }
+                continue;
+            }
+            if (c == '/' && i + 1 < len && src.charAt(i + 1) == '/') {
+                lineHasComment = true;
+                // saute jusqu'à la fin de ligne (le '\n' est traité au tour suivant)
+                while (i + 1 < len && src.charAt(i + 1) != '\n') i++;
+                continue;
+            }
+            if (c == '/' && i + 1 < len && src.charAt(i + 1) == '*') {
+                inBlockComment = true;
+                lineHasComment = true;
+                i++;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                lineHasCode = true;
+                // saute le littéral (les échappements sont ignorés)
+                while (i + 1 < len && src.charAt(i + 1) != c && src.charAt(i + 1) != '\n') {
+                    if (src.charAt(i + 1) == '\\') i++;
+                    i++;
+                }
+                if (i + 1 < len && src.charAt(i + 1) == c) i++;
+                continue;
+            }
+            if (!Character.isWhitespace(c)) lineHasCode = true;
+        }
+
+        // dernière ligne sans retour chariot final
+        if (len > 0 && src.charAt(len - 1) != '\n') {
+            physical++;
+            if (lineHasCode) code++;
+            else if (lineHasComment || inBlockComment) comment++;
+            else blank++;
+        }
+        return new SourceLines(physical, blank, comment, code);
+    }
+
+    /** Résultat de l'analyse brute d'un fichier */
+    public static class SourceLines {
+        private final int physical;
+        private final int blank;
+        private final int comment;
+        private final int code;
+
+        public SourceLines(int physical, int blank, int comment, int code) {
+            this.physical = physical;
+            this.blank = blank;
+            this.comment = comment;
+            this.code = code;
+        }
+
+        /** Toutes les lignes du fichier */
+        public int getPhysical() { return physical; }
+        /** Lignes vides */
+        public int getBlank() { return blank; }
+        /** Lignes ne contenant que du commentaire */
+        public int getComment() { return comment; }
+        /** Lignes logiques (contenant du code) */
+        public int getCode() { return code; }
+    }
+}
@@ -0,0 +1,304 @@
+package analyse;
+
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.support.compiler.SpoonProgress;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Moteur d'analyse par fichier, sur un pool fork-join.
+ * Les types déclarants des appels dépendent des autres fichiers (appels chaînés, méthodes héritées) :
+ * les fichiers à analyser sont donc parsés ensemble dans un seul modèle Spoon (AnalysisSession),
+ * dont la construction reste séquentielle (JDT) mais est suivie fichier par fichier (modelProgress)
+ * et interrompue dès l'annulation. Le modèle construit n'est plus que lu : le pool en extrait les faits
+ * fichier par fichier, en parallèle ; le modèle est libéré dès l'extraction terminée.
+ * Avec un FactsCache, seuls les fichiers modifiés et ceux qui dépendent de leurs types sont reparsés
+ * (ReparsePlan), dans un modèle limité aux fichiers dont ils dépendent ; les autres reprennent leurs
+ * faits du cache. Le pool calcule aussi les empreintes et fusionne les faits dans un ProjectMetrics.
+ * Sans parallélisme explicite, les analyseurs partagent un seul pool (analyse.parallelism threads,
+ * tous les cœurs par défaut) : des analyses simultanées ne créent pas chacune le leur.
+ * Un AnalysisListener reçoit chaque fichier terminé et peut interrompre l'analyse entre deux fichiers.
+ */
+public class ParallelFileAnalyzer {
+
+    /** Propriété système permettant de limiter le parallélisme (-Danalyse.parallelism=8) */
+    public static final String PARALLELISM_PROPERTY = "analyse.parallelism";
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    private static ForkJoinPool sharedPool;
+
+    private final int parallelism;
+    private final int batchSize;
+    // pool partagé, ou null : pool propre à chaque analyse
+    private final ForkJoinPool pool;
+    private FactsCache cache;
+    private AnalysisListener listener = new AnalysisListener() { };
+
+    public ParallelFileAnalyzer() {
+        this.pool = sharedPool();
+        this.parallelism = pool.getParallelism();
+        this.batchSize = DEFAULT_BATCH_SIZE;
+    }
+
+    public ParallelFileAnalyzer(int parallelism) {
+        this(parallelism, DEFAULT_BATCH_SIZE);
+    }
+
+    public ParallelFileAnalyzer(int parallelism, int batchSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+        this.pool = null;
+    }
+
+    /**
+     * Pool commun aux analyseurs sans parallélisme explicite, créé au premier usage (threads démons).
+     */
+    private static synchronized ForkJoinPool sharedPool() {
+        if (sharedPool == null) {
+            int parallelism = Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+            sharedPool = new ForkJoinPool(parallelism, pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("file-analyzer-" + t.getPoolIndex());
+                return t;
+            }, null, false);
+        }
+        return sharedPool;
+    }
+
+    /**
+     * Active le cache incrémental : seuls les fichiers modifiés et leurs dépendants sont reparsés.
+     */
+    public ParallelFileAnalyzer withCache(FactsCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Suivi de progression et annulation.
+     */
+    public ParallelFileAnalyzer withListener(AnalysisListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Analyse incrémentale de tout un dossier avec son cache disque.
+     */
+    public ProjectMetrics analyzeProject(File root) {
+        return withCache(FactsCache.open(root)).analyze(AnalysisSession.listJavaFiles(root));
+    }
+
+    /**
+     * Analyse tous les fichiers et retourne les métriques fusionnées.
+     * @throws CancellationException si le listener a demandé l'annulation
+     */
+    public ProjectMetrics analyze(List<File> javaFiles) {
+        int n = javaFiles.size();
+        ProjectMetrics project = new ProjectMetrics(n);
+        if (n == 0) return project;
+
+        String[] paths = new String[n];
+        String[] hashes = new String[n];
+        FileFacts[] facts = new FileFacts[n];
+        ForkJoinPool pool = this.pool != null ? this.pool : new ForkJoinPool(parallelism);
+        try {
+            // 1) Empreintes et faits en cache des fichiers inchangés
+            pool.invoke(new BatchTask(0, n, i -> fingerprint(javaFiles.get(i), i, paths, hashes)));
+            if (cache != null) pool.invoke(new BatchTask(0, n, i -> facts[i] = cache.lookup(paths[i], hashes[i])));
+            if (listener.isCancelled()) throw new CancellationException("Analyse annulée");
+
+            // 2) Fichiers modifiés et dépendants reparsés, puis fusion de tous les faits
+            BitSet reparsed = reparse(pool, javaFiles, paths, hashes, facts, plan(javaFiles, paths, facts));
+            pool.invoke(new BatchTask(0, n, i -> {
+                project.merge(i, javaFiles.get(i), facts[i]);
+                listener.fileAnalyzed(i, javaFiles.get(i), facts[i], !reparsed.get(i));
+            }));
+        } finally {
+            if (pool != this.pool) pool.shutdown();
+        }
+
+        if (listener.isCancelled()) throw new CancellationException("Analyse annulée");
+        if (cache != null) {
+            cache.retainOnly(Arrays.asList(paths));
+            try {
+                cache.save();
+            } catch (IOException e) {
+                System.err.println("Erreur d'écriture du cache : " + e.getMessage());
+            }
+        }
+        return project;
+    }
+
+    private void fingerprint(File file, int i, String[] paths, String[] hashes) {
+        paths[i] = cache != null ? cache.relativePath(file) : file.getPath();
+        hashes[i] = "";
+        if (cache == null) return;
+        try {
+            hashes[i] = FactsCache.hash(file);
+        } catch (IOException e) {
+            // fichier illisible : empreinte vide, il sera signalé au parsing
+        }
+    }
+
+    /**
+     * Fichiers à reparser : absents du cache ou modifiés, et ceux qui référencent les types qu'ils
+     * déclaraient, déclarent d'après leur nom ou que déclaraient les fichiers supprimés (ou leurs sous-types).
+     */
+    private ReparsePlan plan(List<File> files, String[] paths, FileFacts[] facts) {
+        int n = files.size();
+        ReparsePlan plan = new ReparsePlan(n);
+        if (cache == null) {
+            for (int i = 0; i < n; i++) plan.markChanged(i);
+            return plan;
+        }
+        Set<String> changedTypes = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            Set<String> declared = declaredTypes(facts[i] != null ? facts[i] : cache.previous(paths[i]));
+            if (facts[i] == null) {
+                String name = files.get(i).getName();
+                declared.add(name.endsWith(".java") ? name.substring(0, name.length() - 5) : name);
+                changedTypes.addAll(declared);
+                plan.markChanged(i);
+            }
+            plan.addFile(i, declared, cache.references(paths[i]), cache.supertypes(paths[i]));
+        }
+        Set<String> current = new HashSet<>(Arrays.asList(paths));
+        for (String path : cache.paths()) {
+            if (!current.contains(path)) changedTypes.addAll(declaredTypes(cache.previous(path)));
+        }
+        plan.typesChanged(changedTypes);
+        return plan;
+    }
+
+    private static Set<String> declaredTypes(FileFacts facts) {
+        Set<String> names = new HashSet<>();
+        if (facts != null) for (FileFacts.TypeFacts type : facts.getTypes()) names.add(type.getSimpleName());
+        return names;
+    }
+
+    /**
+     * Reparse les fichiers du plan dans un modèle Spoon limité aux fichiers dont ils dépendent, et en
+     * extrait les faits en parallèle. Les références relevées au parsing peuvent étendre le modèle
+     * (nouvel import, appel chaîné résolu) ou les fichiers à reparser (nouveau type déclaré) : le modèle
+     * est alors reconstruit, jusqu'à ce qu'il couvre tout le plan. Chaque session (modèle et état JDT) est libérée aussitôt
+     * l'extraction terminée.
+     * @return les fichiers reparsés
+     * @throws CancellationException si l'annulation est demandée pendant la construction du modèle
+     */
+    private BitSet reparse(ForkJoinPool pool, List<File> files, String[] paths, String[] hashes,
+                           FileFacts[] facts, ReparsePlan plan) {
+        if (plan.reparse().isEmpty()) return new BitSet();
+        BitSet built = new BitSet();
+        long modelNanos = 0, extractionNanos = 0;
+        while (true) {
+            BitSet model = plan.modelFiles();
+            model.or(built);
+            built = model;
+            int[] targets = plan.reparse().stream().toArray();
+            List<Set<String>> references = new ArrayList<>(Collections.nCopies(targets.length, null));
+            List<Set<String>> supertypes = new ArrayList<>(Collections.nCopies(targets.length, null));
+
+            long modelStart = System.nanoTime();
+            List<File> modelFiles = new ArrayList<>(built.cardinality());
+            built.stream().forEach(i -> modelFiles.add(files.get(i)));
+            AnalysisSession session = new AnalysisSession(cache != null ? cache.getProjectRoot() : null, modelFiles);
+            session.setProgress(new ModelProgress(2 * modelFiles.size()));
+            try {
+                session.getModel();
+                // unités recherchées ici : la session est synchronisée, l'extraction ne fait plus que lire le modèle
+                CtCompilationUnit[] units = new CtCompilationUnit[targets.length];
+                for (int k = 0; k < targets.length; k++) units[k] = session.getCompilationUnit(files.get(targets[k]));
+                long extractionStart = System.nanoTime();
+                modelNanos += extractionStart - modelStart;
+                pool.invoke(new BatchTask(0, targets.length, k -> {
+                    int i = targets[k];
+                    facts[i] = FactsExtractor.extract(paths[i], hashes[i], units[k]);
+                    if (cache == null) return;
+                    references.set(k, FactsExtractor.referencedTypes(units[k]));
+                    supertypes.set(k, FactsExtractor.supertypes(units[k]));
+                }));
+                extractionNanos += System.nanoTime() - extractionStart;
+            } finally {
+                session.release();
+            }
+            if (listener.isCancelled()) throw new CancellationException("Analyse annulée");
+
+            Set<String> newTypes = new HashSet<>();
+            for (int k = 0; k < targets.length; k++) {
+                if (references.get(k) != null) plan.setReferences(targets[k], references.get(k), supertypes.get(k));
+                newTypes.addAll(plan.declare(targets[k], declaredTypes(facts[targets[k]])));
+            }
+            boolean grew = plan.typesChanged(newTypes);
+            BitSet missing = plan.modelFiles();
+            missing.andNot(built);
+            if (grew || !missing.isEmpty()) continue;
+
+            if (cache != null) {
+                for (int k = 0; k < targets.length; k++) cache.put(facts[targets[k]], references.get(k), supertypes.get(k));
+            }
+            listener.batchAnalyzed(targets.length, modelNanos, extractionNanos);
+            return plan.reparse();
+        }
+    }
+
+    /**
+     * Étapes de la construction du modèle (compilation et arbre de chaque fichier) transmises au listener,
+     * qui peut l'interrompre entre deux étapes.
+     */
+    private class ModelProgress implements SpoonProgress {
+        private final int totalSteps;
+        private final AtomicInteger steps = new AtomicInteger();
+
+        ModelProgress(int totalSteps) {
+            this.totalSteps = totalSteps;
+        }
+
+        @Override
+        public void step(Process process, String task, int taskId, int nbTask) {
+            if (listener.isCancelled()) throw new CancellationException("Analyse annulée");
+            if (process != Process.COMPILE && process != Process.MODEL) return;
+            listener.modelProgress(Math.min(steps.incrementAndGet(), totalSteps), totalSteps);
+        }
+    }
+
+    /**
+     * Découpe récursive de l'intervalle [from, to) jusqu'à la taille d'un lot, action par indice.
+     */
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final transient IntConsumer action;
+
+        BatchTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    if (listener.isCancelled()) return;
+                    action.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(from, mid, action), new BatchTask(mid, to, action));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package analyse;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Accumulateur global des métriques du projet.
+ * Les threads de travail y fusionnent leurs FileMetrics sans verrou (LongAdder, ConcurrentHashMap).
+ */
+public class ProjectMetrics {
+
+    private final AtomicReferenceArray<FileMetrics> files;
+    private final AtomicReferenceArray<FileFacts> facts;
+
+    private final LongAdder totalClasses = new LongAdder();
+    private final LongAdder totalMethods = new LongAdder();
+    private final LongAdder totalLines = new LongAdder();
+    private final LongAdder totalFields = new LongAdder();
+    private final LongAdder totalBodyLines = new LongAdder();
+    private final AtomicInteger maxParameters = new AtomicInteger();
+    private final Set<String> packages = ConcurrentHashMap.newKeySet();
+
+    public ProjectMetrics(int fileCount) {
+        this.files = new AtomicReferenceArray<>(fileCount);
+        this.facts = new AtomicReferenceArray<>(fileCount);
+    }
+
+    /**
+     * Fusionne les faits du fichier d'indice index (appelé en parallèle).
+     */
+    public void merge(int index, File file, FileFacts fileFacts) {
+        facts.set(index, fileFacts);
+        merge(index, FileMetrics.from(file, fileFacts));
+    }
+
+    /**
+     * Fusionne le résultat du fichier d'indice index (appelé en parallèle).
+     */
+    public void merge(int index, FileMetrics fm) {
+        files.set(index, fm);
+
+        totalClasses.add(fm.getClassCount());
+        totalMethods.add(fm.getMethodCount());
+        totalLines.add(fm.getLineCount());
+        totalFields.add(fm.getAttributeCount());
+
+        for (FileMetrics.MethodMetrics m : fm.getMethods()) {
+            totalBodyLines.add(m.getBodyLines());
+            maxParameters.accumulateAndGet(m.getParameterCount(), Math::max);
+        }
+
+        // Un package a.b.c compte aussi ses parents a et a.b (comme CtModel.getAllPackages)
+        String pkg = fm.getPackageName();
+        while (pkg != null && !pkg.isEmpty()) {
+            if (!packages.add(pkg)) break;
+            int dot = pkg.lastIndexOf('.');
+            pkg = dot < 0 ? null : pkg.substring(0, dot);
+        }
+    }
+
+    /**
+     * Résultats par fichier, dans l'ordre de la liste analysée.
+     */
+    public List<FileMetrics> getFiles() {
+        List<FileMetrics> list = new ArrayList<>(files.length());
+        for (int i = 0; i < files.length(); i++) {
+            FileMetrics fm = files.get(i);
+            if (fm != null) list.add(fm);
+        }
+        return list;
+    }
+
+    /**
+     * Faits extraits par fichier, dans l'ordre de la liste analysée.
+     */
+    public List<FileFacts> getFileFacts() {
+        List<FileFacts> list = new ArrayList<>(facts.length());
+        for (int i = 0; i < facts.length(); i++) {
+            FileFacts ff = facts.get(i);
+            if (ff != null) list.add(ff);
+        }
+        return list;
+    }
+
+    public int getTotalClasses() { return totalClasses.intValue(); }
+    public int getTotalMethods() { return totalMethods.intValue(); }
+    public int getTotalLines() { return totalLines.intValue(); }
+    public int getTotalFields() { return totalFields.intValue(); }
+    public int getTotalBodyLines() { return totalBodyLines.intValue(); }
+    public int getMaxParameters() { return maxParameters.get(); }
+    public int getTotalPackages() { return packages.size(); }
+
+    public double getAvgMethodsPerClass() {
+        int classes = getTotalClasses();
+        return classes == 0 ? 0 : (double) getTotalMethods() / classes;
+    }
+
+    public double getAvgAttributesPerClass() {
+        int classes = getTotalClasses();
+        return classes == 0 ? 0 : (double) getTotalFields() / classes;
+    }
+
+    // ---------- Vues par nom (construites dans l'ordre des fichiers) ----------
+
+    public Map<String, Integer> getMethodsPerClass() {
+        Map<String, Integer> map = new HashMap<>();
+        for (FileMetrics fm : getFiles())
+            for (FileMetrics.ClassMetrics c : fm.getClasses()) map.put(c.getSimpleName(), c.getMethodCount());
+        return map;
+    }
+
+    public Map<String, Integer> getAttributesPerClass() {
+        Map<String, Integer> map = new HashMap<>();
+        for (FileMetrics fm : getFiles())
+            for (FileMetrics.ClassMetrics c : fm.getClasses()) map.put(c.getSimpleName(), c.getFieldCount());
+        return map;
+    }
+
+    public Map<String, Integer> getMethodLengths() {
+        Map<String, Integer> map = new HashMap<>();
+        for (FileMetrics fm : getFiles())
+            for (FileMetrics.MethodMetrics m : fm.getMethods()) map.put(m.getSimpleName(), m.getBodyLines());
+        return map;
+    }
+
+    /**
+     * Noms qualifiés des classes ayant strictement plus de x méthodes.
+     */
+    public List<String> getClassesWithMoreThan(int x) {
+        return getFiles().stream()
+                .flatMap(fm -> fm.getClasses().stream())
+                .filter(c -> c.getMethodCount() > x)
+                .map(FileMetrics.ClassMetrics::getQualifiedName)
+                .collect(Collectors.toList());
+    }
+}
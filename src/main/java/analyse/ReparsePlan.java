@@ -0,0 +1,126 @@
+package analyse;
+
+import java.util.*;
+
+/**
+ * Fichiers à reparser lors d'une analyse incrémentale, d'après les noms simples des types que chaque
+ * fichier déclare, référence et étend (une référence non résolue n'a pas toujours son package : un nom
+ * simple partagé par plusieurs types relie tous leurs fichiers, par excès de prudence).
+ *
+ * - types touchés : ceux des fichiers modifiés ou supprimés, et leurs sous-types de proche en proche
+ *   (ils en héritent les membres) ;
+ * - à reparser : les fichiers modifiés et ceux qui référencent un type touché (types déclarants et
+ *   types de retour des appels compris) : leurs appels peuvent se résoudre autrement ;
+ * - à mettre dans le modèle : ces fichiers, ceux qui déclarent les types qu'ils référencent, et les
+ *   supertypes de tous ceux-ci de proche en proche, pour que Spoon résolve les appels comme dans le
+ *   projet complet.
+ * Les autres fichiers gardent les faits du cache.
+ */
+final class ReparsePlan {
+
+    private final List<Set<String>> declared;
+    private final List<Set<String>> referenced;
+    private final List<Set<String>> supertypes;
+    private final Map<String, List<Integer>> declaredBy = new HashMap<>();
+    private final Map<String, List<Integer>> referencedBy = new HashMap<>();
+    private final Map<String, List<Integer>> subtypesBy = new HashMap<>();
+    private final Set<String> changedTypes = new HashSet<>();
+    private final BitSet reparse = new BitSet();
+
+    ReparsePlan(int n) {
+        declared = new ArrayList<>(n);
+        referenced = new ArrayList<>(n);
+        supertypes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            declared.add(new HashSet<>());
+            referenced.add(Collections.emptySet());
+            supertypes.add(Collections.emptySet());
+        }
+    }
+
+    /**
+     * Types déclarés, référencés et étendus par le fichier i lors de son dernier parsing.
+     */
+    void addFile(int i, Collection<String> declaredNames, Set<String> referencedNames, Set<String> supertypeNames) {
+        declare(i, declaredNames);
+        setReferences(i, referencedNames, supertypeNames);
+        for (String name : referencedNames) referencedBy.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+        for (String name : supertypeNames) subtypesBy.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+    }
+
+    /**
+     * Ajoute des types déclarés par le fichier i et retourne ceux qui ne l'étaient pas encore.
+     */
+    Set<String> declare(int i, Collection<String> names) {
+        Set<String> added = new HashSet<>();
+        for (String name : names) {
+            if (declared.get(i).add(name)) {
+                declaredBy.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+                added.add(name);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Références du fichier i après son reparsing : elles étendent le modèle, pas les fichiers à reparser.
+     */
+    void setReferences(int i, Set<String> referencedNames, Set<String> supertypeNames) {
+        referenced.set(i, referencedNames);
+        supertypes.set(i, supertypeNames);
+    }
+
+    void markChanged(int i) {
+        reparse.set(i);
+    }
+
+    /**
+     * Ajoute ces types et leurs sous-types aux types touchés, et marque à reparser les fichiers qui
+     * les référencent. Retourne vrai si de nouveaux fichiers sont à reparser.
+     */
+    boolean typesChanged(Collection<String> names) {
+        Deque<String> queue = new ArrayDeque<>();
+        for (String name : names) if (changedTypes.add(name)) queue.add(name);
+        boolean grew = false;
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            for (int j : subtypesBy.getOrDefault(name, Collections.emptyList())) {
+                for (String subtype : declared.get(j)) if (changedTypes.add(subtype)) queue.add(subtype);
+            }
+            for (int j : referencedBy.getOrDefault(name, Collections.emptyList())) {
+                if (!reparse.get(j)) {
+                    reparse.set(j);
+                    grew = true;
+                }
+            }
+        }
+        return grew;
+    }
+
+    BitSet reparse() {
+        return (BitSet) reparse.clone();
+    }
+
+    /**
+     * Fichiers à reparser, ceux qui déclarent les types qu'ils référencent, et les fichiers des
+     * supertypes de tous ceux-ci de proche en proche.
+     */
+    BitSet modelFiles() {
+        BitSet model = reparse();
+        reparse.stream().forEach(i -> addDeclaring(referenced.get(i), model, null));
+        Deque<Integer> queue = new ArrayDeque<>();
+        model.stream().forEach(queue::add);
+        while (!queue.isEmpty()) addDeclaring(supertypes.get(queue.poll()), model, queue);
+        return model;
+    }
+
+    private void addDeclaring(Set<String> names, BitSet model, Deque<Integer> queue) {
+        for (String name : names) {
+            for (int j : declaredBy.getOrDefault(name, Collections.emptyList())) {
+                if (model.get(j)) continue;
+                model.set(j);
+                if (queue != null) queue.add(j);
+            }
+        }
+    }
+}
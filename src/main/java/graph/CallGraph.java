@@ -0,0 +1,449 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * Graphe d'appels compact : les noms de classes et de méthodes sont internés en entiers
+ * et les arêtes stockées en tableaux CSR (décalages + cibles + multiplicité).
+ * Deux tables de noms, donc deux espaces d'identifiants : types (classes et types déclarants)
+ * et méthodes ; une classe et une méthode homonymes ont chacune leur identifiant.
+ *
+ * classe c  -> méthodes [methodOffsets[c], methodOffsets[c+1])
+ * méthode m -> arêtes   [edgeOffsets[m], edgeOffsets[m+1])
+ * arête e   -> appel de edgeMethod[e] (type edgeClass[e]), edgeCount[e] fois
+ *
+ * Les appels identiques d'une même méthode sont regroupés en une seule arête ; callEdge garde l'arête
+ * de chaque site d'appel dans l'ordre du source (un entier par appel), pour que les listes dépliées
+ * restent dans l'ordre d'origine ([a, b, a] et non [a, a, b]).
+ * asMap() expose le graphe sous l'ancienne forme Map<classe, Map<méthode, List<MethodCall>>>.
+ */
+public class CallGraph {
+
+    private final NameTable types;
+    private final NameTable methods;
+
+    private final int[] classNames;
+    private final int[] methodOffsets;
+    private final int[] methodNames;
+    private final int[] edgeOffsets;
+    private final int[] edgeMethod;
+    private final int[] edgeClass;
+    private final int[] edgeCount;
+    // nombre cumulé d'appels jusqu'à l'arête e incluse (position dans les listes dépliées)
+    private final int[] callEnds;
+    // arête de chaque site d'appel, dans l'ordre d'origine ; les appels de la méthode m occupent
+    // les positions [callEnds[edgeStart(m) - 1], callEnds[edgeEnd(m) - 1])
+    private final int[] callEdge;
+    // identifiant de type -> indice de classe (-1 si ce type n'est pas une classe du graphe)
+    private final int[] classByName;
+
+    private Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> mapView;
+
+    private CallGraph(NameTable types, NameTable methods, int[] classNames, int[] methodOffsets, int[] methodNames,
+                      int[] edgeOffsets, int[] edgeMethod, int[] edgeClass, int[] edgeCount, int[] callEdge) {
+        this.types = types;
+        this.methods = methods;
+        this.classNames = classNames;
+        this.methodOffsets = methodOffsets;
+        this.methodNames = methodNames;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeMethod = edgeMethod;
+        this.edgeClass = edgeClass;
+        this.edgeCount = edgeCount;
+        this.callEdge = callEdge;
+
+        this.callEnds = new int[edgeCount.length];
+        int total = 0;
+        for (int e = 0; e < edgeCount.length; e++) {
+            total += edgeCount[e];
+            callEnds[e] = total;
+        }
+
+        this.classByName = new int[types.size()];
+        Arrays.fill(classByName, -1);
+        for (int c = 0; c < classNames.length; c++) classByName[classNames[c]] = c;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Graphe compact d'une Map historique : la vue asMap() redonne son graphe, toute autre Map est recopiée.
+     */
+    public static CallGraph of(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph) {
+        if (graph instanceof CallGraph.GraphView) return ((CallGraph.GraphView) graph).graph();
+        Builder builder = builder();
+        for (Map.Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> cls : graph.entrySet()) {
+            builder.addClass(cls.getKey());
+            for (Map.Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>> method : cls.getValue().entrySet()) {
+                builder.addMethod(method.getKey());
+                for (SpoonClassMethodCallVisitor.MethodCall call : method.getValue()) {
+                    builder.addCall(call.name, call.declaringClass != null ? call.declaringClass : "Inconnu");
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // ---------- Accès primitifs ----------
+
+    /** Noms des classes et des types déclarants (classNameId, edgeTargetClass) */
+    public NameTable getTypeNames() { return types; }
+    /** Noms des méthodes (methodNameId, edgeTargetMethod) */
+    public NameTable getMethodNames() { return methods; }
+    public int getClassCount() { return classNames.length; }
+    public int getMethodCount() { return methodNames.length; }
+    public int getEdgeCount() { return edgeMethod.length; }
+
+    /** Nombre total de sites d'appel (multiplicités comprises) */
+    public int getCallCount() {
+        return callEnds.length == 0 ? 0 : callEnds[callEnds.length - 1];
+    }
+
+    public String className(int c) { return types.name(classNames[c]); }
+    public int classNameId(int c) { return classNames[c]; }
+
+    /** Indice de la classe portant ce nom, ou -1 */
+    public int findClass(String name) {
+        int id = types.find(name);
+        return id < 0 ? -1 : classByName[id];
+    }
+
+    /** Indice de la classe dont l'identifiant de type est id, ou -1 */
+    public int classOfName(int id) { return classByName[id]; }
+
+    public int methodStart(int c) { return methodOffsets[c]; }
+    public int methodEnd(int c) { return methodOffsets[c + 1]; }
+    public String methodName(int m) { return methods.name(methodNames[m]); }
+    public int methodNameId(int m) { return methodNames[m]; }
+
+    public int edgeStart(int m) { return edgeOffsets[m]; }
+    public int edgeEnd(int m) { return edgeOffsets[m + 1]; }
+    public int edgeTargetMethod(int e) { return edgeMethod[e]; }
+    public int edgeTargetClass(int e) { return edgeClass[e]; }
+    public int edgeMultiplicity(int e) { return edgeCount[e]; }
+
+    // ---------- Vue compatible (lecture seule) ----------
+
+    /**
+     * Vue en lecture seule sous la forme historique Map<classe, Map<méthode, List<MethodCall>>>.
+     * Les listes d'appels sont dépliées à la volée dans l'ordre d'origine des appels
+     * (une arête de multiplicité k donne k éléments, à leurs positions respectives).
+     */
+    public Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> asMap() {
+        if (mapView == null) mapView = new GraphView();
+        return mapView;
+    }
+
+    private class GraphView extends AbstractMap<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> {
+
+        CallGraph graph() {
+            return CallGraph.this;
+        }
+
+        @Override
+        public int size() {
+            return classNames.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && findClass((String) key) >= 0;
+        }
+
+        @Override
+        public Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> get(Object key) {
+            if (!(key instanceof String)) return null;
+            int c = findClass((String) key);
+            return c < 0 ? null : new MethodsView(c);
+        }
+
+        @Override
+        public Set<Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>>> entrySet() {
+            return new AbstractSet<Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>>>() {
+                @Override
+                public int size() {
+                    return classNames.length;
+                }
+
+                @Override
+                public Iterator<Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>>> iterator() {
+                    return new Iterator<Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>>>() {
+                        private int c = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return c < classNames.length;
+                        }
+
+                        @Override
+                        public Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int current = c++;
+                            return new SimpleImmutableEntry<>(className(current), new MethodsView(current));
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private class MethodsView extends AbstractMap<String, List<SpoonClassMethodCallVisitor.MethodCall>> {
+        private final int start;
+        private final int end;
+
+        MethodsView(int c) {
+            this.start = methodOffsets[c];
+            this.end = methodOffsets[c + 1];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+
+        private int find(Object key) {
+            if (!(key instanceof String)) return -1;
+            int id = methods.find((String) key);
+            if (id < 0) return -1;
+            for (int m = start; m < end; m++) if (methodNames[m] == id) return m;
+            return -1;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return find(key) >= 0;
+        }
+
+        @Override
+        public List<SpoonClassMethodCallVisitor.MethodCall> get(Object key) {
+            int m = find(key);
+            return m < 0 ? null : new CallsView(m);
+        }
+
+        @Override
+        public Set<Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>>> entrySet() {
+            return new AbstractSet<Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>>>() {
+                @Override
+                public int size() {
+                    return end - start;
+                }
+
+                @Override
+                public Iterator<Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>>> iterator() {
+                    return new Iterator<Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>>>() {
+                        private int m = start;
+
+                        @Override
+                        public boolean hasNext() {
+                            return m < end;
+                        }
+
+                        @Override
+                        public Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int current = m++;
+                            return new SimpleImmutableEntry<>(methodName(current), new CallsView(current));
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private class CallsView extends AbstractList<SpoonClassMethodCallVisitor.MethodCall> implements RandomAccess {
+        private final int start;
+        private final int end;
+        private final int base;
+
+        CallsView(int m) {
+            this.start = edgeOffsets[m];
+            this.end = edgeOffsets[m + 1];
+            this.base = start == 0 ? 0 : callEnds[start - 1];
+        }
+
+        @Override
+        public int size() {
+            return start == end ? 0 : callEnds[end - 1] - base;
+        }
+
+        @Override
+        public SpoonClassMethodCallVisitor.MethodCall get(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index);
+            int e = callEdge[base + index];
+            return new SpoonClassMethodCallVisitor.MethodCall(methods.name(edgeMethod[e]), types.name(edgeClass[e]));
+        }
+    }
+
+    // ---------- Construction ----------
+
+    /**
+     * Construction séquentielle : addClass, puis addMethod et addCall pour chacune de ses méthodes.
+     * Comme un Map.put, une classe (ou une méthode dans sa classe) déclarée deux fois garde
+     * sa première position et le contenu de la dernière déclaration.
+     */
+    public static class Builder {
+        private final NameTable types = new NameTable();
+        private final NameTable methods = new NameTable();
+
+        // blocs de classes, dans l'ordre d'ajout
+        private int[] blockName = new int[16];
+        private int[] blockMethodStart = new int[16];
+        private int blockCount;
+
+        // méthodes ajoutées
+        private int[] mName = new int[64];
+        private int[] mEdgeStart = new int[64];
+        private int[] mCallStart = new int[64];
+        private int mCount;
+
+        // arêtes agrégées, contiguës par méthode
+        private int[] eMethod = new int[256];
+        private int[] eClass = new int[256];
+        private int[] eCount = new int[256];
+        private int eSize;
+
+        // arête (indice ci-dessus) de chaque appel ajouté, dans l'ordre
+        private final IntList calls = new IntList(256);
+
+        // (méthode appelée, type) -> arête de la méthode courante
+        private final Map<Long, Integer> currentEdges = new HashMap<>();
+
+        public Builder addClass(String className) {
+            if (blockCount == blockName.length) {
+                blockName = Arrays.copyOf(blockName, blockCount * 2);
+                blockMethodStart = Arrays.copyOf(blockMethodStart, blockCount * 2);
+            }
+            blockName[blockCount] = types.intern(className);
+            blockMethodStart[blockCount] = mCount;
+            blockCount++;
+            currentEdges.clear();
+            return this;
+        }
+
+        public Builder addMethod(String methodName) {
+            if (blockCount == 0) throw new IllegalStateException("addMethod avant addClass");
+            if (mCount == mName.length) {
+                mName = Arrays.copyOf(mName, mCount * 2);
+                mEdgeStart = Arrays.copyOf(mEdgeStart, mCount * 2);
+                mCallStart = Arrays.copyOf(mCallStart, mCount * 2);
+            }
+            mName[mCount] = methods.intern(methodName);
+            mEdgeStart[mCount] = eSize;
+            mCallStart[mCount] = calls.size();
+            mCount++;
+            currentEdges.clear();
+            return this;
+        }
+
+        public Builder addCall(String methodName, String declaringClass) {
+            if (mCount == 0 || mCount == blockMethodStart[blockCount - 1]) {
+                throw new IllegalStateException("addCall avant addMethod");
+            }
+            int method = methods.intern(methodName);
+            int type = types.intern(declaringClass);
+            long key = ((long) method << 32) | (type & 0xFFFFFFFFL);
+
+            Integer existing = currentEdges.get(key);
+            if (existing != null) {
+                eCount[existing]++;
+                calls.add(existing);
+                return this;
+            }
+            if (eSize == eMethod.length) {
+                eMethod = Arrays.copyOf(eMethod, eSize * 2);
+                eClass = Arrays.copyOf(eClass, eSize * 2);
+                eCount = Arrays.copyOf(eCount, eSize * 2);
+            }
+            eMethod[eSize] = method;
+            eClass[eSize] = type;
+            eCount[eSize] = 1;
+            currentEdges.put(key, eSize);
+            calls.add(eSize);
+            eSize++;
+            return this;
+        }
+
+        public CallGraph build() {
+            // dernier bloc de chaque nom de classe, classes dans l'ordre de première apparition
+            Map<Integer, Integer> lastBlock = new LinkedHashMap<>();
+            for (int b = 0; b < blockCount; b++) lastBlock.put(blockName[b], b);
+
+            int classCount = lastBlock.size();
+            int[] classNames = new int[classCount];
+            int[] methodOffsets = new int[classCount + 1];
+            IntList methodNames = new IntList(mCount);
+            IntList edgeOffsets = new IntList(mCount + 1);
+            IntList edgeMethod = new IntList(eSize);
+            IntList edgeClass = new IntList(eSize);
+            IntList edgeMult = new IntList(eSize);
+            IntList callEdge = new IntList(calls.size());
+            // arête du builder -> arête du graphe
+            int[] edgeIndex = new int[eSize];
+
+            int c = 0;
+            for (Map.Entry<Integer, Integer> entry : lastBlock.entrySet()) {
+                int b = entry.getValue();
+                int from = blockMethodStart[b];
+                int to = b + 1 < blockCount ? blockMethodStart[b + 1] : mCount;
+
+                classNames[c] = entry.getKey();
+                methodOffsets[c] = methodNames.size();
+
+                // même règle pour les méthodes homonymes d'une classe
+                Map<Integer, Integer> lastMethod = new LinkedHashMap<>();
+                for (int m = from; m < to; m++) lastMethod.put(mName[m], m);
+
+                for (int m : lastMethod.values()) {
+                    int eFrom = mEdgeStart[m];
+                    int eTo = m + 1 < mCount ? mEdgeStart[m + 1] : eSize;
+                    methodNames.add(mName[m]);
+                    edgeOffsets.add(edgeMethod.size());
+                    for (int e = eFrom; e < eTo; e++) {
+                        edgeIndex[e] = edgeMethod.size();
+                        edgeMethod.add(eMethod[e]);
+                        edgeClass.add(eClass[e]);
+                        edgeMult.add(eCount[e]);
+                    }
+                    int cTo = m + 1 < mCount ? mCallStart[m + 1] : calls.size();
+                    for (int k = mCallStart[m]; k < cTo; k++) callEdge.add(edgeIndex[calls.get(k)]);
+                }
+                c++;
+            }
+            methodOffsets[classCount] = methodNames.size();
+            edgeOffsets.add(edgeMethod.size());
+
+            return new CallGraph(types, methods, classNames, methodOffsets, methodNames.toArray(),
+                    edgeOffsets.toArray(), edgeMethod.toArray(), edgeClass.toArray(), edgeMult.toArray(),
+                    callEdge.toArray());
+        }
+    }
+
+    /** Liste d'entiers sans boxing */
+    private static final class IntList {
+        private int[] data;
+        private int size;
+
+        IntList(int capacity) {
+            data = new int[Math.max(capacity, 4)];
+        }
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int get(int i) {
+            return data[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
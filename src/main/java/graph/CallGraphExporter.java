@@ -0,0 +1,396 @@
+package graph;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export en flux du graphe d'appels : DOT (Graphviz), GraphML, JSON Lines.
+ *
+ * Le texte n'est jamais construit en mémoire : nœuds puis arêtes sont écrits au fil du parcours
+ * du CallGraph (CSR) dans un Writer tamponné, éventuellement compressé (gzip), sur un FileChannel
+ * pour l'export vers un fichier. Un nœud par nom distinct et par genre : "c" + identifiant de type
+ * pour une classe, "m" + identifiant de méthode sinon (tables de noms du CallGraph). Une méthode
+ * homonyme dans plusieurs classes n'est donc écrite qu'une fois, une classe et une méthode
+ * homonymes restent deux nœuds.
+ *
+ * Nœuds : classe, méthode (déclarée dans le projet) ou méthode externe (seulement appelée).
+ * Arêtes : classe -> méthode ("contains"), méthode -> méthode appelée ("calls", avec le type
+ * déclarant et le nombre d'appels regroupés).
+ */
+public class CallGraphExporter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte NONE = 0;
+    private static final byte METHOD = 1;
+    private static final byte EXTERNAL = 2;
+    private static final String[] KIND_NAMES = {null, "method", "external"};
+
+    public enum Format {
+        DOT(".dot", "text/vnd.graphviz"),
+        GRAPHML(".graphml", "application/graphml+xml"),
+        JSONL(".jsonl", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() { return extension; }
+        public String getContentType() { return contentType; }
+
+        /**
+         * Format d'après un nom (dot, graphml, jsonl, sans casse), ou null.
+         */
+        public static Format parse(String name) {
+            if (name == null) return null;
+            String n = name.toLowerCase(Locale.ROOT);
+            if (n.equals("ndjson")) return JSONL;
+            for (Format f : values()) {
+                if (f.name().toLowerCase(Locale.ROOT).equals(n)) return f;
+            }
+            return null;
+        }
+
+        /**
+         * Format d'après l'extension d'un fichier (".gz" final ignoré), ou null.
+         */
+        public static Format ofFileName(String fileName) {
+            String n = fileName.toLowerCase(Locale.ROOT);
+            if (n.endsWith(".gz")) n = n.substring(0, n.length() - 3);
+            for (Format f : values()) {
+                if (n.endsWith(f.extension)) return f;
+            }
+            return n.endsWith(".ndjson") ? JSONL : null;
+        }
+    }
+
+    /**
+     * Export vers un fichier : format d'après l'extension (.dot, .graphml, .jsonl), gzip si elle finit par .gz.
+     */
+    public static void export(CallGraph graph, File file) throws IOException {
+        Format format = Format.ofFileName(file.getName());
+        if (format == null) throw new IOException("Format d'export inconnu : " + file.getName());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            export(graph, format, Channels.newOutputStream(channel), file.getName().toLowerCase(Locale.ROOT).endsWith(".gz"));
+        }
+    }
+
+    /**
+     * Export vers un flux d'octets (UTF-8), compressé si gzip ; le flux est vidé mais pas fermé.
+     */
+    public static void export(CallGraph graph, Format format, OutputStream out, boolean gzip) throws IOException {
+        OutputStream target = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush(); // le flux de l'appelant reste ouvert
+            }
+        };
+        OutputStream stream = gzip ? new GZIPOutputStream(target, BUFFER_SIZE) : new BufferedOutputStream(target, BUFFER_SIZE);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            export(graph, format, writer);
+        }
+    }
+
+    /**
+     * Export vers un Writer ; le Writer n'est ni vidé ni fermé.
+     */
+    public static void export(CallGraph graph, Format format, Writer out) throws IOException {
+        byte[] kinds = methodKinds(graph);
+        switch (format) {
+            case DOT:
+                writeDot(graph, kinds, out);
+                break;
+            case GRAPHML:
+                writeGraphMl(graph, kinds, out);
+                break;
+            case JSONL:
+                writeJsonLines(graph, kinds, out);
+                break;
+        }
+    }
+
+    // genre de chaque nom de méthode : déclarée dans le projet ou seulement appelée
+    private static byte[] methodKinds(CallGraph graph) {
+        byte[] kinds = new byte[graph.getMethodNames().size()];
+        for (int c = 0; c < graph.getClassCount(); c++) {
+            for (int m = graph.methodStart(c); m < graph.methodEnd(c); m++) {
+                for (int e = graph.edgeStart(m); e < graph.edgeEnd(m); e++) {
+                    int target = graph.edgeTargetMethod(e);
+                    if (kinds[target] == NONE) kinds[target] = EXTERNAL;
+                }
+            }
+        }
+        for (int c = 0; c < graph.getClassCount(); c++) {
+            for (int m = graph.methodStart(c); m < graph.methodEnd(c); m++) {
+                kinds[graph.methodNameId(m)] = METHOD;
+            }
+        }
+        return kinds;
+    }
+
+    private static String classNode(CallGraph graph, int c) {
+        return "c" + graph.classNameId(c);
+    }
+
+    private static String methodNode(int methodId) {
+        return "m" + methodId;
+    }
+
+    // ---------- DOT ----------
+
+    private static void writeDot(CallGraph graph, byte[] kinds, Writer out) throws IOException {
+        NameTable methods = graph.getMethodNames();
+        out.write("digraph G {\n");
+        out.write("  rankdir=LR;\n");
+        out.write("  node [shape=box, style=filled, fillcolor=mediumpurple];\n");
+
+        for (int c = 0; c < graph.getClassCount(); c++) {
+            out.write("  ");
+            out.write(classNode(graph, c));
+            out.write(" [label=");
+            writeDotString(out, graph.className(c));
+            out.write(", shape=ellipse, fillcolor=orange];\n");
+        }
+        for (int id = 0; id < kinds.length; id++) {
+            if (kinds[id] == NONE) continue;
+            out.write("  ");
+            out.write(methodNode(id));
+            out.write(" [label=");
+            writeDotString(out, methods.name(id));
+            if (kinds[id] == METHOD) out.write(", fillcolor=pink");
+            out.write("];\n");
+        }
+
+        for (int c = 0; c < graph.getClassCount(); c++) {
+            String cls = "  " + classNode(graph, c) + " -> ";
+            for (int m = graph.methodStart(c); m < graph.methodEnd(c); m++) {
+                String method = methodNode(graph.methodNameId(m));
+                out.write(cls);
+                out.write(method);
+                out.write(";\n");
+                for (int e = graph.edgeStart(m); e < graph.edgeEnd(m); e++) {
+                    out.write("  ");
+                    out.write(method);
+                    out.write(" -> ");
+                    out.write(methodNode(graph.edgeTargetMethod(e)));
+                    int count = graph.edgeMultiplicity(e);
+                    if (count > 1) {
+                        out.write(" [weight=");
+                        out.write(Integer.toString(count));
+                        out.write("]");
+                    }
+                    out.write(";\n");
+                }
+            }
+        }
+
+        out.write("  subgraph cluster_legend {\n");
+        out.write("    label=\"Légende\";\n");
+        out.write("    fontsize=14;\n");
+        out.write("    color=black;\n");
+        out.write("    style=dashed;\n");
+        out.write("    legend_class [label=\"Classe\", shape=box, style=filled, fillcolor=orange];\n");
+        out.write("    legend_method [label=\"Méthode interne\", shape=box, style=filled, fillcolor=pink];\n");
+        out.write("    legend_external [label=\"Méthode externe\", shape=box, style=filled, fillcolor=mediumpurple];\n");
+        out.write("    legend_class -> legend_method [label=\"Contient\"];\n");
+        out.write("    legend_method -> legend_external [label=\"Appelle\"];\n");
+        out.write("  }\n");
+        out.write("}\n");
+    }
+
+    private static void writeDotString(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"' || ch == '\\') out.write('\\');
+            if (ch == '\n') {
+                out.write("\\n");
+                continue;
+            }
+            out.write(ch);
+        }
+        out.write('"');
+    }
+
+    // ---------- GraphML ----------
+
+    private static void writeGraphMl(CallGraph graph, byte[] kinds, Writer out) throws IOException {
+        NameTable types = graph.getTypeNames();
+        NameTable methods = graph.getMethodNames();
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement("graphml");
+            xml.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+            xml.writeCharacters("\n");
+            key(xml, "label", "node", "label", "string");
+            key(xml, "kind", "node", "kind", "string");
+            key(xml, "relation", "edge", "relation", "string");
+            key(xml, "type", "edge", "type", "string");
+            key(xml, "count", "edge", "count", "int");
+            xml.writeStartElement("graph");
+            xml.writeAttribute("id", "G");
+            xml.writeAttribute("edgedefault", "directed");
+            xml.writeCharacters("\n");
+
+            for (int c = 0; c < graph.getClassCount(); c++) {
+                xml.writeStartElement("node");
+                xml.writeAttribute("id", classNode(graph, c));
+                data(xml, "label", graph.className(c));
+                data(xml, "kind", "class");
+                xml.writeEndElement();
+                xml.writeCharacters("\n");
+            }
+            for (int id = 0; id < kinds.length; id++) {
+                if (kinds[id] == NONE) continue;
+                xml.writeStartElement("node");
+                xml.writeAttribute("id", methodNode(id));
+                data(xml, "label", methods.name(id));
+                data(xml, "kind", KIND_NAMES[kinds[id]]);
+                xml.writeEndElement();
+                xml.writeCharacters("\n");
+            }
+
+            for (int c = 0; c < graph.getClassCount(); c++) {
+                String cls = classNode(graph, c);
+                for (int m = graph.methodStart(c); m < graph.methodEnd(c); m++) {
+                    String method = methodNode(graph.methodNameId(m));
+                    edge(xml, cls, method);
+                    data(xml, "relation", "contains");
+                    xml.writeEndElement();
+                    xml.writeCharacters("\n");
+                    for (int e = graph.edgeStart(m); e < graph.edgeEnd(m); e++) {
+                        edge(xml, method, methodNode(graph.edgeTargetMethod(e)));
+                        data(xml, "relation", "calls");
+                        data(xml, "type", types.name(graph.edgeTargetClass(e)));
+                        data(xml, "count", Integer.toString(graph.edgeMultiplicity(e)));
+                        xml.writeEndElement();
+                        xml.writeCharacters("\n");
+                    }
+                }
+            }
+
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("Erreur d'écriture GraphML : " + e.getMessage(), e);
+        }
+    }
+
+    private static void key(XMLStreamWriter xml, String id, String target, String name, String type) throws XMLStreamException {
+        xml.writeEmptyElement("key");
+        xml.writeAttribute("id", id);
+        xml.writeAttribute("for", target);
+        xml.writeAttribute("attr.name", name);
+        xml.writeAttribute("attr.type", type);
+        xml.writeCharacters("\n");
+    }
+
+    private static void edge(XMLStreamWriter xml, String source, String target) throws XMLStreamException {
+        xml.writeStartElement("edge");
+        xml.writeAttribute("source", source);
+        xml.writeAttribute("target", target);
+    }
+
+    private static void data(XMLStreamWriter xml, String key, String value) throws XMLStreamException {
+        xml.writeStartElement("data");
+        xml.writeAttribute("key", key);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+
+    // ---------- JSON Lines ----------
+
+    /*
+     * Un objet par ligne, nœuds d'abord :
+     * {"type":"node","id":"m3","label":"compute","kind":"method"}
+     * {"type":"edge","source":"m3","target":"m7","relation":"calls","declaringType":"Parser","count":2}
+     */
+    private static void writeJsonLines(CallGraph graph, byte[] kinds, Writer out) throws IOException {
+        NameTable types = graph.getTypeNames();
+        NameTable methods = graph.getMethodNames();
+        for (int c = 0; c < graph.getClassCount(); c++) {
+            writeJsonNode(out, classNode(graph, c), graph.className(c), "class");
+        }
+        for (int id = 0; id < kinds.length; id++) {
+            if (kinds[id] != NONE) writeJsonNode(out, methodNode(id), methods.name(id), KIND_NAMES[kinds[id]]);
+        }
+
+        for (int c = 0; c < graph.getClassCount(); c++) {
+            String cls = "\"" + classNode(graph, c) + "\"";
+            for (int m = graph.methodStart(c); m < graph.methodEnd(c); m++) {
+                String method = "\"" + methodNode(graph.methodNameId(m)) + "\"";
+                out.write("{\"type\":\"edge\",\"source\":");
+                out.write(cls);
+                out.write(",\"target\":");
+                out.write(method);
+                out.write(",\"relation\":\"contains\"}\n");
+                for (int e = graph.edgeStart(m); e < graph.edgeEnd(m); e++) {
+                    out.write("{\"type\":\"edge\",\"source\":");
+                    out.write(method);
+                    out.write(",\"target\":\"");
+                    out.write(methodNode(graph.edgeTargetMethod(e)));
+                    out.write("\",\"relation\":\"calls\",\"declaringType\":");
+                    writeJsonString(out, types.name(graph.edgeTargetClass(e)));
+                    out.write(",\"count\":");
+                    out.write(Integer.toString(graph.edgeMultiplicity(e)));
+                    out.write("}\n");
+                }
+            }
+        }
+    }
+
+    private static void writeJsonNode(Writer out, String id, String label, String kind) throws IOException {
+        out.write("{\"type\":\"node\",\"id\":\"");
+        out.write(id);
+        out.write("\",\"label\":");
+        writeJsonString(out, label);
+        out.write(",\"kind\":\"");
+        out.write(kind);
+        out.write("\"}\n");
+    }
+
+    private static void writeJsonString(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        out.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.write(ch);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,43 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table d'internement des noms (classes, méthodes) : chaque nom distinct reçoit un identifiant entier.
+ */
+public class NameTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[64];
+    private int size;
+
+    /**
+     * Identifiant du nom, créé au premier appel.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        if (size == names.length) names = Arrays.copyOf(names, size * 2);
+        names[size] = name;
+        ids.put(name, size);
+        return size++;
+    }
+
+    /**
+     * Identifiant du nom, ou -1 s'il n'a jamais été interné.
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
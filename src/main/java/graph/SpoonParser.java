@@ -1,14 +1,13 @@
 package graph;
 
-import spoon.Launcher;
-import spoon.reflect.CtModel;
-import spoon.reflect.code.CtInvocation;
-import spoon.reflect.declaration.CtClass;
-import spoon.reflect.declaration.CtElement;
-import spoon.reflect.declaration.CtMethod;
-import spoon.reflect.reference.CtExecutableReference;
+import analyse.AnalysisSession;
+import analyse.FileFacts;
+import analyse.ParallelFileAnalyzer;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
@@ -28,53 +27,57 @@ public class SpoonParser {
 
     /**
      * Analyse tout le projet avec Spoon et retourne la structure d'appel.
+     * Analyse incrémentale : les fichiers modifiés et ceux qui dépendent de leurs types sont reparsés,
+     * les faits des autres sont relus depuis le cache disque.
      */
     public static Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> parseProject() {
-        Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> projectGraph = new LinkedHashMap<>();
-
         try {
-            Launcher launcher = new Launcher();
-            launcher.addInputResource(projectSourcePath);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.buildModel();
-
-            CtModel model = launcher.getModel();
-
-            for (CtElement e : model.getElements(el -> el instanceof CtClass<?>)) {
-                CtClass<?> ctClass = (CtClass<?>) e;
-                String className = ctClass.getSimpleName();
-                Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methodsMap = new LinkedHashMap<>();
-
-                for (CtMethod<?> method : ctClass.getMethods()) {
-                    String methodName = method.getSimpleName();
-                    List<SpoonClassMethodCallVisitor.MethodCall> calls = new ArrayList<>();
-
-                    // Recherche des invocations
-                    method.getElements(el -> el instanceof CtInvocation<?>)
-                            .forEach(invocation -> {
-                                CtInvocation<?> inv = (CtInvocation<?>) invocation;
-                                CtExecutableReference<?> execRef = inv.getExecutable();
+            return buildGraph(new ParallelFileAnalyzer().analyzeProject(new File(projectSourcePath)).getFileFacts());
+        } catch (Exception e) {
+            System.err.println("Erreur Spoon : " + e.getMessage());
+            e.printStackTrace();
+            return CallGraph.builder().build().asMap();
+        }
+    }
 
-                                String callName = execRef.getSimpleName();
-                                String declaringType = (execRef.getDeclaringType() != null)
-                                        ? execRef.getDeclaringType().getSimpleName()
-                                        : "Inconnu";
+    /**
+     * Construit le graphe d'appels à partir du modèle d'une session d'analyse.
+     * Le modèle est libéré dès les faits extraits, avant la construction du graphe.
+     */
+    public static Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> parseProject(AnalysisSession session) {
+        return buildGraph(session.extractFactsAndRelease());
+    }
 
-                                calls.add(new SpoonClassMethodCallVisitor.MethodCall(callName, declaringType));
-                            });
+    /**
+     * Construit le graphe d'appels (une entrée par classe, classes imbriquées comprises)
+     * à partir des faits extraits par fichier.
+     */
+    public static Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> buildGraph(List<FileFacts> facts) {
+        return buildCallGraph(facts).asMap();
+    }
 
-                    methodsMap.put(methodName, calls);
+    /**
+     * Graphe d'appels compact (noms internés, arêtes CSR) construit à partir des faits extraits.
+     */
+    public static CallGraph buildCallGraph(List<FileFacts> facts) {
+        CallGraph.Builder builder = CallGraph.builder();
+
+        for (FileFacts file : facts) {
+            for (FileFacts.TypeFacts type : file.getTypes()) {
+                if (!type.isClass()) continue;
+                builder.addClass(type.getSimpleName());
+
+                for (FileFacts.MethodFacts method : type.getMethods()) {
+                    builder.addMethod(method.getName());
+                    for (FileFacts.CallFacts call : method.getCalls()) {
+                        String declaringType = call.getDeclaringType() != null ? call.getDeclaringType() : "Inconnu";
+                        builder.addCall(call.getName(), declaringType);
+                    }
                 }
-
-                projectGraph.put(className, methodsMap);
             }
-
-        } catch (Exception e) {
-            System.err.println("Erreur Spoon : " + e.getMessage());
-            e.printStackTrace();
         }
 
-        return projectGraph;
+        return builder.build();
     }
 
     /**
@@ -111,52 +114,16 @@ public class SpoonParser {
 
     /**
      * 🔹 Exporte le graphe sous forme de fichier DOT (Graphviz)
+     * Texte complet en mémoire : pour les grands graphes, écrire directement avec CallGraphExporter.
      */
     public static String exportGraphToDot(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("digraph G {\n");
-        sb.append("  rankdir=LR;\n");
-        sb.append("  node [shape=box, style=filled, fillcolor=mediumpurple];\n");
-
-        // Création des noeuds
-        for (String className : graph.keySet()) {
-            sb.append("  \"").append(className).append("\" [shape=ellipse, fillcolor=orange];\n");
-            Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = graph.get(className);
-            for (String methodName : methods.keySet()) {
-                sb.append("  \"").append(methodName).append("\" [shape=box, fillcolor=pink];\n");
-            }
-        }
-
-        // Création des arêtes
-        for (String className : graph.keySet()) {
-            Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = graph.get(className);
-            for (String methodName : methods.keySet()) {
-                sb.append("  \"").append(className).append("\" -> \"").append(methodName).append("\";\n");
-
-                List<SpoonClassMethodCallVisitor.MethodCall> calls = methods.get(methodName);
-                for (SpoonClassMethodCallVisitor.MethodCall call : calls) {
-                    sb.append("  \"").append(methodName).append("\" -> \"").append(call.name).append("\";\n");
-                }
-            }
+        StringWriter out = new StringWriter();
+        try {
+            CallGraphExporter.export(CallGraph.of(graph), CallGraphExporter.Format.DOT, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // impossible avec un StringWriter
         }
-
-     // --- Légende ---
-        sb.append("  subgraph cluster_legend {\n");
-        sb.append("    label=\"Légende\";\n");
-        sb.append("    fontsize=14;\n");
-        sb.append("    color=black;\n");
-        sb.append("    style=dashed;\n");
-        sb.append("    legend_class [label=\"Classe\", shape=box, style=filled, fillcolor=orange];\n");
-        sb.append("    legend_method [label=\"Méthode interne\", shape=box, style=filled, fillcolor=pink];\n");
-        sb.append("    legend_external [label=\"Méthode externe\", shape=box, style=filled, fillcolor=mediumpurple];\n");
-        sb.append("    legend_class -> legend_method [label=\"Contient\"];\n");
-        sb.append("    legend_method -> legend_external [label=\"Appelle\"];\n");
-        sb.append("  }\n");
-        
-        sb.append("}\n");
-        
-        
-        return sb.toString();
+        return out.toString();
     }
 
     public static void main(String[] args) {
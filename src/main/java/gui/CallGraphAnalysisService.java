@@ -0,0 +1,109 @@
+package gui;
+
+import analyse.AnalysisListener;
+import analyse.AnalysisSession;
+import analyse.FactsCache;
+import analyse.FileFacts;
+import analyse.ParallelFileAnalyzer;
+import graph.SpoonClassMethodCallVisitor;
+import graph.SpoonParser;
+import javafx.application.Platform;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Analyse d'un projet pour SpoonCallGraphGUI, en tâche de fond annulable et relançable
+ * (Service JavaFX : restart() annule l'analyse en cours avant d'en démarrer une nouvelle).
+ *
+ * Progression et message suivent les fichiers réellement terminés (AnalysisListener de
+ * ParallelFileAnalyzer). Les faits arrivent par fichier sur les threads de travail ; ils sont
+ * regroupés et remis au thread JavaFX par lots, un seul Platform.runLater en attente à la fois.
+ * La valeur finale est le graphe d'appels complet, dans l'ordre des fichiers.
+ */
+final class CallGraphAnalysisService extends Service<Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>>> {
+
+    private File sourceRoot;
+    private Consumer<List<FileFacts>> onFacts = facts -> { };
+
+    void setSourceRoot(File sourceRoot) {
+        this.sourceRoot = sourceRoot;
+    }
+
+    /**
+     * Reçoit, sur le thread JavaFX, les faits des fichiers terminés depuis le lot précédent.
+     */
+    void setOnFacts(Consumer<List<FileFacts>> onFacts) {
+        this.onFacts = onFacts;
+    }
+
+    @Override
+    protected Task<Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>>> createTask() {
+        File root = sourceRoot;
+        Consumer<List<FileFacts>> consumer = onFacts;
+        return new Task<>() {
+            private final ConcurrentLinkedQueue<FileFacts> pending = new ConcurrentLinkedQueue<>();
+            private final AtomicBoolean flushScheduled = new AtomicBoolean();
+            private final AtomicInteger done = new AtomicInteger();
+            private volatile int modelSteps, modelTotalSteps;
+
+            @Override
+            protected Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> call() {
+                updateMessage("Recherche des fichiers Java...");
+                List<File> files = AnalysisSession.listJavaFiles(root);
+                int total = files.size();
+                updateProgress(0, total);
+
+                Task<?> task = this;
+                AnalysisListener listener = new AnalysisListener() {
+                    // barre de progression : étapes du modèle Spoon puis fichiers terminés
+                    @Override
+                    public void modelProgress(int steps, int totalSteps) {
+                        modelSteps = steps;
+                        modelTotalSteps = totalSteps;
+                        updateProgress(steps, totalSteps + total);
+                        updateMessage("Construction du modèle (Spoon) : " + (100 * steps / totalSteps) + " %");
+                    }
+
+                    @Override
+                    public void fileAnalyzed(int index, File file, FileFacts facts, boolean fromCache) {
+                        pending.add(facts);
+                        int n = done.incrementAndGet();
+                        updateProgress(modelSteps + n, modelTotalSteps + total);
+                        updateMessage("Analyse en cours (Spoon) : " + n + " / " + total + " fichiers");
+                        if (flushScheduled.compareAndSet(false, true)) Platform.runLater(() -> flush());
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return task.isCancelled();
+                    }
+                };
+                List<FileFacts> facts = new ParallelFileAnalyzer()
+                        .withCache(FactsCache.open(root))
+                        .withListener(listener)
+                        .analyze(files)
+                        .getFileFacts();
+                updateMessage("Construction du graphe d'appels...");
+                return SpoonParser.buildGraph(facts);
+            }
+
+            // thread JavaFX ; rien n'est remis une fois l'analyse annulée (nouveau projet, annulation)
+            private void flush() {
+                flushScheduled.set(false);
+                if (isCancelled()) return;
+                List<FileFacts> batch = new ArrayList<>();
+                for (FileFacts f; (f = pending.poll()) != null; ) batch.add(f);
+                if (!batch.isEmpty()) consumer.accept(batch);
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package gui;
+
+import graph.SpoonClassMethodCallVisitor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disposition du graphe d'appels en tableaux, un indice par nœud : position, rayon, type, nom,
+ * classe de rattachement (pour l'agrégation des méthodes), et arêtes (origine, cible, genre).
+ * Partagée par la vue à nœuds JavaFX et par GraphCanvas.
+ */
+final class CallGraphLayout {
+
+    static final byte CLASS = 0;
+    static final byte METHOD = 1;
+    static final byte EXTERNAL = 2;
+
+    /** Arête classe -> méthode */
+    static final byte STRUCTURE = 0;
+    /** Arête méthode -> méthode appelée */
+    static final byte CALL = 1;
+
+    static final double CLASS_RADIUS = 36;
+    static final double METHOD_RADIUS = 28;
+    static final double NODE_SPACING_X = 220;
+    static final double NODE_SPACING_Y = 90;
+    /** Coin haut-gauche de la disposition */
+    static final double START_X = 140;
+    static final double START_Y = 180;
+
+    String[] names = new String[64];
+    double[] x = new double[64];
+    double[] y = new double[64];
+    double[] radius = new double[64];
+    byte[] type = new byte[64];
+    int[] owner = new int[64];
+    int nodeCount;
+
+    int[] edgeFrom = new int[64];
+    int[] edgeTo = new int[64];
+    byte[] edgeKind = new byte[64];
+    int edgeCount;
+
+    // classes et méthodes séparées : une méthode peut porter le nom d'une classe
+    private final Map<String, Integer> classByName = new HashMap<>();
+    private final Map<String, Integer> methodByName = new HashMap<>();
+
+    /**
+     * Disposition en colonnes (celle de la vue historique) : classes les unes sous les autres,
+     * méthodes à droite de leur classe, méthodes appelées à droite de l'appelante.
+     * Un nom de méthode n'a qu'un nœud : une méthode homonyme d'une autre classe réutilise le premier.
+     * Une méthode appelée est rattachée à sa classe déclarante (MethodCall.declaringClass) ; vue d'abord
+     * comme appelée puis déclarée par une classe du graphe, elle devient une méthode de cette classe.
+     */
+    static CallGraphLayout columns(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph) {
+        CallGraphLayout layout = new CallGraphLayout();
+        double startX = START_X;
+        double startY = START_Y;
+        double classSpacingY = Math.max(120, NODE_SPACING_Y);
+
+        int idx = 0;
+        for (String className : graph.keySet()) {
+            int c = layout.addNode(className, startX, startY + idx * classSpacingY, CLASS_RADIUS, CLASS, -1);
+            layout.owner[c] = c;
+            idx++;
+        }
+
+        for (Map.Entry<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> entry : graph.entrySet()) {
+            int cls = layout.findClass(entry.getKey());
+            Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = entry.getValue();
+            int mIdx = 0;
+            double methodX = layout.x[cls] + NODE_SPACING_X;
+            double methodYStart = layout.y[cls] - (methods.size() - 1) * (NODE_SPACING_Y / 2.0);
+            for (Map.Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>> m : methods.entrySet()) {
+                double methodY = methodYStart + mIdx * NODE_SPACING_Y;
+                int method = layout.findMethod(m.getKey());
+                if (method < 0) {
+                    method = layout.addNode(m.getKey(), methodX, methodY, METHOD_RADIUS, METHOD, cls);
+                } else if (layout.type[method] == EXTERNAL) {
+                    layout.type[method] = METHOD;
+                    layout.owner[method] = cls;
+                    layout.x[method] = methodX;
+                    layout.y[method] = methodY;
+                }
+                layout.addEdge(cls, method, STRUCTURE);
+
+                List<SpoonClassMethodCallVisitor.MethodCall> calls = m.getValue();
+                double callX = layout.x[method] + NODE_SPACING_X;
+                double callYStart = layout.y[method] - (calls.size() - 1) * (NODE_SPACING_Y / 2.0);
+                for (int j = 0; j < calls.size(); j++) {
+                    SpoonClassMethodCallVisitor.MethodCall call = calls.get(j);
+                    int target = layout.findMethod(call.name);
+                    if (target < 0) {
+                        target = layout.addNode(call.name, callX, callYStart + j * NODE_SPACING_Y,
+                                METHOD_RADIUS, EXTERNAL, layout.findClass(call.declaringClass));
+                    }
+                    layout.addEdge(method, target, CALL);
+                }
+                mIdx++;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Remplace les positions (image publiée par ForceLayout).
+     */
+    void moveTo(double[] nx, double[] ny) {
+        System.arraycopy(nx, 0, x, 0, nodeCount);
+        System.arraycopy(ny, 0, y, 0, nodeCount);
+    }
+
+    /** Nœud de la classe, ou -1 */
+    int findClass(String name) {
+        Integer i = classByName.get(name);
+        return i == null ? -1 : i;
+    }
+
+    /** Nœud de la méthode (déclarée ou appelée), ou -1 */
+    int findMethod(String name) {
+        Integer i = methodByName.get(name);
+        return i == null ? -1 : i;
+    }
+
+    private int addNode(String name, double nx, double ny, double r, byte t, int cls) {
+        if (nodeCount == names.length) {
+            int n = nodeCount * 2;
+            names = Arrays.copyOf(names, n);
+            x = Arrays.copyOf(x, n);
+            y = Arrays.copyOf(y, n);
+            radius = Arrays.copyOf(radius, n);
+            type = Arrays.copyOf(type, n);
+            owner = Arrays.copyOf(owner, n);
+        }
+        names[nodeCount] = name;
+        x[nodeCount] = nx;
+        y[nodeCount] = ny;
+        radius[nodeCount] = r;
+        type[nodeCount] = t;
+        owner[nodeCount] = cls;
+        (t == CLASS ? classByName : methodByName).put(name, nodeCount);
+        return nodeCount++;
+    }
+
+    private void addEdge(int from, int to, byte kind) {
+        if (edgeCount == edgeFrom.length) {
+            int n = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, n);
+            edgeTo = Arrays.copyOf(edgeTo, n);
+            edgeKind = Arrays.copyOf(edgeKind, n);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeKind[edgeCount] = kind;
+        edgeCount++;
+    }
+}
@@ -0,0 +1,175 @@
+package gui;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Disposition par forces du graphe d'appels, calculée hors du thread JavaFX.
+ *
+ * Chaque itération : répulsion entre tous les nœuds approchée par Barnes-Hut (QuadTree reconstruit,
+ * O(n log n)), calculée en parallèle sur les cœurs ; attraction proportionnelle à la longueur des arêtes
+ * (linéaire, comme ForceAtlas2 : le d²/k de Fruchterman-Reingold écrase le cœur des grands graphes) ;
+ * rappel vers le centre pour les composantes isolées ; déplacement borné par une température qui décroît.
+ * Les dernières itérations écartent en plus les nœuds qui se chevauchent encore.
+ * Les positions sont publiées par images (copies) pendant le calcul, puis une dernière fois à la fin.
+ * Travaille sur ses propres tableaux : la CallGraphLayout d'origine n'est pas modifiée.
+ */
+final class ForceLayout {
+
+    /** Longueur d'arête visée (k) */
+    static final double IDEAL_LENGTH = 140;
+    static final double THETA = 1.2;
+    static final int ITERATIONS = 300;
+    /** Itérations finales avec séparation des nœuds qui se chevauchent */
+    private static final int COLLISION_ITERATIONS = 60;
+    /** Écart minimal entre centres, sur chaque axe (les nœuds sont carrés) */
+    private static final double MIN_DISTANCE = 2 * CallGraphLayout.CLASS_RADIUS + 8;
+    private static final double GRAVITY = 2.0;
+    private static final long FRAME_NANOS = 100_000_000L;
+
+    /**
+     * Positions publiées, décalées pour commencer en (START_X, START_Y).
+     */
+    static final class Frame {
+        final double[] x;
+        final double[] y;
+        final int iteration;
+        final int iterations;
+        final long nanos;
+
+        Frame(double[] x, double[] y, int iteration, int iterations, long nanos) {
+            this.x = x;
+            this.y = y;
+            this.iteration = iteration;
+            this.iterations = iterations;
+            this.nanos = nanos;
+        }
+
+        boolean isLast() { return iteration == iterations; }
+    }
+
+    private final int n;
+    private final double[] x;
+    private final double[] y;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int edgeCount;
+
+    ForceLayout(CallGraphLayout layout) {
+        n = layout.nodeCount;
+        x = new double[n];
+        y = new double[n];
+        edgeFrom = Arrays.copyOf(layout.edgeFrom, layout.edgeCount);
+        edgeTo = Arrays.copyOf(layout.edgeTo, layout.edgeCount);
+        edgeCount = layout.edgeCount;
+        initialPositions(layout);
+    }
+
+    // grille en serpentin parcourue classe par classe : les méthodes d'une classe partent côte à côte
+    private void initialPositions(CallGraphLayout layout) {
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            int owner = layout.type[i] == CallGraphLayout.CLASS || layout.owner[i] < 0 ? i : layout.owner[i];
+            order[i] = ((long) owner << 32) | i;
+        }
+        Arrays.sort(order);
+        int width = (int) Math.ceil(Math.sqrt(n));
+        double half = width * IDEAL_LENGTH / 2;
+        for (int k = 0; k < n; k++) {
+            int node = (int) order[k];
+            int row = k / width, col = k % width;
+            if (row % 2 == 1) col = width - 1 - col;
+            x[node] = col * IDEAL_LENGTH - half;
+            y[node] = row * IDEAL_LENGTH - half;
+        }
+    }
+
+    /**
+     * Itère jusqu'à ITERATIONS ou jusqu'à annulation ; onFrame est appelé depuis ce thread,
+     * au plus toutes les FRAME_NANOS, et toujours pour la dernière itération.
+     * Retourne false si le calcul a été annulé.
+     */
+    boolean run(BooleanSupplier cancelled, Consumer<Frame> onFrame) {
+        long start = System.nanoTime();
+        long lastFrame = start;
+        double k2 = IDEAL_LENGTH * IDEAL_LENGTH;
+        double initialTemperature = IDEAL_LENGTH * Math.max(2, Math.sqrt(n) / 10);
+        double[] force = new double[2 * n];
+        double[] shift = new double[2 * n];
+
+        for (int it = 1; it <= ITERATIONS; it++) {
+            if (cancelled.getAsBoolean()) return false;
+
+            QuadTree tree = new QuadTree(x, y, n);
+            IntStream.range(0, n).parallel().forEach(p -> tree.repulsion(p, THETA, k2, force));
+
+            for (int e = 0; e < edgeCount; e++) {
+                int a = edgeFrom[e], b = edgeTo[e];
+                if (a == b) continue;
+                double dx = x[a] - x[b], dy = y[a] - y[b];
+                force[2 * a] -= dx;
+                force[2 * a + 1] -= dy;
+                force[2 * b] += dx;
+                force[2 * b + 1] += dy;
+            }
+
+            // refroidissement linéaire
+            double temperature = initialTemperature * (1 - (double) (it - 1) / ITERATIONS);
+            IntStream.range(0, n).parallel().forEach(p -> {
+                double fx = force[2 * p] - GRAVITY * x[p];
+                double fy = force[2 * p + 1] - GRAVITY * y[p];
+                double len = Math.sqrt(fx * fx + fy * fy);
+                if (len == 0) return;
+                double step = Math.min(len, temperature) / len;
+                x[p] += fx * step;
+                y[p] += fy * step;
+            });
+            if (it > ITERATIONS - COLLISION_ITERATIONS) separate(shift);
+
+            long now = System.nanoTime();
+            if (it == ITERATIONS || now - lastFrame >= FRAME_NANOS) {
+                lastFrame = now;
+                onFrame.accept(frame(it, now - start));
+            }
+        }
+        return true;
+    }
+
+    // chaque nœud s'écarte de la moitié du recouvrement, sur l'axe où il est le plus faible
+    private void separate(double[] shift) {
+        QuadTree tree = new QuadTree(x, y, n);
+        IntStream.range(0, n).parallel().forEach(p -> {
+            double[] s = {0, 0};
+            tree.query(x[p] - MIN_DISTANCE, y[p] - MIN_DISTANCE, x[p] + MIN_DISTANCE, y[p] + MIN_DISTANCE, q -> {
+                if (q == p) return;
+                double dx = x[p] - x[q], dy = y[p] - y[q];
+                double ox = MIN_DISTANCE - Math.abs(dx), oy = MIN_DISTANCE - Math.abs(dy);
+                if (ox <= 0 || oy <= 0) return;
+                if (ox < oy) s[0] += (dx > 0 || (dx == 0 && p > q) ? ox : -ox) / 2;
+                else s[1] += (dy > 0 || (dy == 0 && p > q) ? oy : -oy) / 2;
+            });
+            shift[2 * p] = s[0];
+            shift[2 * p + 1] = s[1];
+        });
+        for (int p = 0; p < n; p++) {
+            x[p] += shift[2 * p];
+            y[p] += shift[2 * p + 1];
+        }
+    }
+
+    private Frame frame(int iteration, long nanos) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+        }
+        double[] fx = new double[n], fy = new double[n];
+        for (int i = 0; i < n; i++) {
+            fx[i] = x[i] - minX + CallGraphLayout.START_X;
+            fy[i] = y[i] - minY + CallGraphLayout.START_Y;
+        }
+        return new Frame(fx, fy, iteration, ITERATIONS, nanos);
+    }
+}
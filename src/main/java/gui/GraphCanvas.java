@@ -0,0 +1,346 @@
+package gui;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Rendu du graphe d'appels sur un Canvas, pour les graphes trop grands pour un nœud JavaFX par élément.
+ *
+ * Seule la zone visible est dessinée : les nœuds sont retrouvés par un QuadTree, les arêtes filtrées
+ * par leur boîte englobante. Niveau de détail selon le zoom :
+ *   zoom >= LABEL_SCALE      nœuds arrondis avec contour, libellés, pointes de flèches
+ *   zoom >= AGGREGATE_SCALE  nœuds et arêtes seuls
+ *   en dessous               méthodes agrégées dans leur classe : classes et arêtes classe -> classe
+ * Les événements (déplacement, zoom, recherche) ne font que marquer la vue à redessiner ;
+ * le dessin a lieu au plus une fois par image (AnimationTimer).
+ */
+final class GraphCanvas extends Pane {
+
+    static final double LABEL_SCALE = 0.45;
+    static final double AGGREGATE_SCALE = 0.12;
+    private static final double ARROW_SIZE = 10;
+    private static final double ZOOM_STEP = 1.2;
+
+    private static final Color[] NODE_COLORS = {Color.ORANGE, Color.PINK, Color.MEDIUMPURPLE};
+    private static final Color[] EDGE_COLORS = {Color.DARKGRAY, Color.LIGHTBLUE};
+
+    private final Canvas canvas = new Canvas();
+    private CallGraphLayout layout;
+    private QuadTree index;
+    // boîtes englobantes des arêtes (monde)
+    private double[] edgeMinX, edgeMinY, edgeMaxX, edgeMaxY;
+    // arêtes entre classes distinctes (vue agrégée), dédoublonnées
+    private int[] classEdgeFrom = new int[0], classEdgeTo = new int[0];
+    // nœuds trouvés par la recherche (indices de la disposition), null si aucune recherche
+    private BitSet matches;
+
+    // écran = monde * scale + offset
+    private double scale = 1.0;
+    private double offsetX, offsetY;
+    private double pressX, pressY;
+    private boolean dragged;
+    private boolean dirty = true;
+
+    private int[] visible = new int[1024];
+    private int visibleCount;
+    private int drawnNodes, drawnEdges;
+    private Consumer<String> onNodeClicked = name -> { };
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (dirty) {
+                dirty = false;
+                draw();
+            }
+        }
+    };
+
+    GraphCanvas() {
+        getChildren().add(canvas);
+        setMinSize(0, 0);
+
+        setOnScroll(e -> {
+            double factor = e.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            zoomAt(e.getX(), e.getY(), factor);
+            e.consume();
+        });
+        setOnMousePressed(e -> {
+            pressX = e.getX();
+            pressY = e.getY();
+            dragged = false;
+        });
+        setOnMouseDragged(e -> {
+            if (e.getButton() != MouseButton.PRIMARY && e.getButton() != MouseButton.MIDDLE) return;
+            offsetX += e.getX() - pressX;
+            offsetY += e.getY() - pressY;
+            pressX = e.getX();
+            pressY = e.getY();
+            dragged = true;
+            setCursor(Cursor.MOVE);
+            invalidate();
+        });
+        setOnMouseReleased(e -> {
+            setCursor(Cursor.DEFAULT);
+            if (!dragged && e.getButton() == MouseButton.PRIMARY) {
+                int node = nodeAt(e.getX(), e.getY());
+                if (node >= 0) onNodeClicked.accept(layout.names[node]);
+            }
+        });
+
+        timer.start();
+    }
+
+    /**
+     * Affiche une nouvelle disposition : construit l'index spatial et les arêtes agrégées.
+     */
+    void setLayout(CallGraphLayout layout) {
+        this.layout = layout;
+        this.matches = null;
+
+        Set<Long> classPairs = new HashSet<>();
+        for (int k = 0; k < layout.edgeCount; k++) {
+            int ca = ownerOf(layout.edgeFrom[k]), cb = ownerOf(layout.edgeTo[k]);
+            if (ca >= 0 && cb >= 0 && ca != cb) classPairs.add(((long) ca << 32) | cb);
+        }
+        classEdgeFrom = new int[classPairs.size()];
+        classEdgeTo = new int[classPairs.size()];
+        int k = 0;
+        for (long pair : classPairs) {
+            classEdgeFrom[k] = (int) (pair >>> 32);
+            classEdgeTo[k] = (int) pair;
+            k++;
+        }
+        positionsChanged();
+    }
+
+    /**
+     * Les nœuds de la disposition courante ont bougé (image de ForceLayout) : index et boîtes à refaire.
+     */
+    void positionsChanged() {
+        index = new QuadTree(layout.x, layout.y, layout.nodeCount);
+        int e = layout.edgeCount;
+        if (edgeMinX == null || edgeMinX.length != e) {
+            edgeMinX = new double[e];
+            edgeMinY = new double[e];
+            edgeMaxX = new double[e];
+            edgeMaxY = new double[e];
+        }
+        for (int k = 0; k < e; k++) {
+            int a = layout.edgeFrom[k], b = layout.edgeTo[k];
+            edgeMinX[k] = Math.min(layout.x[a], layout.x[b]);
+            edgeMinY[k] = Math.min(layout.y[a], layout.y[b]);
+            edgeMaxX[k] = Math.max(layout.x[a], layout.x[b]);
+            edgeMaxY[k] = Math.max(layout.y[a], layout.y[b]);
+        }
+        invalidate();
+    }
+
+    private int ownerOf(int node) {
+        return layout.type[node] == CallGraphLayout.CLASS ? node : layout.owner[node];
+    }
+
+    /**
+     * Estompe les nœuds absents de matches (résultat de NameIndex, mêmes indices que la disposition) ;
+     * null pour tout afficher.
+     */
+    void setMatches(BitSet matches) {
+        this.matches = matches;
+        invalidate();
+    }
+
+    void setOnNodeClicked(Consumer<String> handler) {
+        this.onNodeClicked = handler;
+    }
+
+    void resetView() {
+        scale = 1.0;
+        offsetX = 0;
+        offsetY = 0;
+        invalidate();
+    }
+
+    void zoomAt(double sx, double sy, double factor) {
+        offsetX = sx - (sx - offsetX) * factor;
+        offsetY = sy - (sy - offsetY) * factor;
+        scale *= factor;
+        invalidate();
+    }
+
+    double getScale() { return scale; }
+    int getDrawnNodes() { return drawnNodes; }
+    int getDrawnEdges() { return drawnEdges; }
+
+    private void invalidate() {
+        dirty = true;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            invalidate();
+        }
+    }
+
+    // nœud sous le point écran (sx, sy), ou -1
+    private int nodeAt(double sx, double sy) {
+        if (index == null) return -1;
+        double wx = (sx - offsetX) / scale, wy = (sy - offsetY) / scale;
+        int node = index.nearest(wx, wy, CallGraphLayout.CLASS_RADIUS);
+        if (node < 0) return -1;
+        boolean aggregated = scale < AGGREGATE_SCALE;
+        if (aggregated && layout.type[node] != CallGraphLayout.CLASS) return -1;
+        double r = layout.radius[node];
+        return Math.abs(layout.x[node] - wx) <= r && Math.abs(layout.y[node] - wy) <= r ? node : -1;
+    }
+
+    // ---------- Dessin ----------
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth(), height = canvas.getHeight();
+        gc.setGlobalAlpha(1.0);
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, width, height);
+        drawnNodes = 0;
+        drawnEdges = 0;
+        if (layout == null || layout.nodeCount == 0) return;
+
+        // zone visible en coordonnées monde, élargie du plus grand rayon
+        double pad = CallGraphLayout.CLASS_RADIUS;
+        double x0 = -offsetX / scale - pad, y0 = -offsetY / scale - pad;
+        double x1 = (width - offsetX) / scale + pad, y1 = (height - offsetY) / scale + pad;
+
+        boolean aggregated = scale < AGGREGATE_SCALE;
+        boolean details = scale >= LABEL_SCALE;
+
+        visibleCount = 0;
+        index.query(x0, y0, x1, y1, node -> {
+            if (aggregated && layout.type[node] != CallGraphLayout.CLASS) return;
+            if (visibleCount == visible.length) visible = Arrays.copyOf(visible, visibleCount * 2);
+            visible[visibleCount++] = node;
+        });
+
+        gc.save();
+        gc.translate(offsetX, offsetY);
+        gc.scale(scale, scale);
+
+        if (aggregated) {
+            drawClassEdges(gc, x0, y0, x1, y1);
+        } else {
+            drawEdges(gc, x0, y0, x1, y1, details);
+        }
+        drawNodes(gc, details);
+
+        gc.restore();
+    }
+
+    // arêtes groupées par couleur : un seul tracé par couleur
+    private void drawEdges(GraphicsContext gc, double x0, double y0, double x1, double y1, boolean details) {
+        gc.setLineWidth(details ? 2 : 1 / scale);
+        for (byte kind = 0; kind < EDGE_COLORS.length; kind++) {
+            gc.setStroke(EDGE_COLORS[kind]);
+            gc.setFill(EDGE_COLORS[kind]);
+            gc.beginPath();
+            for (int k = 0; k < layout.edgeCount; k++) {
+                if (layout.edgeKind[k] != kind) continue;
+                if (edgeMaxX[k] < x0 || edgeMinX[k] > x1 || edgeMaxY[k] < y0 || edgeMinY[k] > y1) continue;
+                int a = layout.edgeFrom[k], b = layout.edgeTo[k];
+                traceEdge(gc, a, b);
+                drawnEdges++;
+            }
+            gc.stroke();
+
+            if (details) {
+                for (int k = 0; k < layout.edgeCount; k++) {
+                    if (layout.edgeKind[k] != kind) continue;
+                    if (edgeMaxX[k] < x0 || edgeMinX[k] > x1 || edgeMaxY[k] < y0 || edgeMinY[k] > y1) continue;
+                    fillArrowHead(gc, layout.edgeFrom[k], layout.edgeTo[k]);
+                }
+            }
+        }
+    }
+
+    private void drawClassEdges(GraphicsContext gc, double x0, double y0, double x1, double y1) {
+        gc.setLineWidth(1 / scale);
+        gc.setStroke(EDGE_COLORS[CallGraphLayout.CALL]);
+        gc.beginPath();
+        for (int k = 0; k < classEdgeFrom.length; k++) {
+            int a = classEdgeFrom[k], b = classEdgeTo[k];
+            if (Math.max(layout.x[a], layout.x[b]) < x0 || Math.min(layout.x[a], layout.x[b]) > x1
+                    || Math.max(layout.y[a], layout.y[b]) < y0 || Math.min(layout.y[a], layout.y[b]) > y1) continue;
+            gc.moveTo(layout.x[a], layout.y[a]);
+            gc.lineTo(layout.x[b], layout.y[b]);
+            drawnEdges++;
+        }
+        gc.stroke();
+    }
+
+    // segment raccourci aux bords des nœuds, comme drawArrow de la vue à nœuds
+    private void traceEdge(GraphicsContext gc, int a, int b) {
+        double dx = layout.x[b] - layout.x[a], dy = layout.y[b] - layout.y[a];
+        double len = Math.sqrt(dx * dx + dy * dy);
+        if (len == 0) return;
+        double rs = layout.radius[a] / len, re = layout.radius[b] / len;
+        gc.moveTo(layout.x[a] + dx * rs, layout.y[a] + dy * rs);
+        gc.lineTo(layout.x[b] - dx * re, layout.y[b] - dy * re);
+    }
+
+    private void fillArrowHead(GraphicsContext gc, int a, int b) {
+        double dx = layout.x[b] - layout.x[a], dy = layout.y[b] - layout.y[a];
+        double len = Math.sqrt(dx * dx + dy * dy);
+        if (len == 0) return;
+        double re = layout.radius[b] / len;
+        double ex = layout.x[b] - dx * re, ey = layout.y[b] - dy * re;
+        double angle = Math.atan2(dy, dx);
+        gc.fillPolygon(
+                new double[]{ex, ex - ARROW_SIZE * Math.cos(angle - Math.PI / 6), ex - ARROW_SIZE * Math.cos(angle + Math.PI / 6)},
+                new double[]{ey, ey - ARROW_SIZE * Math.sin(angle - Math.PI / 6), ey - ARROW_SIZE * Math.sin(angle + Math.PI / 6)},
+                3);
+    }
+
+    // nœuds par type (un changement de couleur par passe), les nœuds estompés d'abord
+    private void drawNodes(GraphicsContext gc, boolean details) {
+        for (int pass = 0; pass < (matches == null ? 1 : 2); pass++) {
+            boolean faded = matches != null && pass == 0;
+            gc.setGlobalAlpha(faded ? 0.2 : 1.0);
+            for (byte t = 0; t < NODE_COLORS.length; t++) {
+                gc.setFill(NODE_COLORS[t]);
+                for (int i = 0; i < visibleCount; i++) {
+                    int n = visible[i];
+                    if (layout.type[n] != t || (matches != null && matches.get(n) == faded)) continue;
+                    double r = layout.radius[n];
+                    if (details) gc.fillRoundRect(layout.x[n] - r, layout.y[n] - r, 2 * r, 2 * r, 14, 14);
+                    else gc.fillRect(layout.x[n] - r, layout.y[n] - r, 2 * r, 2 * r);
+                    drawnNodes++;
+                }
+            }
+            if (!details) continue;
+
+            gc.setStroke(Color.BLACK);
+            gc.setLineWidth(1);
+            gc.setFill(Color.BLACK);
+            for (int i = 0; i < visibleCount; i++) {
+                int n = visible[i];
+                if (matches != null && matches.get(n) == faded) continue;
+                double r = layout.radius[n];
+                gc.strokeRoundRect(layout.x[n] - r, layout.y[n] - r, 2 * r, 2 * r, 14, 14);
+                gc.fillText(layout.names[n], layout.x[n] - r / 1.5, layout.y[n] + 4);
+            }
+        }
+        gc.setGlobalAlpha(1.0);
+    }
+}
@@ -0,0 +1,244 @@
+package gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index de recherche sur les noms du graphe (classes, méthodes), construit une fois par projet.
+ *
+ * Deux structures, en tableaux triés avec listes de noms à plat (CSR), comme CallGraph :
+ *   - les mots des noms (découpés sur la casse chameau, les chiffres et la ponctuation), triés :
+ *     trie aplati, un préfixe est une plage trouvée par dichotomie ;
+ *   - les trigrammes des noms en minuscules : une sous-chaîne de 3 caractères ou plus ne se cherche
+ *     que parmi les noms qui contiennent son trigramme le plus rare.
+ * Une requête correspond à un nom si elle en est une sous-chaîne (sans casse ; au-dessous de trois
+ * caractères, un début de mot), ou par casse chameau : "gCG" trouve getCallGraph.
+ * Les identifiants sont les positions dans le tableau de noms fourni.
+ */
+final class NameIndex {
+
+    private final String[] names;
+    private final String[] lowered;
+    private final Map<String, Integer> ids;
+
+    private final String[] words;
+    private final int[] wordOffsets;
+    private final int[] wordNames;
+
+    private final int[] trigrams;
+    private final int[] trigramOffsets;
+    private final int[] trigramNames;
+
+    NameIndex(String[] source, int count) {
+        names = Arrays.copyOf(source, count);
+        lowered = new String[count];
+        ids = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            lowered[i] = names[i].toLowerCase(Locale.ROOT);
+            ids.putIfAbsent(names[i], i);
+        }
+
+        // mots : (mot provisoire << 32 | nom), puis renumérotation dans l'ordre alphabétique
+        Map<String, Integer> wordIds = new HashMap<>();
+        List<String> wordList = new ArrayList<>();
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        for (int i = 0; i < count; i++) {
+            for (String w : words(names[i])) {
+                Integer id = wordIds.get(w);
+                if (id == null) {
+                    id = wordList.size();
+                    wordIds.put(w, id);
+                    wordList.add(w);
+                }
+                if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+                pairs[pairCount++] = ((long) id << 32) | i;
+            }
+        }
+        words = wordList.toArray(new String[0]);
+        Integer[] order = new Integer[words.length];
+        for (int k = 0; k < order.length; k++) order[k] = k;
+        Arrays.sort(order, (a, b) -> words[a].compareTo(words[b]));
+        int[] rank = new int[words.length];
+        for (int k = 0; k < order.length; k++) rank[order[k]] = k;
+        for (int p = 0; p < pairCount; p++) {
+            pairs[p] = ((long) rank[(int) (pairs[p] >>> 32)] << 32) | (pairs[p] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(words);
+        wordOffsets = new int[words.length + 1];
+        wordNames = postings(pairs, pairCount, words.length, wordOffsets, null);
+
+        // trigrammes : (trigramme << 32 | nom)
+        pairCount = 0;
+        for (int i = 0; i < count; i++) {
+            String s = lowered[i];
+            for (int c = 0; c + 3 <= s.length(); c++) {
+                if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+                pairs[pairCount++] = ((long) trigram(s, c) << 32) | i;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int distinct = 0;
+        for (int p = 0; p < pairCount; p++) {
+            if (p == 0 || (pairs[p] >>> 32) != (pairs[p - 1] >>> 32)) distinct++;
+        }
+        trigrams = new int[distinct];
+        trigramOffsets = new int[distinct + 1];
+        trigramNames = postings(pairs, pairCount, distinct, trigramOffsets, trigrams);
+    }
+
+    // paires triées (clé << 32 | nom) -> noms sans doublon par clé ; keys reçoit les clés si non null
+    private static int[] postings(long[] pairs, int pairCount, int keyCount, int[] offsets, int[] keys) {
+        if (keys == null) Arrays.sort(pairs, 0, pairCount);
+        int[] out = new int[pairCount];
+        int n = 0, key = -1;
+        for (int p = 0; p < pairCount; p++) {
+            if (p > 0 && pairs[p] == pairs[p - 1]) continue;
+            long k = pairs[p] >>> 32;
+            if (p == 0 || k != pairs[p - 1] >>> 32) {
+                key++;
+                if (keys != null) keys[key] = (int) k;
+                offsets[key] = n;
+            }
+            out[n++] = (int) pairs[p];
+        }
+        for (int k = key + 1; k <= keyCount; k++) offsets[k] = n;
+        return Arrays.copyOf(out, n);
+    }
+
+    // trois caractères sur 10 bits chacun ; une collision n'ajoute que des candidats, vérifiés ensuite
+    private static int trigram(String s, int at) {
+        return ((s.charAt(at) & 0x3FF) << 20) | ((s.charAt(at + 1) & 0x3FF) << 10) | (s.charAt(at + 2) & 0x3FF);
+    }
+
+    /**
+     * Mots en minuscules d'un nom : getCallGraph -> get, call, graph ; XMLParser2 -> xml, parser, 2.
+     */
+    static List<String> words(String name) {
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= name.length(); i++) {
+            char c = i < name.length() ? name.charAt(i) : ' ';
+            if (!Character.isLetterOrDigit(c)) {
+                if (start >= 0) out.add(name.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+                continue;
+            }
+            if (start >= 0) {
+                char prev = name.charAt(i - 1);
+                boolean boundary = (Character.isUpperCase(c) && !Character.isUpperCase(prev))
+                        || (Character.isDigit(c) != Character.isDigit(prev))
+                        || (Character.isUpperCase(prev) && Character.isUpperCase(c)
+                            && i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1)));
+                if (boundary) {
+                    out.add(name.substring(start, i).toLowerCase(Locale.ROOT));
+                    start = i;
+                }
+            } else {
+                start = i;
+            }
+        }
+        return out;
+    }
+
+    int size() { return names.length; }
+
+    /** Identifiant d'un nom, ou -1 */
+    int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Noms correspondant à query ; null pour une requête vide (tout correspond).
+     */
+    BitSet search(String query) {
+        String q = query == null ? "" : query.trim();
+        if (q.isEmpty()) return null;
+        String lower = q.toLowerCase(Locale.ROOT);
+        BitSet result = new BitSet(names.length);
+
+        if (lower.length() >= 3) {
+            substring(lower, result);
+        } else {
+            withWordPrefix(lower, result);
+        }
+
+        List<String> humps = humps(q);
+        if (humps.size() >= 2) {
+            BitSet candidates = new BitSet(names.length);
+            withWordPrefix(humps.get(0), candidates);
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (!result.get(i) && camelMatches(words(names[i]), humps)) result.set(i);
+            }
+        }
+        return result;
+    }
+
+    private void substring(String lower, BitSet result) {
+        // trigramme le plus rare de la requête : ses noms sont les seuls candidats
+        int best = -1, bestSize = Integer.MAX_VALUE;
+        for (int c = 0; c + 3 <= lower.length(); c++) {
+            int k = Arrays.binarySearch(trigrams, trigram(lower, c));
+            if (k < 0) return;
+            int size = trigramOffsets[k + 1] - trigramOffsets[k];
+            if (size < bestSize) {
+                best = k;
+                bestSize = size;
+            }
+        }
+        for (int p = trigramOffsets[best]; p < trigramOffsets[best + 1]; p++) {
+            int id = trigramNames[p];
+            if (lowered[id].contains(lower)) result.set(id);
+        }
+    }
+
+    private void withWordPrefix(String prefix, BitSet result) {
+        int from = lowerBound(prefix);
+        for (int w = from; w < words.length && words[w].startsWith(prefix); w++) {
+            for (int p = wordOffsets[w]; p < wordOffsets[w + 1]; p++) result.set(wordNames[p]);
+        }
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0, hi = words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // "gCG" -> g, c, g ; "getCG" -> get, c, g
+    private static List<String> humps(String query) {
+        List<String> out = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (!Character.isLetterOrDigit(c) || (Character.isUpperCase(c) && current.length() > 0)) {
+                if (current.length() > 0) out.add(current.toString().toLowerCase(Locale.ROOT));
+                current.setLength(0);
+            }
+            if (Character.isLetterOrDigit(c)) current.append(c);
+        }
+        if (current.length() > 0) out.add(current.toString().toLowerCase(Locale.ROOT));
+        return out;
+    }
+
+    // chaque bosse commence un mot, dans l'ordre (des mots peuvent être sautés)
+    private static boolean camelMatches(List<String> nameWords, List<String> humps) {
+        int w = 0;
+        for (String hump : humps) {
+            while (w < nameWords.size() && !nameWords.get(w).startsWith(hump)) w++;
+            if (w == nameWords.size()) return false;
+            w++;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,183 @@
+package gui;
+
+import analyse.FileFacts;
+import graph.SpoonClassMethodCallVisitor;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Arbre du projet construit à la demande : Projet > Package > Classe > Méthode > Appel.
+ *
+ * Un élément ne crée ses enfants qu'au premier getChildren(), c'est-à-dire quand la TreeView
+ * le déplie ; isLeaf() répond sans les créer. Seuls la racine et ses packages existent au départ :
+ * l'affichage initial ne dépend pas du nombre de classes ni de méthodes.
+ * Les libellés ("Classe : X", "Méthode : m") sont ceux attendus par la sélection de SpoonCallGraphGUI.
+ */
+final class ProjectTreeItem extends TreeItem<String> {
+
+    static final String DEFAULT_PACKAGE = "(package par défaut)";
+
+    private enum Kind { ROOT, PACKAGE, CLASS, METHOD, CALL }
+
+    private final Kind kind;
+    private final Tree tree;
+    private final String key;
+    private final String className;
+    private boolean loaded;
+
+    // données partagées par tous les éléments d'un même arbre
+    private static final class Tree {
+        final Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph;
+        final Map<String, List<String>> classesByPackage;
+
+        Tree(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph, Map<String, String> packages) {
+            this.graph = graph;
+            this.classesByPackage = new TreeMap<>();
+            for (String cls : graph.keySet()) {
+                String pkg = packages.getOrDefault(cls, "");
+                classesByPackage.computeIfAbsent(pkg.isEmpty() ? DEFAULT_PACKAGE : pkg, p -> new ArrayList<>()).add(cls);
+            }
+        }
+    }
+
+    private ProjectTreeItem(Kind kind, Tree tree, String key, String className, String label) {
+        super(label);
+        this.kind = kind;
+        this.tree = tree;
+        this.key = key;
+        this.className = className;
+    }
+
+    /**
+     * Racine de l'arbre ; packages associe un nom de classe du graphe à son package (absent : package par défaut).
+     */
+    static ProjectTreeItem root(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph,
+                                Map<String, String> packages) {
+        ProjectTreeItem root = new ProjectTreeItem(Kind.ROOT, new Tree(graph, packages), null, null, "Projet");
+        root.setExpanded(true);
+        return root;
+    }
+
+    /**
+     * Package de chaque classe du graphe (nom simple, comme SpoonParser.buildCallGraph), d'après les faits.
+     */
+    static Map<String, String> packagesOf(List<FileFacts> facts) {
+        Map<String, String> packages = new HashMap<>();
+        for (FileFacts file : facts) {
+            for (FileFacts.TypeFacts type : file.getTypes()) {
+                if (type.isClass()) packages.putIfAbsent(type.getSimpleName(), type.getPackageName());
+            }
+        }
+        return packages;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        switch (kind) {
+            case CLASS: {
+                Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = tree.graph.get(key);
+                return methods == null || methods.isEmpty();
+            }
+            case METHOD: {
+                List<SpoonClassMethodCallVisitor.MethodCall> calls = calls();
+                return calls == null || calls.isEmpty();
+            }
+            case CALL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public ObservableList<TreeItem<String>> getChildren() {
+        if (!loaded) {
+            loaded = true;
+            super.getChildren().setAll(createChildren());
+        }
+        return super.getChildren();
+    }
+
+    /** Enfants déjà créés (sans les créer) */
+    boolean isLoaded() { return loaded; }
+
+    private List<TreeItem<String>> createChildren() {
+        List<TreeItem<String>> children = new ArrayList<>();
+        switch (kind) {
+            case ROOT:
+                for (Map.Entry<String, List<String>> pkg : tree.classesByPackage.entrySet()) {
+                    children.add(new ProjectTreeItem(Kind.PACKAGE, tree, pkg.getKey(), null, "Package : " + pkg.getKey()));
+                }
+                break;
+            case PACKAGE:
+                for (String cls : tree.classesByPackage.getOrDefault(key, List.of())) {
+                    children.add(new ProjectTreeItem(Kind.CLASS, tree, cls, cls, "Classe : " + cls));
+                }
+                break;
+            case CLASS:
+                for (String m : tree.graph.getOrDefault(key, Map.of()).keySet()) {
+                    children.add(new ProjectTreeItem(Kind.METHOD, tree, m, key, "Méthode : " + m));
+                }
+                break;
+            case METHOD:
+                for (SpoonClassMethodCallVisitor.MethodCall call : calls()) {
+                    children.add(new ProjectTreeItem(Kind.CALL, tree, call.name, className,
+                            "Appel : " + call.name + " (" + call.declaringClass + ")"));
+                }
+                break;
+            default:
+                break;
+        }
+        return children;
+    }
+
+    private List<SpoonClassMethodCallVisitor.MethodCall> calls() {
+        Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = tree.graph.get(className);
+        return methods == null ? null : methods.get(key);
+    }
+
+    /**
+     * Reporte les éléments dépliés de previous sur next (même libellé), sans créer d'enfants ailleurs.
+     */
+    static void copyExpansion(TreeItem<String> previous, TreeItem<String> next) {
+        if (previous == null || next == null || !previous.isExpanded()) return;
+        next.setExpanded(true);
+        if (previous instanceof ProjectTreeItem && !((ProjectTreeItem) previous).isLoaded()) return;
+        Map<String, TreeItem<String>> byLabel = new HashMap<>();
+        for (TreeItem<String> child : next.getChildren()) byLabel.put(child.getValue(), child);
+        for (TreeItem<String> child : previous.getChildren()) {
+            if (child.isExpanded()) copyExpansion(child, byLabel.get(child.getValue()));
+        }
+    }
+
+    /**
+     * Élément de l'arbre de next au même chemin de libellés que item (racine comprise), ou null.
+     * Seuls les éléments de ce chemin créent leurs enfants.
+     */
+    static TreeItem<String> samePath(TreeItem<String> item, TreeItem<String> next) {
+        if (item == null || next == null) return null;
+        Deque<String> path = new ArrayDeque<>();
+        for (TreeItem<String> t = item; t.getParent() != null; t = t.getParent()) path.push(t.getValue());
+        TreeItem<String> current = next;
+        for (String label : path) {
+            TreeItem<String> match = null;
+            for (TreeItem<String> child : current.getChildren()) {
+                if (child.getValue().equals(label)) {
+                    match = child;
+                    break;
+                }
+            }
+            if (match == null) return null;
+            current = match;
+        }
+        return current;
+    }
+}
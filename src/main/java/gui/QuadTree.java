@@ -0,0 +1,216 @@
+package gui;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Index spatial statique de points (centres des nœuds), construit une fois par disposition.
+ *
+ * Découpage récursif en quatre quadrants jusqu'à BUCKET points par feuille ; les points sont
+ * réordonnés dans un seul tableau, chaque cellule couvrant un intervalle contigu [start, end).
+ * Une requête rectangulaire ne visite que les cellules qui l'intersectent.
+ * Chaque cellule connaît aussi le centre de masse de ses points, pour l'approximation de Barnes-Hut
+ * (ForceLayout reconstruit l'arbre à chaque itération).
+ */
+final class QuadTree {
+
+    private static final int BUCKET = 32;
+    private static final int MAX_DEPTH = 24;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] points;
+
+    // cellules en tableaux : boîte englobante, intervalle de points, premier enfant (-1 pour une feuille)
+    private double[] minX = new double[64], minY = new double[64], maxX = new double[64], maxY = new double[64];
+    private int[] start = new int[64], end = new int[64], firstChild = new int[64];
+    private int cellCount;
+    // centre de masse des points de chaque cellule
+    private double[] massX, massY;
+
+    QuadTree(double[] xs, double[] ys, int count) {
+        this.xs = xs;
+        this.ys = ys;
+        this.points = new int[count];
+        for (int i = 0; i < count; i++) points[i] = i;
+        if (count == 0) return;
+
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        build(newCell(x0, y0, x1, y1, 0, count), 0);
+        computeMassCenters();
+    }
+
+    // les enfants sont créés après leur parent : un parcours à rebours voit les enfants d'abord
+    private void computeMassCenters() {
+        massX = new double[cellCount];
+        massY = new double[cellCount];
+        for (int cell = cellCount - 1; cell >= 0; cell--) {
+            int n = end[cell] - start[cell];
+            if (n == 0) continue;
+            double sx = 0, sy = 0;
+            if (firstChild[cell] < 0) {
+                for (int k = start[cell]; k < end[cell]; k++) {
+                    sx += xs[points[k]];
+                    sy += ys[points[k]];
+                }
+            } else {
+                for (int c = firstChild[cell]; c < firstChild[cell] + 4; c++) {
+                    int m = end[c] - start[c];
+                    sx += massX[c] * m;
+                    sy += massY[c] * m;
+                }
+            }
+            massX[cell] = sx / n;
+            massY[cell] = sy / n;
+        }
+    }
+
+    private int newCell(double x0, double y0, double x1, double y1, int from, int to) {
+        if (cellCount == start.length) {
+            int n = cellCount * 2;
+            minX = Arrays.copyOf(minX, n);
+            minY = Arrays.copyOf(minY, n);
+            maxX = Arrays.copyOf(maxX, n);
+            maxY = Arrays.copyOf(maxY, n);
+            start = Arrays.copyOf(start, n);
+            end = Arrays.copyOf(end, n);
+            firstChild = Arrays.copyOf(firstChild, n);
+        }
+        minX[cellCount] = x0;
+        minY[cellCount] = y0;
+        maxX[cellCount] = x1;
+        maxY[cellCount] = y1;
+        start[cellCount] = from;
+        end[cellCount] = to;
+        firstChild[cellCount] = -1;
+        return cellCount++;
+    }
+
+    private void build(int cell, int depth) {
+        int from = start[cell], to = end[cell];
+        if (to - from <= BUCKET || depth >= MAX_DEPTH) return;
+
+        double mx = (minX[cell] + maxX[cell]) / 2;
+        double my = (minY[cell] + maxY[cell]) / 2;
+        // partition en place : haut/bas puis gauche/droite dans chaque moitié
+        int splitY = partition(from, to, my, false);
+        int splitTop = partition(from, splitY, mx, true);
+        int splitBottom = partition(splitY, to, mx, true);
+
+        int first = cellCount;
+        newCell(minX[cell], minY[cell], mx, my, from, splitTop);
+        newCell(mx, minY[cell], maxX[cell], my, splitTop, splitY);
+        newCell(minX[cell], my, mx, maxY[cell], splitY, splitBottom);
+        newCell(mx, my, maxX[cell], maxY[cell], splitBottom, to);
+        firstChild[cell] = first;
+        for (int k = 0; k < 4; k++) build(first + k, depth + 1);
+    }
+
+    // points de coordonnée < pivot en tête ; retourne la frontière
+    private int partition(int from, int to, double pivot, boolean onX) {
+        int i = from, j = to - 1;
+        while (i <= j) {
+            double v = onX ? xs[points[i]] : ys[points[i]];
+            if (v < pivot) {
+                i++;
+            } else {
+                int tmp = points[i];
+                points[i] = points[j];
+                points[j] = tmp;
+                j--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Appelle visitor pour chaque point du rectangle [x0, x1] x [y0, y1].
+     */
+    void query(double x0, double y0, double x1, double y1, IntConsumer visitor) {
+        if (cellCount == 0) return;
+        int[] stack = new int[4 * MAX_DEPTH + 4];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            if (maxX[cell] < x0 || minX[cell] > x1 || maxY[cell] < y0 || minY[cell] > y1) continue;
+            boolean inside = minX[cell] >= x0 && maxX[cell] <= x1 && minY[cell] >= y0 && maxY[cell] <= y1;
+            if (inside || firstChild[cell] < 0) {
+                for (int k = start[cell]; k < end[cell]; k++) {
+                    int p = points[k];
+                    if (inside || (xs[p] >= x0 && xs[p] <= x1 && ys[p] >= y0 && ys[p] <= y1)) visitor.accept(p);
+                }
+            } else {
+                for (int k = 0; k < 4; k++) stack[top++] = firstChild[cell] + k;
+            }
+        }
+    }
+
+    /**
+     * Point le plus proche de (x, y) à moins de maxDistance, ou -1.
+     */
+    int nearest(double x, double y, double maxDistance) {
+        int[] best = {-1};
+        double[] bestDistance = {maxDistance * maxDistance};
+        query(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, p -> {
+            double dx = xs[p] - x, dy = ys[p] - y;
+            double d = dx * dx + dy * dy;
+            if (d <= bestDistance[0]) {
+                bestDistance[0] = d;
+                best[0] = p;
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Répulsion subie par le point p (force k2 / d de chaque autre point, dirigée à l'opposé),
+     * écrite dans force[2p] et force[2p + 1]. Une cellule vue sous un angle plus petit que theta
+     * (taille / distance) compte comme un seul point de masse égale à son nombre de points.
+     * Lecture seule : appelable en parallèle pour des points distincts.
+     */
+    void repulsion(int p, double theta, double k2, double[] force) {
+        double px = xs[p], py = ys[p], fx = 0, fy = 0;
+        double theta2 = theta * theta;
+        int[] stack = new int[4 * MAX_DEPTH + 4];
+        int top = 0;
+        if (cellCount > 0) stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            int n = end[cell] - start[cell];
+            if (n == 0) continue;
+            double dx = px - massX[cell], dy = py - massY[cell];
+            double d2 = dx * dx + dy * dy;
+            double size = Math.max(maxX[cell] - minX[cell], maxY[cell] - minY[cell]);
+            if (size * size < theta2 * d2) {
+                fx += dx * k2 * n / d2;
+                fy += dy * k2 * n / d2;
+            } else if (firstChild[cell] < 0) {
+                for (int k = start[cell]; k < end[cell]; k++) {
+                    int q = points[k];
+                    if (q == p) continue;
+                    double qx = px - xs[q], qy = py - ys[q];
+                    double q2 = qx * qx + qy * qy;
+                    if (q2 < 1e-4) {
+                        // points confondus : poussée déterministe pour les séparer
+                        qx = (p - q) * 0.01;
+                        qy = (q - p) * 0.01;
+                        q2 = qx * qx + qy * qy;
+                    }
+                    fx += qx * k2 / q2;
+                    fy += qy * k2 / q2;
+                }
+            } else {
+                for (int k = 0; k < 4; k++) stack[top++] = firstChild[cell] + k;
+            }
+        }
+        force[2 * p] = fx;
+        force[2 * p + 1] = fy;
+    }
+}
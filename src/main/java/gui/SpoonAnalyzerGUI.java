@@ -1,12 +1,14 @@
 package gui;
 
-import spoon.Launcher;
-import spoon.reflect.CtModel;
-import spoon.reflect.declaration.CtClass;
-import spoon.reflect.declaration.CtMethod;
-import spoon.reflect.declaration.CtPackage;
+import analyse.AnalysisSession;
+import analyse.FactsCache;
+import analyse.FileMetrics;
+import analyse.ParallelFileAnalyzer;
+import analyse.ProjectMetrics;
+import webanalyzer.service.AnalysisSnapshot;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.File;
@@ -48,10 +50,16 @@ public class SpoonAnalyzerGUI {
         JMenuBar menuBar = new JMenuBar();
         JMenu menuFichier = new JMenu("Fichier");
         JMenuItem ouvrirProjet = new JMenuItem("Ouvrir projet");
+        JMenuItem ouvrirInstantane = new JMenuItem("Ouvrir un instantané...");
+        JMenuItem enregistrerInstantane = new JMenuItem("Enregistrer un instantané...");
         JMenuItem quitter = new JMenuItem("Quitter");
         ouvrirProjet.addActionListener(e -> chooseProjectFolder());
+        ouvrirInstantane.addActionListener(e -> openSnapshot());
+        enregistrerInstantane.addActionListener(e -> saveSnapshot());
         quitter.addActionListener(e -> frame.dispose());
         menuFichier.add(ouvrirProjet);
+        menuFichier.add(ouvrirInstantane);
+        menuFichier.add(enregistrerInstantane);
         menuFichier.addSeparator();
         menuFichier.add(quitter);
         menuBar.add(menuFichier);
@@ -104,29 +112,86 @@ public class SpoonAnalyzerGUI {
         chooser.setDialogTitle("Choisir le projet Java à analyser");
         if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
             projectFolder = chooser.getSelectedFile();
+            Integer threshold = askThreshold();
+            if (threshold != null) analyzeProject(projectFolder, threshold);
+        }
+    }
+
+    /**
+     * Demande de la valeur X à l'utilisateur ; null si la saisie est absente ou invalide.
+     */
+    private Integer askThreshold() {
+        String input = JOptionPane.showInputDialog(
+                frame,
+                "Entrer la valeur X (classes avec plus de X méthodes seront comptées) :",
+                "3"
+        );
+
+        if (input == null || input.isEmpty()) {
+            JOptionPane.showMessageDialog(frame,
+                    "Aucune valeur entrée. Analyse annulée.",
+                    "Information", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
 
-            // Demande de la valeur X à l'utilisateur
-            String input = JOptionPane.showInputDialog(
-                    frame,
-                    "Entrer la valeur X (classes avec plus de X méthodes seront comptées) :",
-                    "3"
-            );
-
-            if (input == null || input.isEmpty()) {
-                JOptionPane.showMessageDialog(frame,
-                        "Aucune valeur entrée. Analyse annulée.",
-                        "Information", JOptionPane.WARNING_MESSAGE);
-                return;
-            }
-
-            try {
-                int threshold = Integer.parseInt(input);
-                analyzeProject(projectFolder, threshold);
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(frame,
-                        "Valeur invalide. Veuillez entrer un nombre entier.",
-                        "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+        try {
+            return Integer.parseInt(input);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame,
+                    "Valeur invalide. Veuillez entrer un nombre entier.",
+                    "Erreur", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    /**
+     * Statistiques relues depuis un instantané d'analyse (projection mémoire, sans Spoon).
+     */
+    private void openSnapshot() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Ouvrir un instantané d'analyse");
+        chooser.setFileFilter(new FileNameExtensionFilter("Instantané d'analyse", AnalysisSnapshot.EXTENSION.substring(1)));
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        Integer threshold = askThreshold();
+        if (threshold == null) return;
+
+        tableModel.setRowCount(0);
+        globalStatsArea.setText("");
+        try {
+            long start = System.nanoTime();
+            AnalysisSnapshot snapshot = AnalysisSnapshot.open(chooser.getSelectedFile());
+            ProjectMetrics project = snapshot.toProjectMetrics();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            showProject(project, threshold);
+            statusLabel.setText("Instantané chargé en " + millis + " ms (" + snapshot.getFileCount()
+                    + " fichiers) : " + snapshot.getProjectPath());
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(frame, "Erreur de lecture de l'instantané : " + ex.getMessage(),
+                    "Erreur", JOptionPane.ERROR_MESSAGE);
+            statusLabel.setText("Erreur pendant la lecture.");
+        }
+    }
+
+    /**
+     * Instantané du projet ouvert (faits des fichiers non reparsés relus depuis le cache disque).
+     */
+    private void saveSnapshot() {
+        if (projectFolder == null) {
+            JOptionPane.showMessageDialog(frame, "Ouvrez d'abord un projet.", "Information", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Enregistrer un instantané d'analyse");
+        chooser.setSelectedFile(new File(projectFolder.getName() + AnalysisSnapshot.EXTENSION));
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            AnalysisSnapshot.create(projectFolder, chooser.getSelectedFile());
+            statusLabel.setText("Instantané écrit : " + chooser.getSelectedFile().getAbsolutePath());
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(frame, "Erreur d'écriture de l'instantané : " + ex.getMessage(),
+                    "Erreur", JOptionPane.ERROR_MESSAGE);
         }
     }
 
@@ -135,72 +200,19 @@ public class SpoonAnalyzerGUI {
         globalStatsArea.setText("");
         statusLabel.setText("Analyse en cours...");
 
-        List<File> javaFiles = listJavaFilesForFolder(folder);
+        List<File> javaFiles = AnalysisSession.listJavaFiles(folder);
         if (javaFiles.isEmpty()) {
             JOptionPane.showMessageDialog(frame, "Aucun fichier Java trouvé.", "Erreur", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        int totalClasses = 0, totalMethods = 0, totalLines = 0;
-        Map<String, Integer> classMethodMap = new HashMap<>();
-        Map<String, Integer> classAttrMap = new HashMap<>();
-
         try {
-            for (File file : javaFiles) {
-                Launcher launcher = new Launcher();
-                launcher.addInputResource(file.getAbsolutePath());
-                launcher.getEnvironment().setNoClasspath(true);
-                launcher.buildModel();
-                CtModel model = launcher.getModel();
-
-                List<CtClass<?>> classes = model.getElements(e -> e instanceof CtClass);
-                List<CtMethod<?>> methods = model.getElements(e -> e instanceof CtMethod);
-                List<CtPackage> packages = model.getElements(e -> e instanceof CtPackage);
-
-                int fileClassCount = classes.size();
-                int fileMethodCount = methods.size();
-                int fileLineCount = classes.stream()
-                        .mapToInt(c -> c.toString().split("\n").length).sum();
-
-                totalClasses += fileClassCount;
-                totalMethods += fileMethodCount;
-                totalLines += fileLineCount;
-
-                for (CtClass<?> c : classes) {
-                    classMethodMap.put(c.getSimpleName(), c.getMethods().size());
-                    classAttrMap.put(c.getSimpleName(), c.getFields().size());
-                }
-
-                tableModel.addRow(new Object[]{
-                        file.getName(),
-                        fileClassCount,
-                        fileMethodCount,
-                        fileLineCount,
-                        Math.max(0, packages.size() - 1)
-                });
-            }
-
-            int totalPackages = countPackages(folder);
-            List<String> top10Methods = topPercent(classMethodMap, 10);
-            List<String> top10Attrs = topPercent(classAttrMap, 10);
-            Set<String> intersection = new HashSet<>(top10Methods);
-            intersection.retainAll(top10Attrs);
-
-            visiteurs.PlusXMethodCounterVisitorSpoon xVisitor = new visiteurs.PlusXMethodCounterVisitorSpoon();
-            List<String> classesOver = xVisitor.analyze(buildModel(folder), threshold);
-
-            globalStatsArea.setText(
-                    "=== STATISTIQUES GLOBALES ===\n" +
-                            "Total classes / interfaces  : " + totalClasses + "\n" +
-                            "Total méthodes  : " + totalMethods + "\n" +
-                            "Total lignes    : " + totalLines + "\n" +
-                            "Total packages  : " + totalPackages + "\n\n" +
-                            "Top 10% classes (méthodes) : " + top10Methods + "\n" +
-                            "Top 10% classes (attributs): " + top10Attrs + "\n" +
-                            "Intersection               : " + intersection + "\n\n" +
-                            "Classes > " + threshold + " méthodes : " + classesOver + "\n"
-            );
+            // Analyse parallèle et incrémentale (seuls les fichiers modifiés et leurs dépendants sont reparsés)
+            ProjectMetrics project = new ParallelFileAnalyzer()
+                    .withCache(FactsCache.open(folder))
+                    .analyze(javaFiles);
 
+            showProject(project, threshold);
             statusLabel.setText("Analyse terminée (" + javaFiles.size() + " fichiers).");
 
         } catch (Exception ex) {
@@ -211,12 +223,45 @@ public class SpoonAnalyzerGUI {
         }
     }
 
-    private CtModel buildModel(File folder) {
-        Launcher launcher = new Launcher();
-        launcher.addInputResource(new File(folder, "src").getAbsolutePath());
-        launcher.getEnvironment().setNoClasspath(true);
-        launcher.buildModel();
-        return launcher.getModel();
+    /**
+     * Remplit la table par fichier et les statistiques globales.
+     */
+    private void showProject(ProjectMetrics project, int threshold) {
+        for (FileMetrics fm : project.getFiles()) {
+            tableModel.addRow(new Object[]{
+                    fm.getFileName(),
+                    fm.getClassCount(),
+                    fm.getMethodCount(),
+                    fm.getLineCount(),
+                    fm.getPackageDepth()
+            });
+        }
+
+        int totalClasses = project.getTotalClasses();
+        int totalMethods = project.getTotalMethods();
+        int totalLines = project.getTotalLines();
+        Map<String, Integer> classMethodMap = project.getMethodsPerClass();
+        Map<String, Integer> classAttrMap = project.getAttributesPerClass();
+
+        int totalPackages = project.getTotalPackages();
+        List<String> top10Methods = topPercent(classMethodMap, 10);
+        List<String> top10Attrs = topPercent(classAttrMap, 10);
+        Set<String> intersection = new HashSet<>(top10Methods);
+        intersection.retainAll(top10Attrs);
+
+        List<String> classesOver = project.getClassesWithMoreThan(threshold);
+
+        globalStatsArea.setText(
+                "=== STATISTIQUES GLOBALES ===\n" +
+                        "Total classes / interfaces  : " + totalClasses + "\n" +
+                        "Total méthodes  : " + totalMethods + "\n" +
+                        "Total lignes    : " + totalLines + "\n" +
+                        "Total packages  : " + totalPackages + "\n\n" +
+                        "Top 10% classes (méthodes) : " + top10Methods + "\n" +
+                        "Top 10% classes (attributs): " + top10Attrs + "\n" +
+                        "Intersection               : " + intersection + "\n\n" +
+                        "Classes > " + threshold + " méthodes : " + classesOver + "\n"
+        );
     }
 
     private void showFileDetails() {
@@ -241,25 +286,6 @@ public class SpoonAnalyzerGUI {
         }
     }
 
-    private List<File> listJavaFilesForFolder(File folder) {
-        List<File> javaFiles = new ArrayList<>();
-        File[] files = folder.listFiles();
-        if (files == null) return javaFiles;
-        for (File f : files) {
-            if (f.isDirectory()) javaFiles.addAll(listJavaFilesForFolder(f));
-            else if (f.getName().endsWith(".java")) javaFiles.add(f);
-        }
-        return javaFiles;
-    }
-
-    private int countPackages(File folder) {
-        Launcher launcher = new Launcher();
-        launcher.addInputResource(folder.getAbsolutePath());
-        launcher.getEnvironment().setNoClasspath(true);
-        launcher.buildModel();
-        return Math.max(0, launcher.getModel().getAllPackages().size() - 1);
-    }
-
     private List<String> topPercent(Map<String, Integer> map, int percent) {
         if (map.isEmpty()) return Collections.emptyList();
         int limit = Math.max(1, (int) Math.ceil(map.size() * percent / 100.0));
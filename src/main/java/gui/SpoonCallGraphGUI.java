@@ -1,7 +1,12 @@
 package gui;
 
+import analyse.FileFacts;
+import graph.CallGraph;
+import graph.CallGraphExporter;
 import graph.SpoonClassMethodCallVisitor;
 import graph.SpoonParser;
+import webanalyzer.service.AnalysisSnapshot;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -21,11 +26,14 @@ import javafx.scene.text.Text;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SpoonCallGraphGUI extends Application {
 
@@ -33,6 +41,11 @@ public class SpoonCallGraphGUI extends Application {
     private Pane graphPane = new Pane();
     private Label statusLabel = new Label("Prêt");
     private Map<String, VisualNode> nodeMap = new HashMap<>();
+    // formes de la vue à nœuds, réutilisées d'une image ForceLayout à l'autre (indices de drawnLayout)
+    private CallGraphLayout drawnLayout;
+    private VisualNode[] drawnNodes = new VisualNode[0];
+    private Line[] edgeLines = new Line[0];
+    private Polygon[] edgeHeads = new Polygon[0];
     private Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> projectGraph = new LinkedHashMap<>();
     private BorderPane mainRoot;
     private TextField searchField = new TextField();
@@ -42,13 +55,52 @@ public class SpoonCallGraphGUI extends Application {
     private double scale = 1.0;
     private double mousePrevX, mousePrevY;
 
-    // layout constants
-    private static final double CLASS_RADIUS = 36;
-    private static final double METHOD_RADIUS = 28;
-    private static final double NODE_SPACING_X = 220;
-    private static final double NODE_SPACING_Y = 90;
-
     private StackPane centerStack; // <-- centerStack défini ici
+    private ScrollPane scrollPane;
+
+    // Rendu Canvas (grands graphes) : automatique au-delà de CANVAS_NODE_THRESHOLD nœuds
+    private static final int CANVAS_NODE_THRESHOLD = 2000;
+    private final GraphCanvas graphCanvas = new GraphCanvas();
+    private StackPane canvasStack;
+    private CheckMenuItem canvasMode;
+    private boolean canvasActive;
+    private TextArea detailsArea;
+
+    // Disposition par forces calculée en tâche de fond, publiée image par image
+    private CheckMenuItem forceMode;
+    private Task<Void> layoutTask;
+
+    // Recherche : index construit une fois par graphe, requêtes regroupées (SEARCH_DELAY) et
+    // exécutées sur un thread dédié ; seul le résultat de la dernière requête est appliqué
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> indexedGraph;
+    private NameIndex searchIndex;
+    private BitSet searchMatches;
+    private int searchGeneration;
+
+    // Analyse en tâche de fond : l'arbre et le graphe partiels sont refaits au plus
+    // toutes les PARTIAL_REDRAW_MILLIS (sans disposition par forces ni index), construits sur
+    // un thread dédié puis installés sur le thread JavaFX ; un seul à la fois
+    private static final long PARTIAL_REDRAW_MILLIS = 1000;
+    private final CallGraphAnalysisService analysisService = new CallGraphAnalysisService();
+    private final List<FileFacts> partialFacts = new ArrayList<>();
+    private final ExecutorService partialExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "partial-graph");
+        t.setDaemon(true);
+        return t;
+    });
+    private Task<PartialView> partialTask;
+    private int partialGeneration;
+    private long lastPartialRedraw;
+    private boolean loading;
+    // nouvel arbre en place : la sélection reportée ne redessine pas le graphe
+    private boolean restoringSelection;
 
     public static void main(String[] args) {
         launch(args);
@@ -70,17 +122,18 @@ public class SpoonCallGraphGUI extends Application {
         treeView.setShowRoot(true);
 
         searchField.setPromptText("Rechercher classe/méthode...");
-        searchField.setOnKeyReleased(e -> applySearch(searchField.getText()));
+        searchDelay.setOnFinished(e -> runSearch());
+        searchField.textProperty().addListener((obs, oldV, newV) -> searchDelay.playFromStart());
 
         Label detailsTitle = new Label("Détails");
         detailsTitle.setFont(Font.font(14));
-        TextArea detailsArea = new TextArea();
+        detailsArea = new TextArea();
         detailsArea.setEditable(false);
         detailsArea.setWrapText(true);
         detailsArea.setPrefHeight(250);
 
-        Button exportDot = new Button("Exporter en .dot");
-        exportDot.setOnAction(e -> exportDot(stage));
+        Button exportDot = new Button("Exporter le graphe...");
+        exportDot.setOnAction(e -> exportGraph(stage));
 
         leftBox.getChildren().addAll(treeTitle, searchField, treeView, detailsTitle, detailsArea, exportDot);
 
@@ -88,7 +141,7 @@ public class SpoonCallGraphGUI extends Application {
         centerStack = new StackPane();
         centerStack.getChildren().add(graphPane);
 
-        ScrollPane scrollPane = new ScrollPane(centerStack);
+        scrollPane = new ScrollPane(centerStack);
         scrollPane.setPannable(true);
         scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.ALWAYS);
         scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.ALWAYS);
@@ -97,9 +150,21 @@ public class SpoonCallGraphGUI extends Application {
 
         enablePanAndZoom(graphPane);
 
+        canvasStack = new StackPane(graphCanvas);
+        canvasStack.getChildren().add(createLegend());
+        graphCanvas.setOnNodeClicked(name -> detailsArea.setText(
+                projectGraph.containsKey(name) ? buildClassDetails(name) : buildMethodDetails(name)));
+
         // ---- Bottom: status ----
-        HBox bottom = new HBox(statusLabel);
+        ProgressBar progress = new ProgressBar();
+        progress.setPrefWidth(220);
+        progress.progressProperty().bind(analysisService.progressProperty());
+        progress.visibleProperty().bind(analysisService.runningProperty());
+        progress.managedProperty().bind(analysisService.runningProperty());
+        HBox bottom = new HBox(10, progress, statusLabel);
+        bottom.setAlignment(Pos.CENTER_LEFT);
         bottom.setPadding(new Insets(6));
+        setupAnalysisService();
 
         // ---- Menu ----
         MenuBar menuBar = createMenu(stage);
@@ -117,26 +182,28 @@ public class SpoonCallGraphGUI extends Application {
 
         // ---- Tree selection listener ----
         treeView.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
-            if (newV != null) {
-                String val = newV.getValue();
-                if (val.startsWith("Classe : ")) {
-                    String className = val.substring("Classe : ".length());
-                    layoutAndDrawSubGraph(className, null);
-                    detailsArea.setText(buildClassDetails(className));
-                } else if (val.startsWith("Méthode : ")) {
-                    String methodName = val.substring("Méthode : ".length());
-                    layoutAndDrawSubGraph(null, methodName);
-                    detailsArea.setText(buildMethodDetails(methodName));
-                } else if (newV == treeView.getRoot()) {
-                    layoutAndDrawGraph(projectGraph);
-                    detailsArea.setText("Projet: " + SpoonParser.projectPath);
-                } else {
-                    detailsArea.setText(val);
-                }
-            }
+            if (newV != null && !restoringSelection) showSelection(newV);
         });
     }
 
+    private void showSelection(TreeItem<String> item) {
+        String val = item.getValue();
+        if (val.startsWith("Classe : ")) {
+            String className = val.substring("Classe : ".length());
+            layoutAndDrawSubGraph(className, null);
+            detailsArea.setText(buildClassDetails(className));
+        } else if (val.startsWith("Méthode : ")) {
+            String methodName = val.substring("Méthode : ".length());
+            layoutAndDrawSubGraph(null, methodName);
+            detailsArea.setText(buildMethodDetails(methodName));
+        } else if (item == treeView.getRoot()) {
+            layoutAndDrawGraph(projectGraph);
+            detailsArea.setText("Projet: " + SpoonParser.projectPath);
+        } else {
+            detailsArea.setText(val);
+        }
+    }
+
     // --- MENU ---
     private MenuBar createMenu(Stage stage) {
         MenuBar menuBar = new MenuBar();
@@ -144,14 +211,30 @@ public class SpoonCallGraphGUI extends Application {
         Menu file = new Menu("Fichier");
         MenuItem openProj = new MenuItem("Ouvrir projet (src)...");
         openProj.setOnAction(e -> chooseProjectDir(stage));
+        MenuItem openSnapshot = new MenuItem("Ouvrir un instantané...");
+        openSnapshot.setOnAction(e -> openSnapshot(stage));
+        MenuItem saveSnapshot = new MenuItem("Enregistrer un instantané...");
+        saveSnapshot.setOnAction(e -> saveSnapshot(stage));
+        MenuItem cancelAnalysis = new MenuItem("Annuler l'analyse");
+        cancelAnalysis.setOnAction(e -> analysisService.cancel());
+        cancelAnalysis.disableProperty().bind(analysisService.runningProperty().not());
         MenuItem exit = new MenuItem("Quitter");
         exit.setOnAction(e -> Platform.exit());
-        file.getItems().addAll(openProj, new SeparatorMenuItem(), exit);
+        file.getItems().addAll(openProj, openSnapshot, saveSnapshot, cancelAnalysis, new SeparatorMenuItem(), exit);
 
         Menu view = new Menu("Affichage");
         MenuItem fit = new MenuItem("Réinitialiser zoom/position");
         fit.setOnAction(e -> resetView());
-        view.getItems().addAll(fit, new SeparatorMenuItem());
+        canvasMode = new CheckMenuItem("Rendu Canvas (grands graphes)");
+        canvasMode.setOnAction(e -> {
+            if (canvasActive || !graphPane.getChildren().isEmpty()) layoutAndDrawGraph(projectGraph);
+        });
+        forceMode = new CheckMenuItem("Disposition par forces");
+        forceMode.setSelected(true);
+        forceMode.setOnAction(e -> {
+            if (canvasActive || !graphPane.getChildren().isEmpty()) layoutAndDrawGraph(projectGraph);
+        });
+        view.getItems().addAll(fit, new SeparatorMenuItem(), canvasMode, forceMode);
 
         Menu help = new Menu("Aide");
         MenuItem about = new MenuItem("À propos");
@@ -168,140 +251,337 @@ public class SpoonCallGraphGUI extends Application {
         File chosen = dc.showDialog(stage);
         if (chosen != null) {
             SpoonParser.setProjectPath(chosen.getAbsolutePath());
-            Task<Void> task = new Task<>() {
-                @Override
-                protected Void call() throws Exception {
-                    Platform.runLater(() -> statusLabel.setText("Analyse en cours (Spoon)..."));
-                    projectGraph = SpoonParser.parseProject();
-                    Platform.runLater(() -> {
-                        buildTreeFromProject(projectGraph);
-                        layoutAndDrawGraph(projectGraph);
-                        statusLabel.setText("Analyse terminée : " + chosen.getName());
-                    });
-                    return null;
-                }
-            };
-            new Thread(task).start();
+            startAnalysis(new File(SpoonParser.projectSourcePath));
         }
     }
 
+    // --- ANALYSE EN TÂCHE DE FOND ---
+    private void setupAnalysisService() {
+        analysisService.messageProperty().addListener((obs, oldV, newV) -> {
+            if (analysisService.isRunning() && newV != null && !newV.isEmpty()) statusLabel.setText(newV);
+        });
+        analysisService.setOnFacts(this::addPartialFacts);
+        analysisService.setOnSucceeded(e -> {
+            loading = false;
+            projectGraph = analysisService.getValue();
+            buildTreeFromProject(projectGraph, ProjectTreeItem.packagesOf(partialFacts));
+            layoutAndDrawGraph(projectGraph);
+            // sélection conservée pendant l'analyse : sa vue est refaite sur le graphe complet
+            TreeItem<String> selected = treeView.getSelectionModel().getSelectedItem();
+            if (selected != null && selected != treeView.getRoot()) showSelection(selected);
+            statusLabel.setText("Analyse terminée : " + new File(SpoonParser.projectPath).getName()
+                    + " (" + partialFacts.size() + " fichiers, " + projectGraph.size() + " classes)");
+            clearPartialState();
+        });
+        analysisService.setOnCancelled(e -> {
+            loading = false;
+            clearPartialState();
+            statusLabel.setText("Analyse annulée");
+        });
+        analysisService.setOnFailed(e -> {
+            loading = false;
+            clearPartialState();
+            Throwable error = analysisService.getException();
+            System.err.println("Erreur Spoon : " + error.getMessage());
+            error.printStackTrace();
+            statusLabel.setText("Échec de l'analyse");
+            showAlert("Erreur", "Analyse impossible : " + error.getMessage());
+        });
+    }
+
+    /**
+     * (Re)lance l'analyse : une analyse encore en cours est annulée, ses résultats ignorés.
+     */
+    private void startAnalysis(File sourceRoot) {
+        // annulée d'abord : son onCancelled (synchrone sur ce thread) ne doit pas suivre l'état ci-dessous
+        analysisService.cancel();
+        cancelForceLayout();
+        clearPartialState();
+        loading = true;
+        lastPartialRedraw = System.currentTimeMillis();
+        projectGraph = new LinkedHashMap<>();
+        TreeItem<String> root = new TreeItem<>("Projet");
+        root.setExpanded(true);
+        treeView.setRoot(root);
+        showNodeView();
+        graphPane.getChildren().clear();
+        nodeMap.clear();
+        analysisService.setSourceRoot(sourceRoot);
+        analysisService.restart();
+    }
+
+    private void clearPartialState() {
+        partialFacts.clear();
+        partialGeneration++;
+        if (partialTask != null) {
+            partialTask.cancel();
+            partialTask = null;
+        }
+    }
+
+    // graphe, arbre et disposition partiels, construits hors du thread JavaFX
+    private static final class PartialView {
+        final Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph;
+        final TreeItem<String> root;
+        final CallGraphLayout layout;
+
+        PartialView(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph,
+                    TreeItem<String> root, CallGraphLayout layout) {
+            this.graph = graph;
+            this.root = root;
+            this.layout = layout;
+        }
+    }
+
+    // lot de fichiers terminés : arbre et graphe partiels refaits de temps en temps, hors du thread JavaFX
+    private void addPartialFacts(List<FileFacts> batch) {
+        if (!loading) return;
+        partialFacts.addAll(batch);
+
+        long now = System.currentTimeMillis();
+        if (partialTask != null || now - lastPartialRedraw < PARTIAL_REDRAW_MILLIS) return;
+        lastPartialRedraw = now;
+        List<FileFacts> facts = new ArrayList<>(partialFacts);
+        // une classe ou une méthode sélectionnée reste affichée : pas de disposition du graphe entier
+        TreeItem<String> selected = treeView.getSelectionModel().getSelectedItem();
+        boolean wholeGraph = selected == null || selected == treeView.getRoot();
+        int generation = partialGeneration;
+        Task<PartialView> task = new Task<>() {
+            @Override
+            protected PartialView call() {
+                Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph = SpoonParser.buildGraph(facts);
+                TreeItem<String> root = ProjectTreeItem.root(graph, ProjectTreeItem.packagesOf(facts));
+                return new PartialView(graph, root, wholeGraph ? CallGraphLayout.columns(graph) : null);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (task != partialTask) return;
+            partialTask = null;
+            if (!loading || generation != partialGeneration) return;
+            PartialView view = task.getValue();
+            projectGraph = view.graph;
+            setTreeRoot(view.root);
+            TreeItem<String> current = treeView.getSelectionModel().getSelectedItem();
+            if (view.layout != null && (current == null || current == treeView.getRoot())) {
+                drawGraph(view.graph, view.layout);
+            }
+        });
+        task.setOnFailed(e -> {
+            if (task == partialTask) partialTask = null;
+            System.err.println("Erreur du graphe partiel : " + task.getException().getMessage());
+        });
+        partialTask = task;
+        partialExecutor.execute(task);
+    }
+
+    /**
+     * Graphe d'appels relu depuis un instantané d'analyse (projection mémoire, sans Spoon).
+     */
+    private void openSnapshot(Stage stage) {
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Ouvrir un instantané d'analyse");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("Instantané", "*" + AnalysisSnapshot.EXTENSION));
+        File f = fc.showOpenDialog(stage);
+        if (f == null) return;
+        analysisService.cancel();
+        try {
+            long start = System.nanoTime();
+            AnalysisSnapshot snapshot = AnalysisSnapshot.open(f);
+            projectGraph = snapshot.toCallGraph().asMap();
+            Map<String, String> packages = new HashMap<>();
+            for (int t = 0; t < snapshot.getTypeCount(); t++) {
+                if (snapshot.isClass(t)) packages.putIfAbsent(snapshot.typeSimpleName(t), snapshot.typePackage(t));
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            treeView.getSelectionModel().clearSelection();  // autre projet : rien à reporter
+            buildTreeFromProject(projectGraph, packages);
+            layoutAndDrawGraph(projectGraph);
+            statusLabel.setText("Instantané chargé en " + millis + " ms : " + snapshot.getProjectPath());
+        } catch (IOException ex) {
+            showAlert("Erreur", "Impossible de lire l'instantané : " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Instantané du projet courant (faits des fichiers non reparsés relus depuis le cache disque).
+     */
+    private void saveSnapshot(Stage stage) {
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Enregistrer un instantané d'analyse");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("Instantané", "*" + AnalysisSnapshot.EXTENSION));
+        File f = fc.showSaveDialog(stage);
+        if (f == null) return;
+        File source = new File(SpoonParser.projectSourcePath);
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                Platform.runLater(() -> statusLabel.setText("Écriture de l'instantané..."));
+                AnalysisSnapshot.create(source, f);
+                Platform.runLater(() -> statusLabel.setText("Instantané écrit : " + f.getAbsolutePath()));
+                return null;
+            }
+        };
+        task.setOnFailed(e -> showAlert("Erreur", "Impossible d'écrire l'instantané : " + task.getException().getMessage()));
+        new Thread(task).start();
+    }
+
     // --- DRAW GRAPH METHODS ---
     private void layoutAndDrawSubGraph(String className, String methodName) {
+        cancelForceLayout();
+        showNodeView();
         graphPane.getChildren().clear();
         nodeMap.clear();
 
         if (className == null && methodName == null) return;
 
-        double startX = 140;
-        double startY = 180;
-
-        if (className != null) {
-            Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = projectGraph.get(className);
-            if (methods == null) return;
-
-            VisualNode clsNode = createVisualNode(className, startX, startY, CLASS_RADIUS, NodeType.CLASS);
-            nodeMap.put(className, clsNode);
-            graphPane.getChildren().addAll(clsNode.view(), clsNode.label);
-
-            int mIdx = 0;
-            double methodX = startX + NODE_SPACING_X;
-            double methodYStart = startY - (methods.size() - 1) * (NODE_SPACING_Y / 2.0);
-            for (String m : methods.keySet()) {
-                if (methodName != null && !m.equals(methodName)) continue;
-                double methodY = methodYStart + mIdx * NODE_SPACING_Y;
-                VisualNode methodNode = createVisualNode(m, methodX, methodY, METHOD_RADIUS, NodeType.METHOD);
-                nodeMap.put(m, methodNode);
-                graphPane.getChildren().addAll(methodNode.view(), methodNode.label);
-
-                drawArrow(clsNode.getCenterX(), clsNode.getCenterY(), methodNode.getCenterX(), methodNode.getCenterY(), Color.DARKGRAY, CLASS_RADIUS, METHOD_RADIUS);
-
-                List<SpoonClassMethodCallVisitor.MethodCall> calls = methods.get(m);
-                double callX = methodNode.getCenterX() + NODE_SPACING_X;
-                double callYStart = methodNode.getCenterY() - (calls.size() - 1) * (NODE_SPACING_Y / 2.0);
-                for (int j = 0; j < calls.size(); j++) {
-                    SpoonClassMethodCallVisitor.MethodCall call = calls.get(j);
-                    double callY = callYStart + j * NODE_SPACING_Y;
-                    VisualNode target = nodeMap.get(call.name);
-                    if (target == null) {
-                        target = createVisualNode(call.name, callX, callY, METHOD_RADIUS, NodeType.EXTERNAL);
-                        nodeMap.put(call.name, target);
-                        graphPane.getChildren().addAll(target.view(), target.label);
-                    }
-                    drawArrow(methodNode.getCenterX(), methodNode.getCenterY(), target.getCenterX(), target.getCenterY(), Color.LIGHTBLUE, METHOD_RADIUS, target.radius);
-                }
-                mIdx++;
-            }
-        } else if (methodName != null) {
+        if (className == null) {
             for (String cls : projectGraph.keySet()) {
-                Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = projectGraph.get(cls);
-                if (methods.containsKey(methodName)) {
-                    layoutAndDrawSubGraph(cls, methodName);
+                if (projectGraph.get(cls).containsKey(methodName)) {
+                    className = cls;
                     break;
                 }
             }
+            if (className == null) return;
         }
+        Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = projectGraph.get(className);
+        if (methods == null) return;
 
-        addLegend(centerStack);
+        Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> shown = new LinkedHashMap<>();
+        for (Map.Entry<String, List<SpoonClassMethodCallVisitor.MethodCall>> m : methods.entrySet()) {
+            if (methodName == null || m.getKey().equals(methodName)) shown.put(m.getKey(), m.getValue());
+        }
+        CallGraphLayout layout = CallGraphLayout.columns(Collections.singletonMap(className, shown));
+        drawNodeView(layout);
+        startForceLayout(layout, false);
     }
 
     private void layoutAndDrawGraph(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph) {
+        drawGraph(graph, CallGraphLayout.columns(graph));
+    }
+
+    // layout : disposition en colonnes de graph, éventuellement calculée hors du thread JavaFX
+    private void drawGraph(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph,
+                           CallGraphLayout layout) {
+        cancelForceLayout();
         graphPane.getChildren().clear();
         nodeMap.clear();
 
-        double startX = 140;
-        double startY = 180;
-        double classSpacingY = Math.max(120, NODE_SPACING_Y);
-
-        int idx = 0;
-        for (String className : graph.keySet()) {
-            double classY = startY + idx * classSpacingY;
-            VisualNode classNode = createVisualNode(className, startX, classY, CLASS_RADIUS, NodeType.CLASS);
-            nodeMap.put(className, classNode);
-            graphPane.getChildren().addAll(classNode.view(), classNode.label);
-            idx++;
+        // l'ordre des nœuds ne dépend que du graphe : l'index reste valable pour ses dispositions suivantes
+        if (graph != indexedGraph) {
+            if (loading) clearSearchIndex();
+            else buildSearchIndex(graph, layout);
         }
+        if (canvasMode.isSelected() || layout.nodeCount > CANVAS_NODE_THRESHOLD) {
+            // un nœud JavaFX par élément ne tient pas à cette taille : rendu Canvas virtualisé
+            graphCanvas.setLayout(layout);
+            graphCanvas.setMatches(searchMatches);
+            mainRoot.setCenter(canvasStack);
+            canvasActive = true;
+            statusLabel.setText("Rendu Canvas : " + layout.nodeCount + " nœuds, " + layout.edgeCount + " arêtes");
+            startForceLayout(layout, true);
+            return;
+        }
+        showNodeView();
+        drawNodeView(layout);
+        startForceLayout(layout, false);
+    }
 
-        for (String className : graph.keySet()) {
-            VisualNode cls = nodeMap.get(className);
-            Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = graph.get(className);
-            int mIdx = 0;
-            double methodX = cls.getCenterX() + NODE_SPACING_X;
-            double methodYStart = cls.getCenterY() - (methods.size() - 1) * (NODE_SPACING_Y / 2.0);
-            for (String m : methods.keySet()) {
-                double methodY = methodYStart + mIdx * NODE_SPACING_Y;
-                VisualNode methodNode = nodeMap.get(m);
-                if (methodNode == null) {
-                    methodNode = createVisualNode(m, methodX, methodY, METHOD_RADIUS, NodeType.METHOD);
-                    nodeMap.put(m, methodNode);
-                    graphPane.getChildren().addAll(methodNode.view(), methodNode.label);
-                }
-                drawArrow(cls.getCenterX(), cls.getCenterY(), methodNode.getCenterX(), methodNode.getCenterY(), Color.DARKGRAY, cls.radius, methodNode.radius);
-
-                List<SpoonClassMethodCallVisitor.MethodCall> calls = methods.get(m);
-                double callX = methodNode.getCenterX() + NODE_SPACING_X;
-                double callYStart = methodNode.getCenterY() - (calls.size() - 1) * (NODE_SPACING_Y / 2.0);
-                for (int j = 0; j < calls.size(); j++) {
-                    SpoonClassMethodCallVisitor.MethodCall call = calls.get(j);
-                    double callY = callYStart + j * NODE_SPACING_Y;
-                    VisualNode target = nodeMap.get(call.name);
-                    if (target == null) {
-                        target = createVisualNode(call.name, callX, callY, METHOD_RADIUS, NodeType.EXTERNAL);
-                        nodeMap.put(call.name, target);
-                        graphPane.getChildren().addAll(target.view(), target.label);
-                    }
-                    drawArrow(methodNode.getCenterX(), methodNode.getCenterY(), target.getCenterX(), target.getCenterY(), Color.LIGHTBLUE, methodNode.radius, target.radius);
-                }
-                mIdx++;
-            }
+    private void drawNodeView(CallGraphLayout layout) {
+        graphPane.getChildren().clear();
+        nodeMap.clear();
+        drawnLayout = layout;
+        drawnNodes = new VisualNode[layout.nodeCount];
+        for (int i = 0; i < layout.nodeCount; i++) {
+            NodeType type = layout.type[i] == CallGraphLayout.CLASS ? NodeType.CLASS
+                    : layout.type[i] == CallGraphLayout.METHOD ? NodeType.METHOD : NodeType.EXTERNAL;
+            VisualNode node = createVisualNode(layout.names[i], layout.x[i], layout.y[i], layout.radius[i], type);
+            drawnNodes[i] = node;
+            nodeMap.put(layout.names[i], node);
+        }
+        edgeLines = new Line[layout.edgeCount];
+        edgeHeads = new Polygon[layout.edgeCount];
+        for (int e = 0; e < layout.edgeCount; e++) {
+            Color color = layout.edgeKind[e] == CallGraphLayout.STRUCTURE ? Color.DARKGRAY : Color.LIGHTBLUE;
+            edgeLines[e] = new Line();
+            edgeLines[e].setStroke(color);
+            edgeLines[e].setStrokeWidth(2);
+            edgeHeads[e] = new Polygon();
+            edgeHeads[e].setFill(color);
+            placeEdge(e);
+            graphPane.getChildren().addAll(edgeLines[e], edgeHeads[e]);
         }
+        for (VisualNode node : nodeMap.values()) graphPane.getChildren().addAll(node.view(), node.label);
+        applySearchMatches();
 
         addLegend(centerStack);
     }
 
+    // image ForceLayout : seules les coordonnées des formes changent ; un nœud déplacé à la souris garde sa place
+    private void moveNodeView(CallGraphLayout layout) {
+        for (int i = 0; i < layout.nodeCount; i++) {
+            if (!drawnNodes[i].pinned) drawnNodes[i].relocateTo(layout.x[i], layout.y[i]);
+        }
+        placeEdges();
+    }
+
+    // --- FORCE LAYOUT ---
+    /**
+     * Lance ForceLayout sur un thread à part ; la disposition en colonnes reste affichée en attendant.
+     * Les images arrivent plus vite que la vue ne se redessine : seule la plus récente est appliquée.
+     */
+    private void startForceLayout(CallGraphLayout layout, boolean onCanvas) {
+        if (loading || !forceMode.isSelected() || layout.nodeCount < 2) return;
+        ForceLayout force = new ForceLayout(layout);
+        AtomicReference<ForceLayout.Frame> pending = new AtomicReference<>();
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() {
+                force.run(this::isCancelled, frame -> {
+                    if (pending.getAndSet(frame) == null) {
+                        Platform.runLater(() -> applyFrame(this, layout, onCanvas, pending.getAndSet(null)));
+                    }
+                });
+                return null;
+            }
+        };
+        task.setOnFailed(e -> statusLabel.setText("Disposition par forces interrompue : " + task.getException().getMessage()));
+        layoutTask = task;
+        Thread thread = new Thread(task, "force-layout");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void cancelForceLayout() {
+        if (layoutTask != null) layoutTask.cancel();
+        layoutTask = null;
+    }
+
+    private void applyFrame(Task<Void> task, CallGraphLayout layout, boolean onCanvas, ForceLayout.Frame frame) {
+        if (task != layoutTask || frame == null) return; // disposition remplacée entre-temps
+        layout.moveTo(frame.x, frame.y);
+        if (onCanvas) graphCanvas.positionsChanged();
+        else if (layout == drawnLayout) moveNodeView(layout);
+        else drawNodeView(layout);
+        statusLabel.setText(frame.isLast()
+                ? "Disposition par forces : " + layout.nodeCount + " nœuds en " + frame.nanos / 1_000_000 + " ms"
+                : "Disposition par forces : itération " + frame.iteration + " / " + frame.iterations);
+    }
+
+    // vue à nœuds JavaFX (sous-graphes, petits projets)
+    private void showNodeView() {
+        if (!canvasActive) return;
+        canvasActive = false;
+        mainRoot.setCenter(scrollPane);
+    }
+
     // --- ADD LEGEND ---
     private void addLegend(StackPane centerStack) {
         if (legendAdded) return;
+        centerStack.getChildren().add(createLegend());
+        legendAdded = true;
+    }
 
+    private HBox createLegend() {
         HBox leg = new HBox(12);
         leg.setPadding(new Insets(10));
         leg.setBackground(Background.EMPTY);
@@ -314,9 +594,9 @@ public class SpoonCallGraphGUI extends Application {
 
         StackPane.setMargin(leg, new Insets(20));
         StackPane.setAlignment(leg, Pos.TOP_LEFT);
-
-        centerStack.getChildren().add(leg);
-        legendAdded = true;
+        leg.setMouseTransparent(true);
+        leg.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        return leg;
     }
 
     // --- PAN & ZOOM ---
@@ -356,16 +636,72 @@ public class SpoonCallGraphGUI extends Application {
         graphPane.setScaleY(scale);
     }
 
-    private void applySearch(String text) {
-        if (text == null || text.isEmpty()) {
-            nodeMap.values().forEach(n -> n.view().setOpacity(1.0));
+    // --- SEARCH ---
+    private void buildSearchIndex(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph,
+                                  CallGraphLayout layout) {
+        clearSearchIndex();
+        indexedGraph = graph;
+        int generation = searchGeneration;
+        String[] names = Arrays.copyOf(layout.names, layout.nodeCount);
+        Task<NameIndex> task = new Task<>() {
+            @Override
+            protected NameIndex call() {
+                return new NameIndex(names, names.length);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (generation != searchGeneration || graph != indexedGraph) return;
+            searchIndex = task.getValue();
+            runSearch();
+        });
+        task.setOnFailed(e -> statusLabel.setText("Index de recherche indisponible : " + task.getException().getMessage()));
+        searchExecutor.execute(task);
+    }
+
+    private void clearSearchIndex() {
+        indexedGraph = null;
+        searchIndex = null;
+        searchMatches = null;
+        searchGeneration++;
+    }
+
+    private void runSearch() {
+        NameIndex index = searchIndex;
+        if (index == null) return; // relancée à la fin de la construction de l'index
+        String text = searchField.getText();
+        int generation = ++searchGeneration;
+        Task<BitSet> task = new Task<>() {
+            @Override
+            protected BitSet call() {
+                return index.search(text);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (generation != searchGeneration || index != searchIndex) return; // requête dépassée
+            searchMatches = task.getValue();
+            applySearchMatches();
+            if (searchMatches != null) {
+                statusLabel.setText("Recherche « " + text.trim() + " » : " + searchMatches.cardinality() + " résultat(s)");
+            }
+        });
+        searchExecutor.execute(task);
+    }
+
+    // seuls les nœuds affichés sont estompés ; le Canvas ne dessine de toute façon que la zone visible
+    private void applySearchMatches() {
+        if (canvasActive) {
+            graphCanvas.setMatches(searchMatches);
             return;
         }
-        String lower = text.toLowerCase();
-        nodeMap.values().forEach(n -> n.view().setOpacity(n.name.toLowerCase().contains(lower) ? 1.0 : 0.2));
+        for (VisualNode n : nodeMap.values()) {
+            int id = searchIndex == null ? -1 : searchIndex.idOf(n.name);
+            boolean match = searchMatches == null || (id >= 0 && searchMatches.get(id));
+            n.view().setOpacity(match ? 1.0 : 0.2);
+        }
     }
 
     private void resetView() {
+        graphCanvas.resetView();
         graphPane.setTranslateX(0);
         graphPane.setTranslateY(0);
         scale = 1.0;
@@ -373,19 +709,37 @@ public class SpoonCallGraphGUI extends Application {
         graphPane.setScaleY(scale);
     }
 
-    private void exportDot(Stage stage) {
+    /**
+     * Export en flux (CallGraphExporter) : format d'après l'extension choisie, .gz pour compresser.
+     */
+    private void exportGraph(Stage stage) {
         FileChooser fc = new FileChooser();
-        fc.setTitle("Exporter graphe en .dot");
-        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichier DOT", "*.dot"));
-        File f = fc.showSaveDialog(stage);
-        if (f != null) {
-            try (FileWriter writer = new FileWriter(f)) {
-                writer.write(SpoonParser.exportGraphToDot(projectGraph));
-                showAlert("Export réussi", "Fichier .dot généré : " + f.getAbsolutePath());
-            } catch (IOException ex) {
-                showAlert("Erreur", "Impossible d'écrire le fichier .dot : " + ex.getMessage());
-            }
+        fc.setTitle("Exporter le graphe");
+        for (CallGraphExporter.Format format : CallGraphExporter.Format.values()) {
+            String ext = format.getExtension();
+            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter(format.name() + " (" + ext + ", " + ext + ".gz)",
+                    "*" + ext, "*" + ext + ".gz"));
         }
+        File chosen = fc.showSaveDialog(stage);
+        if (chosen == null) return;
+        FileChooser.ExtensionFilter filter = fc.getSelectedExtensionFilter();
+        String ext = filter != null ? filter.getExtensions().get(0).substring(1) : CallGraphExporter.Format.DOT.getExtension();
+        File f = CallGraphExporter.Format.ofFileName(chosen.getName()) != null ? chosen : new File(chosen.getPath() + ext);
+        Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph = projectGraph;
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                CallGraphExporter.export(CallGraph.of(graph), f);
+                return null;
+            }
+        };
+        task.setOnRunning(e -> statusLabel.setText("Export en cours : " + f.getName()));
+        task.setOnSucceeded(e -> {
+            statusLabel.setText("Graphe exporté : " + f.getAbsolutePath());
+            showAlert("Export réussi", "Fichier généré : " + f.getAbsolutePath());
+        });
+        task.setOnFailed(e -> showAlert("Erreur", "Impossible d'écrire le fichier : " + task.getException().getMessage()));
+        new Thread(task).start();
     }
 
     private void showAlert(String title, String msg) {
@@ -406,6 +760,8 @@ public class SpoonCallGraphGUI extends Application {
         Rectangle view;
         Text label;
         double dragOffsetX, dragOffsetY;
+        // déplacé à la souris : ForceLayout ne le replace plus
+        boolean pinned;
 
         VisualNode(String name, double x, double y, double r, NodeType type) {
             this.name = name;
@@ -452,7 +808,9 @@ public class SpoonCallGraphGUI extends Application {
      node.view.setOnMouseDragged(e -> {
          double newX = e.getX() - node.dragOffsetX;
          double newY = e.getY() - node.dragOffsetY;
+         node.pinned = true;
          node.relocateTo(newX, newY);
+         placeEdges();
      });
      node.view.setOnMouseReleased(e -> node.view.setCursor(Cursor.HAND));
 
@@ -460,60 +818,69 @@ public class SpoonCallGraphGUI extends Application {
  }
 
  // ---------------------------
- // Dessiner une flèche entre deux points
+ // Placer les flèches entre les nœuds dessinés
  // ---------------------------
- private void drawArrow(double startX, double startY, double endX, double endY, Color color, double startRadius, double endRadius) {
+ private void placeEdges() {
+     for (int e = 0; e < edgeLines.length; e++) placeEdge(e);
+ }
+
+ private void placeEdge(int e) {
+     VisualNode from = drawnNodes[drawnLayout.edgeFrom[e]];
+     VisualNode to = drawnNodes[drawnLayout.edgeTo[e]];
      // Calculer direction et réduire pour rayon
-     double dx = endX - startX;
-     double dy = endY - startY;
+     double dx = to.x - from.x;
+     double dy = to.y - from.y;
      double len = Math.sqrt(dx * dx + dy * dy);
+     edgeLines[e].setVisible(len > 0);
+     edgeHeads[e].setVisible(len > 0);
      if (len == 0) return;
 
-     double ratioStart = startRadius / len;
-     double ratioEnd = endRadius / len;
+     double ratioStart = from.radius / len;
+     double ratioEnd = to.radius / len;
 
-     double sx = startX + dx * ratioStart;
-     double sy = startY + dy * ratioStart;
-     double ex = endX - dx * ratioEnd;
-     double ey = endY - dy * ratioEnd;
+     double sx = from.x + dx * ratioStart;
+     double sy = from.y + dy * ratioStart;
+     double ex = to.x - dx * ratioEnd;
+     double ey = to.y - dy * ratioEnd;
 
-     Line line = new Line(sx, sy, ex, ey);
-     line.setStroke(color);
-     line.setStrokeWidth(2);
+     Line line = edgeLines[e];
+     line.setStartX(sx);
+     line.setStartY(sy);
+     line.setEndX(ex);
+     line.setEndY(ey);
 
      // Flèche
      double arrowSize = 10;
      double angle = Math.atan2(ey - sy, ex - sx);
-     Polygon arrowHead = new Polygon();
-     arrowHead.getPoints().addAll(
+     edgeHeads[e].getPoints().setAll(
              ex, ey,
              ex - arrowSize * Math.cos(angle - Math.PI / 6),
              ey - arrowSize * Math.sin(angle - Math.PI / 6),
              ex - arrowSize * Math.cos(angle + Math.PI / 6),
              ey - arrowSize * Math.sin(angle + Math.PI / 6)
      );
-     arrowHead.setFill(color);
-
-     graphPane.getChildren().addAll(line, arrowHead);
  }
 
  // ---------------------------
  // Construire le TreeView à partir du graphe du projet
  // ---------------------------
- private void buildTreeFromProject(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph) {
-     TreeItem<String> root = new TreeItem<>("Projet");
-     root.setExpanded(true);
+ private void buildTreeFromProject(Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph,
+                                   Map<String, String> packages) {
+     setTreeRoot(ProjectTreeItem.root(graph, packages));
+ }
 
-     for (String cls : graph.keySet()) {
-         TreeItem<String> clsItem = new TreeItem<>("Classe : " + cls);
-         Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methods = graph.get(cls);
-         for (String m : methods.keySet()) {
-             TreeItem<String> mItem = new TreeItem<>("Méthode : " + m);
-             clsItem.getChildren().add(mItem);
-         }
-         root.getChildren().add(clsItem);
+ // éléments créés au dépliage ; les éléments dépliés et la sélection de l'arbre précédent sont conservés
+ private void setTreeRoot(TreeItem<String> root) {
+     TreeItem<String> selected = treeView.getSelectionModel().getSelectedItem();
+     ProjectTreeItem.copyExpansion(treeView.getRoot(), root);
+     TreeItem<String> reselect = ProjectTreeItem.samePath(selected, root);
+     restoringSelection = true;
+     try {
+         treeView.setRoot(root);
+         if (reselect != null) treeView.getSelectionModel().select(reselect);
+     } finally {
+         restoringSelection = false;
      }
-     treeView.setRoot(root);
  }
 
  // ---------------------------
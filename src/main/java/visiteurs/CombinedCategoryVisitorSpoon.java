@@ -10,4 +10,8 @@ public class CombinedCategoryVisitorSpoon {
         result.retainAll(topAttributes);
         return result;
     }
+
+    public Set<String> analyze(MetricsReport report) {
+        return report.getCombinedTopClasses();
+    }
 }
@@ -0,0 +1,21 @@
+package visiteurs;
+
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtPackage;
+
+/**
+ * Indicateur branché sur le MetricsScanner : reçoit chaque élément pertinent
+ * lors de l'unique parcours de l'AST et accumule sa propre valeur.
+ */
+public interface MetricAccumulator {
+
+    default void visitPackage(CtPackage pkg) {
+    }
+
+    default void visitClass(CtClass<?> cls) {
+    }
+
+    default void visitMethod(CtMethod<?> method) {
+    }
+}
@@ -0,0 +1,196 @@
+package visiteurs;
+
+import analyse.LineCounter;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtPackage;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Résultat des 13 indicateurs calculés en un seul parcours du modèle (MetricsScanner).
+ * Les visiteurs *VisitorSpoon ne sont plus que des vues sur ce rapport : ils ne prennent qu'un rapport,
+ * calculé une fois par l'appelant pour tous les indicateurs (un parcours du modèle par visiteur sinon).
+ * Le rapport référence des éléments de l'AST (méthodes les plus longues) : il vit aussi longtemps
+ * que son appelant le garde, jamais plus.
+ */
+public class MetricsReport {
+
+    private final ClassTable classes = new ClassTable();
+    private final MethodStats methods = new MethodStats();
+    private final PackageCount packages = new PackageCount();
+
+    private MetricsReport() {
+    }
+
+    /**
+     * Rapport du modèle, recalculé à chaque appel : aucun cache statique, un rapport garde des CtMethod
+     * et donc tout le modèle. Pour plusieurs indicateurs sur un même modèle, calculer le rapport une fois
+     * et le passer à chacun des visiteurs.
+     */
+    public static MetricsReport of(CtModel model) {
+        return build(model);
+    }
+
+    /**
+     * Calcule un nouveau rapport ; des accumulateurs supplémentaires peuvent profiter du même parcours.
+     */
+    public static MetricsReport build(CtModel model, MetricAccumulator... extra) {
+        MetricsReport report = new MetricsReport();
+        MetricsScanner scanner = new MetricsScanner()
+                .add(report.classes)
+                .add(report.methods)
+                .add(report.packages);
+        for (MetricAccumulator acc : extra) scanner.add(acc);
+        scanner.scan(model);
+        return report;
+    }
+
+    // ---------- Les 13 indicateurs ----------
+
+    /** 1. Nombre de classes */
+    public int getClassCount() {
+        return classes.entries.size();
+    }
+
+    /** 2. Nombre de lignes de code (somme des lignes des classes) */
+    public int getLineCount() {
+        return classes.totalLines;
+    }
+
+    /** 3. Nombre de méthodes */
+    public int getMethodCount() {
+        return methods.count;
+    }
+
+    /** 4. Nombre de packages */
+    public int getPackageCount() {
+        return packages.count;
+    }
+
+    /** 5. Nombre moyen de méthodes par classe */
+    public double getAvgMethodsPerClass() {
+        if (classes.entries.isEmpty()) return 0;
+        return (double) classes.totalMethods / classes.entries.size();
+    }
+
+    /** 6. Nombre moyen de lignes par méthode */
+    public double getAvgLinesPerMethod() {
+        return methods.count == 0 ? 0 : (double) methods.totalLines / methods.count;
+    }
+
+    /** 7. Nombre moyen d'attributs par classe */
+    public double getAvgAttributesPerClass() {
+        if (classes.entries.isEmpty()) return 0;
+        return (double) classes.totalFields / classes.entries.size();
+    }
+
+    /** 8. Les 10% des classes ayant le plus de méthodes */
+    public List<String> getTopMethodClasses() {
+        return topTenPercent(Comparator.comparingInt((ClassEntry c) -> c.methodCount).reversed());
+    }
+
+    /** 9. Les 10% des classes ayant le plus d'attributs */
+    public List<String> getTopAttributeClasses() {
+        return topTenPercent(Comparator.comparingInt((ClassEntry c) -> c.fieldCount).reversed());
+    }
+
+    /** 10. Classes présentes dans les deux catégories précédentes */
+    public Set<String> getCombinedTopClasses() {
+        Set<String> result = new HashSet<>(getTopMethodClasses());
+        result.retainAll(getTopAttributeClasses());
+        return result;
+    }
+
+    /** 11. Classes ayant plus de x méthodes */
+    public List<String> getClassesWithMoreThan(int x) {
+        return classes.entries.stream()
+                .filter(c -> c.methodCount > x)
+                .map(c -> c.qualifiedName)
+                .collect(Collectors.toList());
+    }
+
+    /** 12. Les 10% des méthodes les plus longues de chaque classe */
+    public Map<String, List<CtMethod<?>>> getLongestMethodsPerClass() {
+        Map<String, List<CtMethod<?>>> result = new HashMap<>();
+        for (ClassEntry c : classes.entries) {
+            if (c.methods.isEmpty()) continue;
+            int limit = Math.max(1, (int) Math.ceil(c.methods.size() * 0.1));
+            List<CtMethod<?>> top = c.methods.stream()
+                    .sorted((m1, m2) -> Integer.compare(LineCounter.lines(m2), LineCounter.lines(m1)))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            result.put(c.qualifiedName, top);
+        }
+        return result;
+    }
+
+    /** 13. Nombre maximal de paramètres d'une méthode */
+    public int getMaxParameters() {
+        return methods.maxParameters;
+    }
+
+    private List<String> topTenPercent(Comparator<ClassEntry> order) {
+        int topCount = Math.max(1, (int) Math.ceil(classes.entries.size() * 0.1));
+        return classes.entries.stream()
+                .sorted(order)
+                .limit(topCount)
+                .map(c -> c.qualifiedName)
+                .collect(Collectors.toList());
+    }
+
+    // ---------- Accumulateurs ----------
+
+    private static class ClassEntry {
+        final String qualifiedName;
+        final int methodCount;
+        final int fieldCount;
+        final Collection<CtMethod<?>> methods;
+
+        ClassEntry(CtClass<?> cls) {
+            this.qualifiedName = cls.getQualifiedName();
+            this.methods = cls.getMethods();
+            this.methodCount = methods.size();
+            this.fieldCount = cls.getFields().size();
+        }
+    }
+
+    /** Table des classes : effectifs, lignes, méthodes et attributs par classe */
+    private static class ClassTable implements MetricAccumulator {
+        final List<ClassEntry> entries = new ArrayList<>();
+        int totalLines, totalMethods, totalFields;
+
+        @Override
+        public void visitClass(CtClass<?> cls) {
+            ClassEntry entry = new ClassEntry(cls);
+            entries.add(entry);
+            totalLines += LineCounter.lines(cls);
+            totalMethods += entry.methodCount;
+            totalFields += entry.fieldCount;
+        }
+    }
+
+    /** Nombre de méthodes, lignes cumulées et maximum de paramètres */
+    private static class MethodStats implements MetricAccumulator {
+        int count, totalLines, maxParameters;
+
+        @Override
+        public void visitMethod(CtMethod<?> method) {
+            count++;
+            totalLines += LineCounter.lines(method);
+            maxParameters = Math.max(maxParameters, method.getParameters().size());
+        }
+    }
+
+    /** Nombre de packages (package racine compris, comme CtModel.getAllPackages) */
+    private static class PackageCount implements MetricAccumulator {
+        int count;
+
+        @Override
+        public void visitPackage(CtPackage pkg) {
+            count++;
+        }
+    }
+}
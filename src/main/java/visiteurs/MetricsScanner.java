@@ -0,0 +1,47 @@
+package visiteurs;
+
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parcours unique de l'AST Spoon : chaque élément est distribué à tous les accumulateurs enregistrés.
+ * Remplace les appels répétés à model.getElements(new TypeFilter<>(...)) des visiteurs.
+ */
+public class MetricsScanner extends CtScanner {
+
+    private final List<MetricAccumulator> accumulators = new ArrayList<>();
+
+    public MetricsScanner add(MetricAccumulator accumulator) {
+        accumulators.add(accumulator);
+        return this;
+    }
+
+    /**
+     * Parcourt tout le modèle (mêmes éléments, même ordre que CtModel.getElements).
+     */
+    public void scan(CtModel model) {
+        scan(model.getAllModules());
+    }
+
+    @Override
+    protected void enter(CtElement e) {
+        // instanceof plutôt que visitCtClass : CtEnum et CtRecord sont aussi des CtClass
+        if (e instanceof CtClass) {
+            CtClass<?> cls = (CtClass<?>) e;
+            for (MetricAccumulator acc : accumulators) acc.visitClass(cls);
+        } else if (e instanceof CtMethod) {
+            CtMethod<?> method = (CtMethod<?>) e;
+            for (MetricAccumulator acc : accumulators) acc.visitMethod(method);
+        } else if (e instanceof CtPackage) {
+            CtPackage pkg = (CtPackage) e;
+            for (MetricAccumulator acc : accumulators) acc.visitPackage(pkg);
+        }
+    }
+}
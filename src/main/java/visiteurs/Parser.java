@@ -1,10 +1,9 @@
 package visiteurs;
 
-import spoon.Launcher;
-import spoon.reflect.CtModel;
-import spoon.reflect.code.CtBlock;
-import spoon.reflect.declaration.*;
-import spoon.reflect.visitor.filter.TypeFilter;
+import analyse.AnalysisSession;
+import analyse.FileMetrics;
+import analyse.ParallelFileAnalyzer;
+import analyse.ProjectMetrics;
 
 import java.io.File;
 import java.util.*;
@@ -27,87 +26,28 @@ public class Parser {
         // --- Récupération de tous les fichiers .java ---
         List<File> javaFiles = listJavaFilesForFolder(new File(projectSourcePath));
 
+        // --- Analyse : un modèle Spoon pour tous les fichiers, faits fusionnés par fichier ---
+        ProjectMetrics project = new ParallelFileAnalyzer().analyze(javaFiles);
+
         // Compteurs globaux
-        int totalClasses = 0;
-        int totalMethods = 0;
-        int totalLines = 0;
-        int totalPackages = 0;
+        int totalClasses = project.getTotalClasses();
+        int totalMethods = project.getTotalMethods();
+        int totalLines = project.getTotalLines();
+        int totalPackages = project.getTotalPackages();  // <-- Nombre de packages globaux
 
-        int totalFields = 0;
+        int totalFields = project.getTotalFields();
 
-        Map<String, Integer> classMethodMap = new HashMap<>();
-        Map<String, Integer> classAttrMap = new HashMap<>();
-        Map<String, Integer> methodLengthMap = new HashMap<>();
-        int maxParameters = 0;
-        
-        // Avant la boucle sur les fichiers
-        Launcher launcherGlobal = new Launcher();
-        launcherGlobal.addInputResource(projectSourcePath);
-        launcherGlobal.getEnvironment().setNoClasspath(true);
-        launcherGlobal.buildModel();
-
-        CtModel globalModel = launcherGlobal.getModel();
-
-        // Récupérer le nombre de packages distincts
-        Set<String> allPackages = globalModel.getAllPackages().stream()
-                .map(CtPackage::getQualifiedName)
-                .collect(Collectors.toSet());
-
-        totalPackages = allPackages.size()-1;  // <-- Nombre de packages globaux
-
-
-        for (File file : javaFiles) {
-            // Charger le fichier dans Spoon
-            Launcher launcher = new Launcher();
-            launcher.addInputResource(file.getAbsolutePath());
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.buildModel();
-
-            CtModel model = launcher.getModel();
-
-            // Classes du fichier
-            List<CtClass<?>> classes = model.getElements(new TypeFilter<>(CtClass.class));
-            List<CtMethod<?>> methods = model.getElements(new TypeFilter<>(CtMethod.class));
-
-            // Calculs locaux
-            int fileClassCount = classes.size();
-            int fileMethodCount = methods.size();
-            int fileLineCount = classes.stream().mapToInt(c -> c.toString().split("\n").length).sum();
-            int fileAttrCount = classes.stream().mapToInt(c -> c.getFields().size()).sum();
-            
-
-            totalClasses += fileClassCount;
-            totalMethods += fileMethodCount;
-            totalLines += fileLineCount;
-           
-            totalFields += fileAttrCount;
-
-            // Moyennes par fichier
-            double avgMethodsPerClass = fileClassCount == 0 ? 0 : (double) fileMethodCount / fileClassCount;
-            double avgAttrPerClass = fileClassCount == 0 ? 0 : (double) fileAttrCount / fileClassCount;
-            double avgLinesPerMethod = methods.isEmpty() ? 0 :
-                    methods.stream()
-                            .filter(m -> m.getBody() != null)
-                            .mapToInt(Parser::getMethodLength)
-                            .average().orElse(0);
-
-            // Top 10% classes par méthodes / attributs
-            for (CtClass<?> c : classes) {
-                classMethodMap.put(c.getSimpleName(), c.getMethods().size());
-                classAttrMap.put(c.getSimpleName(), c.getFields().size());
-            }
-
-            // Méthodes longues
-            for (CtMethod<?> m : methods) {
-                methodLengthMap.put(m.getSimpleName(), getMethodLength(m));
-                maxParameters = Math.max(maxParameters, m.getParameters().size());
-            }
+        Map<String, Integer> classMethodMap = project.getMethodsPerClass();
+        Map<String, Integer> classAttrMap = project.getAttributesPerClass();
+        Map<String, Integer> methodLengthMap = project.getMethodLengths();
+        int maxParameters = project.getMaxParameters();
 
+        for (FileMetrics fm : project.getFiles()) {
             // === AFFICHAGE PAR FICHIER ===
-            System.out.println("Fichier analysé : " + file.getName());
-            System.out.println(" -> Nombre moyen de Méthodes par classe : " + avgMethodsPerClass);
-            System.out.println(" -> Nombre moyen de lignes de code par Méthode : " + avgLinesPerMethod);
-            System.out.println(" -> Nombre moyen d’Attributs par classe : " + avgAttrPerClass);
+            System.out.println("Fichier analysé : " + fm.getFileName());
+            System.out.println(" -> Nombre moyen de Méthodes par classe : " + fm.getAvgMethodsPerClass());
+            System.out.println(" -> Nombre moyen de lignes de code par Méthode : " + fm.getAvgLinesPerMethod());
+            System.out.println(" -> Nombre moyen d’Attributs par classe : " + fm.getAvgAttributesPerClass());
             System.out.println("===========================================");
         }
         
@@ -151,24 +91,13 @@ public class Parser {
     // ---------- MÉTHODES UTILITAIRES ----------
 
     public static List<File> listJavaFilesForFolder(final File folder) {
-        List<File> javaFiles = new ArrayList<>();
-        for (File fileEntry : Objects.requireNonNull(folder.listFiles())) {
-            if (fileEntry.isDirectory()) {
-                javaFiles.addAll(listJavaFilesForFolder(fileEntry));
-            } else if (fileEntry.getName().endsWith(".java")) {
-                javaFiles.add(fileEntry);
-            }
-        }
-        return javaFiles;
-    }
-
-    private static int getMethodLength(CtMethod<?> m) {
-        CtBlock<?> body = m.getBody();
-        if (body == null) return 0;
-        return body.toString().split("\n").length;
+        return AnalysisSession.listJavaFiles(Objects.requireNonNull(folder));
     }
 
-    private static List<String> topPercent(Map<String, Integer> map, int percent) {
+    /**
+     * Clés des percent % plus grandes valeurs (au moins une), par valeur décroissante.
+     */
+    public static List<String> topPercent(Map<String, Integer> map, int percent) {
         if (map.isEmpty()) return Collections.emptyList();
         int limit = Math.max(1, (int) Math.ceil(map.size() * percent / 100.0));
         return map.entrySet().stream()
@@ -0,0 +1,122 @@
+package webanalyzer.controller;
+
+import graph.CallGraphExporter;
+import webanalyzer.service.AnalysisJsonWriter;
+import webanalyzer.service.AnalysisMetrics;
+import webanalyzer.service.AnalysisResultCache;
+import webanalyzer.service.ProjectAnalysis;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Données volumineuses d'un projet déjà analysé, écrites en flux JSON compact directement dans la réponse
+ * (compression gzip : server.compression.* dans application.properties).
+ *
+ * GET /api/analysis/coupling/graph?path=...&minWeight=...&offset=...&limit=...
+ * GET /api/analysis/coupling/matrix?path=...&minWeight=...&offset=...&limit=...
+ * GET /api/analysis/dendrogram?path=...&offset=...&limit=...
+ * GET /api/analysis/callgraph?path=...&format=dot|graphml|jsonl&gzip=false   (CallGraphExporter, en pièce jointe)
+ */
+@RestController
+@RequestMapping("/api/analysis")
+public class AnalysisDataController {
+
+    private final AnalysisResultCache resultCache;
+    private final AnalysisMetrics metrics;
+    private final JsonFactory jsonFactory;
+
+    public AnalysisDataController(AnalysisResultCache resultCache, AnalysisMetrics metrics, ObjectMapper objectMapper) {
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @GetMapping("/coupling/graph")
+    public void couplingGraph(@RequestParam("path") String path,
+            @RequestParam(value = "minWeight", defaultValue = "0") double minWeight,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "0") int limit,
+            HttpServletResponse response) throws IOException {
+        ProjectAnalysis analysis = lookup(path, response);
+        if (analysis == null) return;
+        long start = System.nanoTime();
+        try (JsonGenerator gen = open(response)) {
+            AnalysisJsonWriter.writeCouplingGraph(gen, analysis.getCoupling(), minWeight, offset, limit);
+        }
+        metrics.recordSerialization(System.nanoTime() - start);
+    }
+
+    @GetMapping("/coupling/matrix")
+    public void couplingMatrix(@RequestParam("path") String path,
+            @RequestParam(value = "minWeight", defaultValue = "0") double minWeight,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "0") int limit,
+            HttpServletResponse response) throws IOException {
+        ProjectAnalysis analysis = lookup(path, response);
+        if (analysis == null) return;
+        long start = System.nanoTime();
+        try (JsonGenerator gen = open(response)) {
+            AnalysisJsonWriter.writeCouplingMatrix(gen, analysis.getCoupling(), minWeight, offset, limit);
+        }
+        metrics.recordSerialization(System.nanoTime() - start);
+    }
+
+    @GetMapping("/dendrogram")
+    public void dendrogram(@RequestParam("path") String path,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "0") int limit,
+            HttpServletResponse response) throws IOException {
+        ProjectAnalysis analysis = lookup(path, response);
+        if (analysis == null) return;
+        long start = System.nanoTime();
+        try (JsonGenerator gen = open(response)) {
+            AnalysisJsonWriter.writeDendrogram(gen, analysis.getDendrogram(), 120, 600, offset, limit);
+        }
+        metrics.recordSerialization(System.nanoTime() - start);
+    }
+
+    @GetMapping("/callgraph")
+    public void callGraph(@RequestParam("path") String path,
+            @RequestParam(value = "format", defaultValue = "dot") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        CallGraphExporter.Format exportFormat = CallGraphExporter.Format.parse(format);
+        if (exportFormat == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Format inconnu : " + format + " (dot, graphml, jsonl)");
+            return;
+        }
+        ProjectAnalysis analysis = lookup(path, response);
+        if (analysis == null) return;
+        long start = System.nanoTime();
+        String fileName = "callgraph" + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        CallGraphExporter.export(analysis.getCallGraph(), exportFormat, response.getOutputStream(), gzip);
+        metrics.recordSerialization(System.nanoTime() - start);
+    }
+
+    // projet analysé (cache) ou 404
+    private ProjectAnalysis lookup(String path, HttpServletResponse response) throws IOException {
+        ProjectAnalysis analysis = resultCache.peek(AnalysisResultCache.key(new File(path)));
+        if (analysis == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Projet non analysé : " + path);
+        }
+        return analysis;
+    }
+
+    private JsonGenerator open(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        return jsonFactory.createGenerator(response.getOutputStream());
+    }
+}
@@ -0,0 +1,99 @@
+package webanalyzer.controller;
+
+import webanalyzer.job.AnalysisJob;
+import webanalyzer.job.AnalysisJobService;
+import webanalyzer.service.ProjectAnalysis;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * API JSON des analyses asynchrones :
+ * POST /api/jobs?path=...        soumission, retourne l'identifiant
+ * GET  /api/jobs/{id}            progression (fichiers, étape, estimation)
+ * GET  /api/jobs/{id}/result     synthèse du résultat une fois terminé (410 s'il a quitté le cache)
+ * DELETE /api/jobs/{id}          annulation
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class AnalysisJobController {
+
+    private final AnalysisJobService jobService;
+
+    public AnalysisJobController(AnalysisJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestParam("path") String path) {
+        try {
+            AnalysisJob job = jobService.submit(path);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toStatus());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(error("Trop d'analyses en attente, réessayez plus tard"));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable("id") String id) {
+        AnalysisJob job = jobService.get(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(job.toStatus());
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Map<String, Object>> result(@PathVariable("id") String id) {
+        AnalysisJob job = jobService.get(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        if (job.getState() != AnalysisJob.State.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toStatus());
+        }
+
+        ProjectAnalysis analysis = jobService.getResult(job);
+        if (analysis == null) {
+            Map<String, Object> body = new LinkedHashMap<>(job.toStatus());
+            body.put("error", "Résultat retiré du cache des analyses, relancez l'analyse");
+            return ResponseEntity.status(HttpStatus.GONE).body(body);
+        }
+
+        Map<String, Object> coupling = new LinkedHashMap<>();
+        coupling.put("classes", analysis.getCoupling().size());
+        coupling.put("pairs", analysis.getCoupling().getNonZeroCount());
+        coupling.put("relations", analysis.getCoupling().getTotalRelations());
+
+        Map<String, Object> callGraph = new LinkedHashMap<>();
+        callGraph.put("classes", analysis.getCallGraph().getClassCount());
+        callGraph.put("methods", analysis.getCallGraph().getMethodCount());
+        callGraph.put("calls", analysis.getCallGraph().getCallCount());
+
+        Map<String, Object> body = new LinkedHashMap<>(job.toStatus());
+        body.put("metrics", ProjectAnalysis.metricsSummary(analysis.getParser()));
+        body.put("callGraph", callGraph);
+        body.put("coupling", coupling);
+        body.put("thresholds", analysis.getModules().getThresholds().length);
+        return ResponseEntity.ok(body);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable("id") String id) {
+        AnalysisJob job = jobService.get(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        if (!jobService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toStatus());
+        }
+        return ResponseEntity.ok(job.toStatus());
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return body;
+    }
+}
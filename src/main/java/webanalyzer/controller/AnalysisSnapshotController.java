@@ -0,0 +1,146 @@
+package webanalyzer.controller;
+
+import analyse.FileFacts;
+import webanalyzer.service.AnalysisMetrics;
+import webanalyzer.service.AnalysisResultCache;
+import webanalyzer.service.AnalysisSnapshot;
+import webanalyzer.service.ProjectAnalysis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Instantanés binaires d'analyse (AnalysisSnapshot) : archivage d'un projet, relecture sans reparser.
+ * Une fois écrit, un instantané s'ouvre dans la page d'analyse comme un projet (POST /analyze, path=fichier.snap).
+ *
+ * POST /api/snapshots?path=...&file=...   analyse le projet (cache de faits) et écrit l'instantané
+ * GET  /api/snapshots?file=...            relit l'instantané et résume son contenu
+ *
+ * Les instantanés sont écrits dans le dossier d'archives (webanalyzer.snapshots.dir) : file est un nom
+ * relatif à ce dossier, terminé par .snap ; un chemin qui en sort est refusé. En lecture, un nom relatif
+ * est cherché dans ce même dossier.
+ */
+@RestController
+@RequestMapping("/api/snapshots")
+public class AnalysisSnapshotController {
+
+    private final AnalysisResultCache resultCache;
+    private final AnalysisMetrics metrics;
+    private final Path archiveDir;
+
+    public AnalysisSnapshotController(AnalysisResultCache resultCache, AnalysisMetrics metrics,
+            @Value("${webanalyzer.snapshots.dir:${user.home}/.spoon-analyzer/snapshots}") String archiveDir) {
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.archiveDir = new File(archiveDir).toPath().toAbsolutePath().normalize();
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> create(@RequestParam("path") String path,
+            @RequestParam("file") String file) {
+        if (!file.endsWith(AnalysisSnapshot.EXTENSION)) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error",
+                    "L'instantané doit porter l'extension " + AnalysisSnapshot.EXTENSION + " : " + file));
+        }
+        File out;
+        try {
+            out = archiveFile(file);
+        } catch (IOException e) {
+            System.err.println("Dossier d'archives inaccessible : " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Collections.singletonMap("error", "Dossier d'archives inaccessible : " + e.getMessage()));
+        }
+        if (out == null) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error",
+                    "L'instantané doit rester dans le dossier d'archives : " + file));
+        }
+        File folder = new File(path);
+        if (!folder.isDirectory()) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Dossier introuvable : " + path));
+        }
+        List<File> javaFiles = metrics.discover(folder);
+        if (javaFiles.isEmpty()) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Aucun fichier Java trouvé dans : " + path));
+        }
+
+        long start = System.nanoTime();
+        try {
+            // les faits viennent du cache disque ; l'analyse déjà en cache est réutilisée si elle est à jour
+            ProjectAnalysis.Listener listener = new ProjectAnalysis.Listener() { };
+            List<FileFacts> facts = ProjectAnalysis.extractFacts(folder, javaFiles, listener);
+            String key = AnalysisResultCache.key(folder);
+            String fingerprint = AnalysisResultCache.fingerprint(javaFiles);
+            ProjectAnalysis analysis = resultCache.get(key, fingerprint);
+            if (analysis == null) {
+                analysis = ProjectAnalysis.fromFacts(path, javaFiles, fingerprint, facts, listener);
+                resultCache.put(key, analysis);
+            }
+            AnalysisSnapshot.write(out, analysis, facts);
+            // un instantané réécrit sous le même nom ne doit pas être servi depuis le cache
+            resultCache.invalidate(AnalysisResultCache.key(out));
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture de l'instantané : " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Collections.singletonMap("error", "Écriture impossible : " + e.getMessage()));
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("file", out.getAbsolutePath());
+        body.put("bytes", out.length());
+        body.put("files", javaFiles.size());
+        body.put("millis", (System.nanoTime() - start) / 1_000_000);
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> info(@RequestParam("file") String file) {
+        File snapshotFile = new File(file);
+        if (!snapshotFile.isAbsolute()) snapshotFile = archiveDir.resolve(file).toFile();
+        if (!snapshotFile.isFile()) {
+            return ResponseEntity.notFound().build();
+        }
+        long start = System.nanoTime();
+        try {
+            // un seul mappage : l'en-tête et, si le cache n'est pas à jour, l'analyse viennent du même instantané
+            AnalysisSnapshot snapshot = AnalysisSnapshot.open(snapshotFile);
+            ProjectAnalysis analysis = resultCache.getOrLoadSnapshot(snapshotFile, snapshot);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("projectPath", snapshot.getProjectPath());
+            body.put("fingerprint", snapshot.getFingerprint());
+            body.put("createdAt", snapshot.getCreatedAt());
+            body.put("files", snapshot.getFileCount());
+            body.put("types", snapshot.getTypeCount());
+            body.put("methods", snapshot.getMethodCount());
+            body.put("calls", snapshot.getCallCount());
+            body.put("metrics", ProjectAnalysis.metricsSummary(analysis.getParser()));
+            body.put("loadMillis", (System.nanoTime() - start) / 1_000_000);
+            return ResponseEntity.ok(body);
+        } catch (IOException e) {
+            System.err.println("Erreur de lecture de l'instantané : " + e.getMessage());
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Fichier de l'instantané dans le dossier d'archives (créé au besoin), ou null si le nom en sort
+     * (chemin absolu, "..", lien symbolique vers un autre dossier).
+     */
+    private File archiveFile(String file) throws IOException {
+        Path target = archiveDir.resolve(file).normalize();
+        if (!target.startsWith(archiveDir) || target.equals(archiveDir)) return null;
+        Files.createDirectories(target.getParent());
+        Path realDir = archiveDir.toRealPath();
+        Path realTarget = target.getParent().toRealPath().resolve(target.getFileName());
+        if (!realTarget.startsWith(realDir) || Files.isSymbolicLink(realTarget)) return null;
+        return realTarget.toFile();
+    }
+}
@@ -0,0 +1,68 @@
+package webanalyzer.controller;
+
+import webanalyzer.job.AnalysisEventStream;
+import webanalyzer.job.AnalysisJob;
+import webanalyzer.job.AnalysisJobService;
+import webanalyzer.service.ModuleIdentifierService;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Analyse en direct : la page de résultats s'affiche tout de suite et se remplit
+ * au fil des événements SSE (fichiers, couplage, modules, dendrogramme).
+ */
+@Controller
+public class AnalysisStreamController {
+
+    /** Durée maximale d'un flux (ms) */
+    private static final long STREAM_TIMEOUT = 30 * 60 * 1000L;
+
+    private final AnalysisJobService jobService;
+
+    public AnalysisStreamController(AnalysisJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Page de résultats vide, alimentée ensuite par /analyze/stream.
+     */
+    @GetMapping("/analyze/live")
+    public String liveAnalysis(@RequestParam("path") String path, Model model) {
+        model.addAttribute("streaming", true);
+        model.addAttribute("projectPath", path);
+        model.addAttribute("allClasses", Collections.emptyList());
+        model.addAttribute("modules", Collections.emptyList());
+        model.addAttribute("threshold", ModuleIdentifierService.DEFAULT_THRESHOLD);
+        model.addAttribute("couplingResultAB", "—");
+        model.addAttribute("couplingResultBA", "—");
+        model.addAttribute("activeTab", "CouplageClasse");
+        return "analysis";
+    }
+
+    /**
+     * Lance l'analyse et diffuse ses résultats partiels ; le résultat final est mis en cache
+     * comme pour /analyze.
+     */
+    @GetMapping(path = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamAnalysis(@RequestParam("path") String path) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT);
+        AnalysisEventStream stream = new AnalysisEventStream(emitter);
+        try {
+            AnalysisJob job = jobService.submit(path, stream);
+            stream.attach(job);
+        } catch (IllegalArgumentException e) {
+            stream.fail(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            stream.fail("Trop d'analyses en attente, réessayez plus tard");
+        }
+        return emitter;
+    }
+}
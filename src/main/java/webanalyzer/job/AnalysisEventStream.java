@@ -0,0 +1,327 @@
+package webanalyzer.job;
+
+import analyse.FileFacts;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import webanalyzer.parser.Parser;
+import webanalyzer.service.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diffusion SSE des résultats partiels d'une analyse, au fil de leur calcul :
+ *   status       changement d'étape
+ *   model        avancement de la construction du modèle Spoon (étapes faites / total)
+ *   file         métriques d'un fichier dès qu'il est analysé
+ *   metrics      métriques globales
+ *   classes      classes proposées dans les listes de sélection
+ *   coupling     classes du graphe de couplage, puis coupling-edges par paquets
+ *   modules      modules au seuil par défaut
+ *   dendrogram   nombre d'éléments Cytoscape du dendrogramme, puis dendrogram-elements par paquets
+ *   done / error fin du flux
+ *
+ * Les threads d'analyse ne font que mettre les événements en file ; un thread d'envoi les transmet
+ * au client dans l'ordre. Les événements model et file sont fusionnés : tant que le précédent n'est
+ * pas parti, seul le dernier avancement est retenu. Si le client se déconnecte, l'analyse est annulée.
+ */
+public class AnalysisEventStream implements AnalysisJob.Subscriber {
+
+    /** Nombre d'arêtes de couplage par événement */
+    private static final int EDGE_CHUNK = 2000;
+    /** Nombre d'éléments du dendrogramme par événement */
+    private static final int DENDROGRAM_CHUNK = 2000;
+
+    /** Événements de progression fusionnés : leurs données sont lues au moment de l'envoi */
+    private static final String FILE_EVENT = "file";
+    private static final String MODEL_EVENT = "model";
+    /** Marqueur de fin de flux dans la file d'envoi */
+    private static final Event CLOSE = new Event(null, null);
+
+    private static final AtomicInteger SENDER_COUNT = new AtomicInteger();
+    /** Threads d'envoi partagés par les flux ; un flux n'est vidé que par un seul thread à la fois */
+    private static final ExecutorService SENDERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "analysis-sse-" + SENDER_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final SseEmitter emitter;
+    private volatile AnalysisJob job;
+    private final ArrayDeque<Event> queue = new ArrayDeque<>();
+    private boolean draining;
+    /** Client parti ou flux fermé : plus rien n'est envoyé */
+    private boolean closed;
+    /** Fin de flux en file : plus rien n'est ajouté */
+    private boolean closing;
+
+    // dernier fichier analysé, envoyé par le prochain événement file en attente
+    private int filesParsed;
+    private File lastFile;
+    private FileFacts lastFacts;
+    private boolean lastFromCache;
+    private boolean fileQueued;
+
+    // dernier avancement du modèle, envoyé par le prochain événement model en attente
+    private int modelSteps;
+    private int modelTotalSteps;
+    private boolean modelQueued;
+
+    private boolean metricsSent;
+    private boolean couplingSent;
+    private boolean modulesSent;
+    private boolean dendrogramSent;
+
+    public AnalysisEventStream(SseEmitter emitter) {
+        this.emitter = emitter;
+        emitter.onCompletion(this::disconnected);
+        emitter.onTimeout(this::disconnected);
+        emitter.onError(e -> disconnected());
+    }
+
+    /**
+     * Rattache le travail suivi (pour l'annuler si le client part).
+     */
+    public void attach(AnalysisJob job) {
+        this.job = job;
+    }
+
+    // ---------- Événements de l'analyse ----------
+
+    @Override
+    public void phase(ProjectAnalysis.Phase phase) {
+        AnalysisJob j = job;
+        send("status", j != null ? j.toStatus() : Collections.singletonMap("phase", phase));
+    }
+
+    @Override
+    public synchronized void modelProgress(int steps, int totalSteps) {
+        modelSteps = steps;
+        modelTotalSteps = totalSteps;
+        if (!modelQueued) {
+            modelQueued = true;
+            send(MODEL_EVENT, null);
+        }
+    }
+
+    @Override
+    public synchronized void fileAnalyzed(int index, File file, FileFacts facts, boolean fromCache) {
+        filesParsed++;
+        lastFile = file;
+        lastFacts = facts;
+        lastFromCache = fromCache;
+        if (!fileQueued) {
+            fileQueued = true;
+            send(FILE_EVENT, null);
+        }
+    }
+
+    @Override
+    public synchronized void metricsReady(Parser parser) {
+        metricsSent = true;
+        send("metrics", ProjectAnalysis.metricsSummary(parser));
+    }
+
+    @Override
+    public synchronized void couplingReady(CouplingMatrix coupling) {
+        couplingSent = true;
+        List<String> classes = new ArrayList<>(coupling.size());
+        for (int i = 0; i < coupling.size(); i++) classes.add(coupling.label(i));
+        send("coupling", classes);
+
+        List<Map<String, Object>> edges = new ArrayList<>(EDGE_CHUNK);
+        for (int a = 0; a < coupling.size(); a++) {
+            for (int k = coupling.rowStart(a); k < coupling.rowEnd(a); k++) {
+                Map<String, Object> edge = new LinkedHashMap<>();
+                edge.put("source", coupling.label(a));
+                edge.put("target", coupling.label(coupling.column(k)));
+                edge.put("weight", coupling.value(k));
+                edges.add(edge);
+                if (edges.size() == EDGE_CHUNK) {
+                    send("coupling-edges", edges);
+                    edges = new ArrayList<>(EDGE_CHUNK);
+                }
+            }
+        }
+        if (!edges.isEmpty()) send("coupling-edges", edges);
+    }
+
+    @Override
+    public synchronized void modulesReady(ModulePartitions modules) {
+        modulesSent = true;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("threshold", ModuleIdentifierService.DEFAULT_THRESHOLD);
+        data.put("thresholds", modules.getThresholds().length);
+        data.put("modules", modules.modulesAt(ModuleIdentifierService.DEFAULT_THRESHOLD));
+        send("modules", data);
+    }
+
+    @Override
+    public synchronized void dendrogramReady(Dendrogram dendrogram) {
+        dendrogramSent = true;
+        send("dendrogram", Collections.singletonMap("elements", DendrogramService.countCytoscapeElements(dendrogram)));
+        DendrogramService.toCytoscapeChunks(dendrogram, 120, 600, DENDROGRAM_CHUNK,
+                chunk -> send("dendrogram-elements", chunk));
+    }
+
+    /**
+     * Résultat complet : complète ce qui n'a pas été diffusé (résultat servi depuis le cache).
+     */
+    @Override
+    public synchronized void completed(ProjectAnalysis analysis) {
+        if (!metricsSent) metricsReady(analysis.getParser());
+        send("classes", analysis.getClassAliases());
+        if (!couplingSent) couplingReady(analysis.getCoupling());
+        if (!modulesSent) modulesReady(analysis.getModules());
+        if (!dendrogramSent) dendrogramReady(analysis.getDendrogram());
+    }
+
+    @Override
+    public synchronized void finished(AnalysisJob job) {
+        if (job.getState() == AnalysisJob.State.DONE) {
+            send("done", job.toStatus());
+        } else {
+            String message = job.getState() == AnalysisJob.State.CANCELLED ? "Analyse annulée" : job.getError();
+            send("error", Collections.singletonMap("error", message));
+        }
+        close();
+    }
+
+    // ---------- Émission ----------
+
+    /**
+     * Erreur avant lancement (chemin invalide, file pleine) : un seul événement puis fermeture.
+     */
+    public synchronized void fail(String message) {
+        send("error", Collections.singletonMap("error", message));
+        close();
+    }
+
+    /**
+     * Met l'événement en file et lance le thread d'envoi s'il ne tourne pas déjà.
+     */
+    private synchronized void send(String name, Object data) {
+        enqueue(new Event(name, data));
+    }
+
+    private synchronized void close() {
+        enqueue(CLOSE);
+        closing = true;
+    }
+
+    private void enqueue(Event event) {
+        if (closed || closing) return;
+        queue.add(event);
+        if (!draining) {
+            draining = true;
+            SENDERS.execute(this::drain);
+        }
+    }
+
+    /**
+     * Envoie les événements en file, hors du verrou du flux : les threads d'analyse n'attendent pas le client.
+     */
+    private void drain() {
+        while (true) {
+            Event event;
+            Object data;
+            synchronized (this) {
+                event = queue.poll();
+                if (event == null || closed) {
+                    queue.clear();
+                    draining = false;
+                    return;
+                }
+                if (event == CLOSE) closed = true;
+                data = event.data;
+            }
+            if (event == CLOSE) {
+                emitter.complete();
+                continue;
+            }
+            if (data == null && FILE_EVENT.equals(event.name)) data = fileProgress();
+            if (data == null && MODEL_EVENT.equals(event.name)) data = modelProgress();
+            try {
+                emitter.send(SseEmitter.event().name(event.name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // client déconnecté
+                disconnected();
+            }
+        }
+    }
+
+    private synchronized Map<String, Object> modelProgress() {
+        modelQueued = false;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("steps", modelSteps);
+        data.put("total", modelTotalSteps);
+        return data;
+    }
+
+    private Map<String, Object> fileProgress() {
+        File file;
+        FileFacts facts;
+        boolean fromCache;
+        int parsed;
+        synchronized (this) {
+            fileQueued = false;
+            file = lastFile;
+            facts = lastFacts;
+            fromCache = lastFromCache;
+            parsed = filesParsed;
+        }
+        Map<String, Object> data = fileMetrics(file, facts);
+        data.put("fromCache", fromCache);
+        data.put("parsed", parsed);
+        AnalysisJob j = job;
+        data.put("total", j != null ? j.getFilesDiscovered() : 0);
+        return data;
+    }
+
+    private void disconnected() {
+        synchronized (this) {
+            closed = true;
+        }
+        AnalysisJob j = job;
+        if (j != null) j.cancel();
+    }
+
+    private static Map<String, Object> fileMetrics(File file, FileFacts facts) {
+        int classes = 0, interfaces = 0, methods = 0, attributes = 0, lines = 0;
+        List<String> types = new ArrayList<>();
+        for (FileFacts.TypeFacts type : facts.getTypes()) {
+            if (type.isClass()) classes++;
+            if (type.isInterface()) interfaces++;
+            methods += type.getMethods().size();
+            attributes += type.getFieldCount();
+            if (type.isTopLevel()) {
+                lines += type.getLines();
+                types.add(type.getSimpleName());
+            }
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("file", file.getName());
+        data.put("package", facts.getPackageName());
+        data.put("types", types);
+        data.put("classes", classes);
+        data.put("interfaces", interfaces);
+        data.put("methods", methods);
+        data.put("attributes", attributes);
+        data.put("lines", lines);
+        return data;
+    }
+
+    private static final class Event {
+        final String name;
+        final Object data;
+
+        Event(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
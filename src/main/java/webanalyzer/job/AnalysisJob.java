@@ -0,0 +1,229 @@
+package webanalyzer.job;
+
+import analyse.FileFacts;
+import webanalyzer.parser.Parser;
+import webanalyzer.service.CouplingMatrix;
+import webanalyzer.service.Dendrogram;
+import webanalyzer.service.ModulePartitions;
+import webanalyzer.service.ProjectAnalysis;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyse soumise en tâche de fond : état, progression (fichiers, étape, estimation) et référence
+ * du résultat dans l'AnalysisResultCache (clé et empreinte) : un travail terminé ne retient pas l'analyse,
+ * que le cache reste seul à borner. Sert aussi de listener à l'analyse qu'elle suit ; les compteurs sont mis à jour par les threads de travail.
+ */
+public class AnalysisJob implements ProjectAnalysis.Listener {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /**
+     * Abonné aux événements de l'analyse (flux SSE, ...), notifié en plus de la fin du travail.
+     */
+    public interface Subscriber extends ProjectAnalysis.Listener {
+        default void finished(AnalysisJob job) {
+        }
+    }
+
+    private final String id;
+    private final String projectPath;
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile ProjectAnalysis.Phase phase = ProjectAnalysis.Phase.QUEUED;
+    private volatile int filesDiscovered;
+    private volatile int modelSteps;
+    private volatile int modelTotalSteps;
+    private final AtomicInteger filesParsed = new AtomicInteger();
+    private final AtomicInteger filesFromCache = new AtomicInteger();
+    private volatile long startedAt;
+    private volatile long parsingStartedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile String resultKey;
+    private volatile String resultFingerprint;
+    private volatile Future<?> future;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public AnalysisJob(String id, String projectPath) {
+        this.id = id;
+        this.projectPath = projectPath;
+    }
+
+    // ---------- Listener (threads d'analyse) ----------
+
+    @Override
+    public void phase(ProjectAnalysis.Phase phase) {
+        if (phase == ProjectAnalysis.Phase.PARSING) parsingStartedAt = System.currentTimeMillis();
+        this.phase = phase;
+        for (Subscriber s : subscribers) s.phase(phase);
+    }
+
+    @Override
+    public void modelProgress(int steps, int totalSteps) {
+        this.modelSteps = steps;
+        this.modelTotalSteps = totalSteps;
+        for (Subscriber s : subscribers) s.modelProgress(steps, totalSteps);
+    }
+
+    @Override
+    public void fileAnalyzed(int index, File file, FileFacts facts, boolean fromCache) {
+        filesParsed.incrementAndGet();
+        if (fromCache) filesFromCache.incrementAndGet();
+        for (Subscriber s : subscribers) s.fileAnalyzed(index, file, facts, fromCache);
+    }
+
+    @Override
+    public void metricsReady(Parser parser) {
+        for (Subscriber s : subscribers) s.metricsReady(parser);
+    }
+
+    @Override
+    public void couplingReady(CouplingMatrix coupling) {
+        for (Subscriber s : subscribers) s.couplingReady(coupling);
+    }
+
+    @Override
+    public void modulesReady(ModulePartitions modules) {
+        for (Subscriber s : subscribers) s.modulesReady(modules);
+    }
+
+    @Override
+    public void dendrogramReady(Dendrogram dendrogram) {
+        for (Subscriber s : subscribers) s.dendrogramReady(dendrogram);
+    }
+
+    @Override
+    public void completed(ProjectAnalysis analysis) {
+        for (Subscriber s : subscribers) s.completed(analysis);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    // ---------- Cycle de vie (service) ----------
+
+    /**
+     * Lancement par un thread de travail : le travail quitte la file dès la recherche des fichiers.
+     */
+    void started() {
+        this.startedAt = System.currentTimeMillis();
+        this.state = State.RUNNING;
+        phase(ProjectAnalysis.Phase.DISCOVERY);
+    }
+
+    void discovered(int filesDiscovered) {
+        this.filesDiscovered = filesDiscovered;
+    }
+
+    void succeeded(String resultKey, String resultFingerprint) {
+        this.resultKey = resultKey;
+        this.resultFingerprint = resultFingerprint;
+        this.phase = ProjectAnalysis.Phase.DONE;
+        finish(State.DONE);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finish(State.FAILED);
+    }
+
+    void cancelled() {
+        finish(State.CANCELLED);
+    }
+
+    private void finish(State state) {
+        synchronized (this) {
+            if (isFinished()) return;
+            this.finishedAt = System.currentTimeMillis();
+            this.state = state;
+        }
+        for (Subscriber s : subscribers) s.finished(this);
+    }
+
+    /**
+     * Abonne aux événements ; à faire avant le lancement pour ne rien manquer.
+     */
+    void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Demande l'annulation : une tâche en file n'est jamais lancée, une analyse en cours s'arrête
+     * au prochain fichier ou à la prochaine étape.
+     */
+    boolean cancel() {
+        if (isFinished()) return false;
+        cancelRequested = true;
+        Future<?> f = future;
+        if (state == State.QUEUED && f != null && f.cancel(false)) cancelled();  // jamais lancée
+        return true;
+    }
+
+    // ---------- Consultation ----------
+
+    public String getId() { return id; }
+    public String getProjectPath() { return projectPath; }
+    public State getState() { return state; }
+    public ProjectAnalysis.Phase getPhase() { return phase; }
+    /** Clé du résultat dans l'AnalysisResultCache, une fois le travail terminé avec succès */
+    public String getResultKey() { return resultKey; }
+    public String getResultFingerprint() { return resultFingerprint; }
+    public long getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+    public int getFilesDiscovered() { return filesDiscovered; }
+    public int getFilesParsed() { return filesParsed.get(); }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    /**
+     * Temps restant estimé (ms) du parsing, d'après le débit des étapes déjà faites (construction du modèle
+     * puis extraction des faits de chaque fichier), ou -1 si inconnu.
+     */
+    public long getEtaMillis() {
+        if (state != State.RUNNING || phase != ProjectAnalysis.Phase.PARSING) return -1;
+        long done = modelSteps + filesParsed.get();
+        long total = modelTotalSteps + filesDiscovered;
+        if (done == 0 || filesDiscovered == 0) return -1;
+        long elapsed = System.currentTimeMillis() - parsingStartedAt;
+        return elapsed * Math.max(0, total - done) / done;
+    }
+
+    /**
+     * État sérialisable en JSON pour le suivi par le client.
+     */
+    public Map<String, Object> toStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("path", projectPath);
+        status.put("state", state);
+        status.put("phase", phase);
+        status.put("filesDiscovered", filesDiscovered);
+        status.put("modelSteps", modelSteps);
+        status.put("modelTotalSteps", modelTotalSteps);
+        status.put("filesParsed", filesParsed.get());
+        status.put("filesFromCache", filesFromCache.get());
+        long now = isFinished() ? finishedAt : System.currentTimeMillis();
+        status.put("elapsedMillis", startedAt == 0 ? 0 : now - startedAt);
+        status.put("queuedMillis", (startedAt == 0 ? now : startedAt) - submittedAt);
+        status.put("etaMillis", getEtaMillis());
+        if (error != null) status.put("error", error);
+        return status;
+    }
+}
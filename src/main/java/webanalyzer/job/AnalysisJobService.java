@@ -0,0 +1,151 @@
+package webanalyzer.job;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import webanalyzer.service.AnalysisMetrics;
+import webanalyzer.service.AnalysisResultCache;
+import webanalyzer.service.ProjectAnalysis;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution des analyses en tâche de fond, hors des threads Tomcat.
+ *
+ * Pool de travail borné (webanalyzer.jobs.workers) et file d'attente bornée
+ * (webanalyzer.jobs.queue-capacity) : au-delà, la soumission est refusée.
+ * Les travaux en cours partagent le pool d'analyse des fichiers (ParallelFileAnalyzer), dimensionné
+ * une fois pour toute la JVM : plusieurs travaux ne multiplient pas les threads par le nombre de cœurs.
+ * Les résultats passent par l'AnalysisResultCache, la page d'analyse les réutilise donc sans reparser ;
+ * un travail terminé n'en garde que la clé et l'empreinte (getResult), le cache seul décide de leur durée de vie.
+ */
+@Service
+public class AnalysisJobService {
+
+    /** Nombre de travaux terminés conservés pour consultation (état seul, sans le résultat) */
+    private static final int MAX_FINISHED_JOBS = 64;
+
+    private final AnalysisResultCache resultCache;
+    private final AnalysisMetrics metrics;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    public AnalysisJobService(AnalysisResultCache resultCache, AnalysisMetrics metrics,
+                              @Value("${webanalyzer.jobs.workers:2}") int workers,
+                              @Value("${webanalyzer.jobs.queue-capacity:16}") int queueCapacity) {
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, workers), Math.max(1, workers),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "analysis-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Soumet l'analyse du dossier.
+     * @throws IllegalArgumentException si le chemin n'est pas un dossier
+     * @throws RejectedExecutionException si la file d'attente est pleine
+     */
+    public AnalysisJob submit(String path) {
+        return submit(path, null);
+    }
+
+    /**
+     * Idem, avec un abonné aux événements de l'analyse inscrit avant son lancement.
+     */
+    public AnalysisJob submit(String path, AnalysisJob.Subscriber subscriber) {
+        File folder = new File(path);
+        if (!folder.isDirectory()) {
+            throw new IllegalArgumentException("Le chemin n'existe pas ou n'est pas un dossier : " + path);
+        }
+
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), path);
+        if (subscriber != null) job.subscribe(subscriber);
+        purgeFinished();
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> execute(job, folder)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void execute(AnalysisJob job, File folder) {
+        if (job.isCancelled()) {
+            job.cancelled();
+            return;
+        }
+        try {
+            job.started();
+            List<File> javaFiles = metrics.discover(folder);
+            job.discovered(javaFiles.size());
+            if (javaFiles.isEmpty()) {
+                job.failed("Aucun fichier Java trouvé dans : " + job.getProjectPath());
+                return;
+            }
+            ProjectAnalysis result = resultCache.getOrAnalyze(job.getProjectPath(), folder, javaFiles, job);
+            job.succeeded(AnalysisResultCache.key(folder), result.getFingerprint());
+        } catch (CancellationException e) {
+            job.cancelled();
+        } catch (Exception e) {
+            System.err.println("Erreur d'analyse (" + job.getProjectPath() + ") : " + e.getMessage());
+            e.printStackTrace();
+            job.failed(e.getClass().getSimpleName() + " : " + e.getMessage());
+        }
+    }
+
+    public AnalysisJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Résultat d'un travail terminé avec succès, tant que le cache garde cette analyse du projet :
+     * null s'il en a été évincé ou remplacé par une analyse plus récente.
+     */
+    public ProjectAnalysis getResult(AnalysisJob job) {
+        if (job.getState() != AnalysisJob.State.DONE) return null;
+        ProjectAnalysis analysis = resultCache.peek(job.getResultKey());
+        return analysis != null && analysis.getFingerprint().equals(job.getResultFingerprint()) ? analysis : null;
+    }
+
+    /**
+     * Demande l'annulation du travail ; false s'il est inconnu ou déjà terminé.
+     */
+    public boolean cancel(String id) {
+        AnalysisJob job = jobs.get(id);
+        return job != null && job.cancel();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    // garde les MAX_FINISHED_JOBS travaux terminés les plus récents
+    private void purgeFinished() {
+        List<AnalysisJob> finished = new ArrayList<>();
+        for (AnalysisJob job : jobs.values()) if (job.isFinished()) finished.add(job);
+        if (finished.size() < MAX_FINISHED_JOBS) return;
+        finished.sort(Comparator.comparingLong(AnalysisJob::getFinishedAt));
+        for (int i = 0; i <= finished.size() - MAX_FINISHED_JOBS; i++) jobs.remove(finished.get(i).getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (AnalysisJob job : jobs.values()) job.cancel();
+        executor.shutdownNow();
+    }
+}
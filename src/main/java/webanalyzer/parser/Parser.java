@@ -1,12 +1,11 @@
 package webanalyzer.parser;
 
+import analyse.AnalysisSession;
+import analyse.FileFacts;
+import analyse.ParallelFileAnalyzer;
 import org.springframework.stereotype.Service;
-import spoon.Launcher;
-import spoon.reflect.CtModel;
-import spoon.reflect.declaration.*;
-import spoon.reflect.code.*;
-import spoon.reflect.visitor.filter.TypeFilter;
 
+import graph.CallGraph;
 import graph.SpoonClassMethodCallVisitor;
 
 import java.io.File;
@@ -36,7 +35,7 @@ public class Parser {
 
     // --- Données collectées ---
     private final Map<String, FileAnalysis> fileAnalyses = new LinkedHashMap<>();
-    private final Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> classMethodCalls = new LinkedHashMap<>();
+    private CallGraph callGraph = CallGraph.builder().build();
     private final Map<String, Integer> methodsPerClass = new HashMap<>();
     private final Map<String, Integer> attributesPerClass = new HashMap<>();
 
@@ -63,71 +62,81 @@ public class Parser {
     // ============================
     public void analyzeProject(String projectPath) throws IOException {
         if (projectPath == null || projectPath.isEmpty()) return;
+        File root = new File(projectPath);
+        // Analyse incrémentale : seuls les fichiers modifiés depuis la dernière fois et ceux qui dépendent de leurs types sont reparsés
+        analyzeFacts(root.getPath(), new ParallelFileAnalyzer().analyzeProject(root).getFileFacts());
+    }
+
+    /**
+     * Analyse le projet à partir du modèle d'une session : le modèle est libéré dès les faits extraits,
+     * seuls les comptages, noms et appels restent en mémoire.
+     */
+    public void analyzeProject(AnalysisSession session) {
+        analyzeFacts(session.getSourceRoot().getPath(), session.extractFactsAndRelease());
+    }
+
+    /**
+     * Calcule les métriques et le graphe d'appels à partir des faits extraits par fichier.
+     * Seuls les types de premier niveau sont comptés (comme CtModel.getAllTypes()).
+     */
+    public void analyzeFacts(String projectPath, List<FileFacts> facts) {
         this.projectPath = projectPath;
 
         resetMetrics();
 
-        Launcher launcher = new Launcher();
-        launcher.addInputResource(projectPath);
-        launcher.getEnvironment().setNoClasspath(true);
-        launcher.getEnvironment().setAutoImports(true);
-        launcher.getEnvironment().setCommentEnabled(false);
-
-        CtModel model = launcher.buildModel();
         Set<String> visitedPackages = new HashSet<>();
+        CallGraph.Builder graph = CallGraph.builder();
 
-        for (CtType<?> type : model.getAllTypes()) {
-            String className = type.getQualifiedName();
-            FileAnalysis fa = new FileAnalysis(className + ".java");
+        for (FileFacts file : facts) {
+            for (FileFacts.TypeFacts type : file.getTypes()) {
+                if (!type.isTopLevel()) continue;
+                String className = type.getQualifiedName();
+                FileAnalysis fa = new FileAnalysis(className + ".java");
 
-            if (type.isInterface()) totalInterfaces++;
-            else totalClasses++;
+                if (type.isInterface()) totalInterfaces++;
+                else totalClasses++;
 
-            visitedPackages.add(type.getPackage().getQualifiedName());
+                visitedPackages.add(type.getPackageName());
 
-            // --- Compte des attributs
-            int attrCount = (int) type.getFields().stream().count();
-            attributesPerClass.put(className, attrCount);
-            totalAttributes += attrCount;
+                // --- Compte des attributs
+                int attrCount = type.getFieldCount();
+                attributesPerClass.put(className, attrCount);
+                totalAttributes += attrCount;
 
-            // --- Compte des méthodes
-            int methodCount = type.getMethods().size();
-            methodsPerClass.put(className, methodCount);
-            totalMethods += methodCount;
+                // --- Compte des méthodes
+                int methodCount = type.getMethods().size();
+                methodsPerClass.put(className, methodCount);
+                totalMethods += methodCount;
 
-            // --- Comptage des lignes de code (approximatif)
-            totalLines += type.toString().split("\n").length;
+                // --- Comptage des lignes de code (positions source, sans réimpression de l'AST)
+                totalLines += type.getLines();
 
-            // --- Collecte des appels de méthodes (graphe)
-            Map<String, List<SpoonClassMethodCallVisitor.MethodCall>> methodMap = new LinkedHashMap<>();
+                // --- Collecte des appels de méthodes (graphe)
+                graph.addClass(className);
 
-            for (CtMethod<?> m : type.getMethods()) {
-                List<SpoonClassMethodCallVisitor.MethodCall> calls = new ArrayList<>();
-                totalLinesInMethods += (m.getBody() != null) ? m.getBody().toString().split("\n").length : 0;
+                for (FileFacts.MethodFacts m : type.getMethods()) {
+                    graph.addMethod(m.getName());
+                    totalLinesInMethods += m.getBodyLines();
 
-                // Paramètres max
-                int paramCount = m.getParameters().size();
-                if (paramCount > maxParameters) maxParameters = paramCount;
+                    // Paramètres max
+                    int paramCount = m.getParameterCount();
+                    if (paramCount > maxParameters) maxParameters = paramCount;
 
-                // Rechercher les appels de méthodes
-                if (m.getBody() != null) {
-                    for (CtInvocation<?> inv : m.getElements(new TypeFilter<>(CtInvocation.class))) {
-                        String calledName = inv.getExecutable().getSimpleName();
-                        String declaringClass = inv.getExecutable().getDeclaringType() != null ?
-                                inv.getExecutable().getDeclaringType().getSimpleName() : "Unknown";
-                        calls.add(new SpoonClassMethodCallVisitor.MethodCall(calledName, declaringClass));
+                    // Appels de méthodes
+                    for (FileFacts.CallFacts call : m.getCalls()) {
+                        String declaringClass = call.getDeclaringType() != null ? call.getDeclaringType() : "Unknown";
+                        graph.addCall(call.getName(), declaringClass);
                     }
+                    fa.addMethods(Collections.singleton(m.getName()));
                 }
-                methodMap.put(m.getSimpleName(), calls);
-                fa.addMethods(Collections.singleton(m.getSimpleName()));
-            }
 
-            classMethodCalls.put(className, methodMap);
-            fa.addClass(className);
-            fileAnalyses.put(className, fa);
+                fa.addClass(className);
+                fileAnalyses.put(className, fa);
+            }
         }
 
         totalPackage = visitedPackages.size();
+        callGraph = graph.build();
 
         // --- Calcul des moyennes
         int totalTypes = totalClasses + totalInterfaces;
@@ -160,7 +169,7 @@ public class Parser {
         totalLines = totalLinesInMethods = maxParameters = 0;
         avgMethodsPerClass = avgLinesPerMethod = avgAttributesPerClass = 0.0;
         fileAnalyses.clear();
-        classMethodCalls.clear();
+        callGraph = CallGraph.builder().build();
         methodsPerClass.clear();
         attributesPerClass.clear();
     }
@@ -180,7 +189,8 @@ public class Parser {
     public double getAvgLinesPerMethod() { return avgLinesPerMethod; }
     public double getAvgAttributesPerClass() { return avgAttributesPerClass; }
 
-    public Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> getClassMethodCalls() { return classMethodCalls; }
+    public Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> getClassMethodCalls() { return callGraph.asMap(); }
+    public CallGraph getCallGraph() { return callGraph; }
     public Map<String, FileAnalysis> getFileAnalyses() { return fileAnalyses; }
 
     public List<String> getTopMethodsClasses() {
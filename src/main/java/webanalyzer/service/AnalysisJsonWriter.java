@@ -0,0 +1,179 @@
+package webanalyzer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Écriture en flux (JsonGenerator) des résultats volumineux : graphe et matrice de couplage, dendrogramme.
+ * Rien n'est matérialisé en mémoire ; chaque réponse est paginée (offset, limit) et les liens de couplage
+ * peuvent être filtrés par poids minimal.
+ *
+ * Enveloppe commune : { "total": ..., "offset": ..., "count": ..., "<liste>": [ ... ] }
+ * où total compte les éléments après filtrage, avant pagination. limit <= 0 : pas de limite.
+ */
+public class AnalysisJsonWriter {
+
+    /**
+     * Graphe de couplage Cytoscape : les classes reliées par les liens de la page, puis ces liens.
+     * La pagination porte sur les liens (total = nombre de liens retenus).
+     */
+    public static void writeCouplingGraph(JsonGenerator gen, CouplingMatrix coupling, double minWeight,
+                                          int offset, int limit) throws IOException {
+        int total = countEdges(coupling, minWeight);
+        int from = Math.max(0, Math.min(offset, total));
+        int to = limit <= 0 ? total : (int) Math.min(total, (long) from + limit);
+
+        // 1) classes touchées par les liens de la page
+        boolean[] used = new boolean[coupling.size()];
+        int index = 0;
+        for (int a = 0; a < coupling.size() && index < to; a++) {
+            for (int k = coupling.rowStart(a); k < coupling.rowEnd(a) && index < to; k++) {
+                if (coupling.value(k) < minWeight) continue;
+                if (index++ < from) continue;
+                used[a] = true;
+                used[coupling.column(k)] = true;
+            }
+        }
+
+        gen.writeStartObject();
+        gen.writeNumberField("total", total);
+        gen.writeNumberField("offset", from);
+        gen.writeNumberField("count", to - from);
+        gen.writeArrayFieldStart("elements");
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) continue;
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("data");
+            gen.writeStringField("id", coupling.label(i));
+            gen.writeStringField("label", coupling.label(i));
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+
+        // 2) liens de la page
+        index = 0;
+        for (int a = 0; a < coupling.size() && index < to; a++) {
+            for (int k = coupling.rowStart(a); k < coupling.rowEnd(a) && index < to; k++) {
+                if (coupling.value(k) < minWeight) continue;
+                if (index++ < from) continue;
+                gen.writeStartObject();
+                gen.writeObjectFieldStart("data");
+                gen.writeStringField("source", coupling.label(a));
+                gen.writeStringField("target", coupling.label(coupling.column(k)));
+                gen.writeNumberField("weight", coupling.value(k));
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    /**
+     * Matrice de couplage : lignes (source, target, value) dans l'ordre des classes sources.
+     */
+    public static void writeCouplingMatrix(JsonGenerator gen, CouplingMatrix coupling, double minWeight,
+                                           int offset, int limit) throws IOException {
+        int total = countEdges(coupling, minWeight);
+        int from = Math.max(0, Math.min(offset, total));
+        int to = limit <= 0 ? total : (int) Math.min(total, (long) from + limit);
+
+        gen.writeStartObject();
+        gen.writeNumberField("classes", coupling.size());
+        gen.writeNumberField("total", total);
+        gen.writeNumberField("offset", from);
+        gen.writeNumberField("count", to - from);
+        gen.writeArrayFieldStart("rows");
+        int index = 0;
+        for (int a = 0; a < coupling.size() && index < to; a++) {
+            for (int k = coupling.rowStart(a); k < coupling.rowEnd(a) && index < to; k++) {
+                if (coupling.value(k) < minWeight) continue;
+                if (index++ < from) continue;
+                gen.writeStartObject();
+                gen.writeStringField("source", coupling.label(a));
+                gen.writeStringField("target", coupling.label(coupling.column(k)));
+                gen.writeNumberField("value", coupling.value(k));
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    /**
+     * Éléments Cytoscape positionnés du dendrogramme (noeuds puis arêtes).
+     * Les arêtes référencent des noeuds d'autres pages : le client assemble toutes les pages avant l'affichage.
+     */
+    public static void writeDendrogram(JsonGenerator gen, Dendrogram tree, int leafSpacing, int totalHeight,
+                                       int offset, int limit) throws IOException {
+        int total = DendrogramService.countCytoscapeElements(tree);
+        int from = Math.max(0, Math.min(offset, total));
+        int to = limit <= 0 ? total : (int) Math.min(total, (long) from + limit);
+
+        gen.writeStartObject();
+        gen.writeNumberField("total", total);
+        gen.writeNumberField("offset", from);
+        gen.writeNumberField("count", to - from);
+        gen.writeArrayFieldStart("elements");
+        try {
+            DendrogramService.emitCytoscapeDendrogram(tree, leafSpacing, totalHeight, new DendrogramService.ElementSink() {
+                private int index;
+
+                @Override
+                public void node(String id, String label, double x, double y) {
+                    if (!inPage()) return;
+                    try {
+                        gen.writeStartObject();
+                        gen.writeObjectFieldStart("data");
+                        gen.writeStringField("id", id);
+                        gen.writeStringField("label", label);
+                        gen.writeEndObject();
+                        gen.writeObjectFieldStart("position");
+                        gen.writeNumberField("x", x);
+                        gen.writeNumberField("y", y);
+                        gen.writeEndObject();
+                        gen.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void edge(String source, String target, double weight) {
+                    if (!inPage()) return;
+                    try {
+                        gen.writeStartObject();
+                        gen.writeObjectFieldStart("data");
+                        gen.writeStringField("source", source);
+                        gen.writeStringField("target", target);
+                        gen.writeNumberField("weight", weight);
+                        gen.writeEndObject();
+                        gen.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                private boolean inPage() {
+                    int i = index++;
+                    return i >= from && i < to;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private static int countEdges(CouplingMatrix coupling, double minWeight) {
+        if (minWeight <= 0) return coupling.getNonZeroCount();
+        int count = 0;
+        for (int k = 0; k < coupling.getNonZeroCount(); k++) {
+            if (coupling.value(k) >= minWeight) count++;
+        }
+        return count;
+    }
+}
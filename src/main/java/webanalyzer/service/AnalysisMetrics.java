@@ -0,0 +1,255 @@
+package webanalyzer.service;
+
+import analyse.AnalysisSession;
+import analyse.FileFacts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import webanalyzer.parser.Parser;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures Micrometer de la chaîne d'analyse web (exposées par Actuator : /actuator/metrics, /actuator/prometheus).
+ *
+ * analysis.phase{phase}      durée de chaque étape : discovery, parsing, model (construction du modèle Spoon,
+ *                            cumulée sur les threads), extraction (idem), metrics, coupling, modules,
+ *                            dendrogram, serialization
+ * analysis.files{source}     fichiers analysés (parsed) ou relus depuis le cache de faits (cache)
+ * analysis.types             types extraits
+ * analysis.invocations       sites d'appel extraits
+ * analysis.requests{result}  demandes servies par le cache de résultats (hit) ou recalculées (miss)
+ * analysis.last.*            débit (fichiers/s, types/s) et estimation du tas occupé par le modèle
+ *                            pendant le parsing, pour la dernière analyse ; le pic de tas est global
+ *                            au processus : il n'est mesuré que pour un parsing sans autre en parallèle
+ * analysis.active            analyses en cours
+ */
+@Component
+public class AnalysisMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter filesParsed;
+    private final Counter filesFromCache;
+    private final Counter types;
+    private final Counter invocations;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer discoveryTimer;
+    private final Timer serializationTimer;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong lastFilesPerSecond = new AtomicLong();
+    private final AtomicLong lastTypesPerSecond = new AtomicLong();
+    private final AtomicLong lastModelHeapBytes = new AtomicLong();
+    // pic de tas : une seule analyse à la fois remet à zéro et relit les pics des pools (voir MeteredListener)
+    private final AtomicReference<MeteredListener> heapOwner = new AtomicReference<>();
+    private final AtomicInteger parsing = new AtomicInteger();
+    private final AtomicLong parsingStarts = new AtomicLong();
+
+    public AnalysisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.filesParsed = Counter.builder("analysis.files").tag("source", "parsed")
+                .description("Fichiers Java analysés").register(registry);
+        this.filesFromCache = Counter.builder("analysis.files").tag("source", "cache")
+                .description("Fichiers Java analysés").register(registry);
+        this.types = Counter.builder("analysis.types").description("Types extraits").register(registry);
+        this.invocations = Counter.builder("analysis.invocations").description("Sites d'appel extraits").register(registry);
+        this.cacheHits = Counter.builder("analysis.requests").tag("result", "hit")
+                .description("Demandes d'analyse").register(registry);
+        this.cacheMisses = Counter.builder("analysis.requests").tag("result", "miss")
+                .description("Demandes d'analyse").register(registry);
+        this.discoveryTimer = phaseTimer("discovery");
+        this.serializationTimer = phaseTimer("serialization");
+
+        Gauge.builder("analysis.active", active, AtomicInteger::get)
+                .description("Analyses en cours").register(registry);
+        Gauge.builder("analysis.last.files.per.second", lastFilesPerSecond, AtomicLong::get)
+                .description("Débit de la dernière analyse (fichiers parsés)").register(registry);
+        Gauge.builder("analysis.last.types.per.second", lastTypesPerSecond, AtomicLong::get)
+                .description("Débit de la dernière analyse (types extraits)").register(registry);
+        Gauge.builder("analysis.last.model.heap", lastModelHeapBytes, AtomicLong::get).baseUnit("bytes")
+                .description("Pic de tas pendant le dernier parsing sans autre analyse en parallèle, moins le tas au départ (estimation du modèle Spoon)")
+                .register(registry);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("analysis.phase").tag("phase", phase)
+                .description("Durée des étapes de l'analyse").register(registry);
+    }
+
+    /**
+     * Liste des fichiers Java du projet (étape discovery).
+     */
+    public List<File> discover(File folder) {
+        return discoveryTimer.record(() -> AnalysisSession.listJavaFiles(folder));
+    }
+
+    public void recordSerialization(long nanos) {
+        serializationTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void cacheHit() {
+        cacheHits.increment();
+    }
+
+    public void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /**
+     * Analyse complète mesurée (ProjectAnalysis.run avec un listener instrumenté).
+     */
+    public ProjectAnalysis run(String projectPath, File folder, List<File> javaFiles, String fingerprint,
+                               ProjectAnalysis.Listener listener) {
+        active.incrementAndGet();
+        MeteredListener metered = new MeteredListener(listener);
+        try {
+            return ProjectAnalysis.run(projectPath, folder, javaFiles, fingerprint, metered);
+        } finally {
+            metered.parsingEnded(false);  // annulation ou erreur pendant le parsing
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Mesure l'analyse puis transmet chaque événement au listener d'origine.
+     * phase() est appelé par le thread de l'analyse, fileAnalyzed() par les threads de travail.
+     * Les pics des pools de tas sont communs au processus : le listener ne les remet à zéro que s'il
+     * est seul à parser, et n'en publie la mesure que si aucune autre analyse n'a commencé entre-temps.
+     */
+    private class MeteredListener implements ProjectAnalysis.Listener {
+        private final ProjectAnalysis.Listener delegate;
+        private final LongAdder files = new LongAdder();
+        private final LongAdder typeCount = new LongAdder();
+        private ProjectAnalysis.Phase current;
+        private long phaseStart;
+        private long heapBefore;
+        private boolean inParsing;
+        private long startsBefore;
+
+        MeteredListener(ProjectAnalysis.Listener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void phase(ProjectAnalysis.Phase phase) {
+            long now = System.nanoTime();
+            if (current != null) {
+                long nanos = now - phaseStart;
+                phaseTimer(current.name().toLowerCase()).record(nanos, TimeUnit.NANOSECONDS);
+                if (current == ProjectAnalysis.Phase.PARSING) parsingDone(nanos);
+            }
+            if (phase == ProjectAnalysis.Phase.PARSING) parsingStarted();
+            current = phase == ProjectAnalysis.Phase.DONE ? null : phase;
+            phaseStart = now;
+            delegate.phase(phase);
+        }
+
+        private void parsingStarted() {
+            inParsing = true;
+            startsBefore = parsingStarts.incrementAndGet();
+            if (parsing.incrementAndGet() == 1 && heapOwner.compareAndSet(null, this)) {
+                heapBefore = heapUsed();
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+                }
+            }
+        }
+
+        private void parsingDone(long nanos) {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            lastFilesPerSecond.set(Math.round(files.sum() / seconds));
+            lastTypesPerSecond.set(Math.round(typeCount.sum() / seconds));
+            parsingEnded(true);
+        }
+
+        /**
+         * Fin du parsing (ou abandon) : publie le pic de tas si cette analyse l'a mesuré seule.
+         */
+        void parsingEnded(boolean completed) {
+            if (!inParsing) return;
+            inParsing = false;
+            parsing.decrementAndGet();
+            if (heapOwner.get() != this) return;
+            if (completed && parsingStarts.get() == startsBefore) {
+                long peak = 0;
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+                }
+                lastModelHeapBytes.set(Math.max(0, peak - heapBefore));
+            }
+            heapOwner.set(null);
+        }
+
+        @Override
+        public void fileAnalyzed(int index, File file, FileFacts facts, boolean fromCache) {
+            (fromCache ? filesFromCache : filesParsed).increment();
+            files.increment();
+            int calls = 0;
+            for (FileFacts.TypeFacts type : facts.getTypes()) {
+                for (FileFacts.MethodFacts method : type.getMethods()) calls += method.getCalls().size();
+            }
+            typeCount.add(facts.getTypes().size());
+            types.increment(facts.getTypes().size());
+            invocations.increment(calls);
+            delegate.fileAnalyzed(index, file, facts, fromCache);
+        }
+
+        @Override
+        public void modelProgress(int steps, int totalSteps) {
+            delegate.modelProgress(steps, totalSteps);
+        }
+
+        @Override
+        public void batchAnalyzed(int files, long modelNanos, long extractionNanos) {
+            phaseTimer("model").record(modelNanos, TimeUnit.NANOSECONDS);
+            phaseTimer("extraction").record(extractionNanos, TimeUnit.NANOSECONDS);
+            delegate.batchAnalyzed(files, modelNanos, extractionNanos);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return delegate.isCancelled();
+        }
+
+        @Override
+        public void metricsReady(Parser parser) {
+            delegate.metricsReady(parser);
+        }
+
+        @Override
+        public void couplingReady(CouplingMatrix coupling) {
+            delegate.couplingReady(coupling);
+        }
+
+        @Override
+        public void modulesReady(ModulePartitions modules) {
+            delegate.modulesReady(modules);
+        }
+
+        @Override
+        public void dendrogramReady(Dendrogram dendrogram) {
+            delegate.dendrogramReady(dendrogram);
+        }
+
+        @Override
+        public void completed(ProjectAnalysis analysis) {
+            delegate.completed(analysis);
+        }
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,186 @@
+package webanalyzer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache des résultats d'analyse de l'interface web (LRU, nombre d'entrées borné).
+ *
+ * Clé : chemin canonique du projet. Une entrée n'est servie que si l'empreinte de l'arborescence
+ * (chemin, taille et date de modification de chaque fichier .java) n'a pas changé : changer de
+ * classes, d'onglet ou de seuil ne relance donc pas l'analyse, modifier un fichier si.
+ */
+@Service
+public class AnalysisResultCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 8;
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, ProjectAnalysis> entries;
+    /** Taille et date de modification de chaque instantané en cache, au moment de sa lecture */
+    private final Map<String, String> snapshotStamps = new HashMap<>();
+    private final AnalysisMetrics metrics;
+
+    public AnalysisResultCache(@Value("${webanalyzer.cache.max-entries:" + DEFAULT_MAX_ENTRIES + "}") int maxEntries,
+                               AnalysisMetrics metrics) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<String, ProjectAnalysis>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProjectAnalysis> eldest) {
+                if (size() <= AnalysisResultCache.this.maxEntries) return false;
+                snapshotStamps.remove(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Clé du projet (chemin canonique, ou absolu si la résolution échoue).
+     */
+    public static String key(File folder) {
+        try {
+            return folder.getCanonicalPath();
+        } catch (IOException e) {
+            return folder.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Empreinte de l'arborescence : chemin, taille et date de modification de chaque fichier.
+     */
+    public static String fingerprint(List<File> javaFiles) {
+        List<File> files = new ArrayList<>(javaFiles);
+        files.sort(Comparator.comparing(File::getPath));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (File f : files) {
+                digest.update(f.getPath().getBytes(StandardCharsets.UTF_8));
+                digest.update(longBytes(f.length()));
+                digest.update(longBytes(f.lastModified()));
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] longBytes(long v) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) v;
+            v >>>= 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * Résultat en cache si l'arborescence n'a pas changé depuis ; une entrée périmée est retirée.
+     */
+    public synchronized ProjectAnalysis get(String key, String fingerprint) {
+        ProjectAnalysis cached = entries.get(key);
+        if (cached == null) return null;
+        if (!cached.getFingerprint().equals(fingerprint)) {
+            entries.remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Dernier résultat connu du projet, sans vérifier l'empreinte (requêtes de suivi : modules, etc.).
+     */
+    public synchronized ProjectAnalysis peek(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, ProjectAnalysis analysis) {
+        snapshotStamps.remove(key);
+        entries.put(key, analysis);
+    }
+
+    /**
+     * Résultat à jour du projet : depuis le cache, ou par une nouvelle analyse mise en cache.
+     */
+    public ProjectAnalysis getOrAnalyze(String projectPath, File folder, List<File> javaFiles) {
+        return getOrAnalyze(projectPath, folder, javaFiles, new ProjectAnalysis.Listener() { });
+    }
+
+    /**
+     * Idem, avec suivi de progression de l'analyse éventuelle.
+     */
+    public ProjectAnalysis getOrAnalyze(String projectPath, File folder, List<File> javaFiles,
+                                        ProjectAnalysis.Listener listener) {
+        String key = key(folder);
+        String fingerprint = fingerprint(javaFiles);
+        ProjectAnalysis cached = get(key, fingerprint);
+        if (cached != null) {
+            metrics.cacheHit();
+            listener.completed(cached);
+            listener.phase(ProjectAnalysis.Phase.DONE);
+            return cached;
+        }
+
+        metrics.cacheMiss();
+        ProjectAnalysis analysis = metrics.run(projectPath, folder, javaFiles, fingerprint, listener);
+        put(key, analysis);
+        return analysis;
+    }
+
+    /**
+     * Analyse archivée dans un instantané (clé : chemin du fichier .snap), relue au premier appel
+     * ou si le fichier a changé depuis (taille ou date de modification).
+     */
+    public ProjectAnalysis getOrLoadSnapshot(File snapshot) throws IOException {
+        return getOrLoadSnapshot(snapshot, null);
+    }
+
+    /**
+     * Idem, avec l'instantané déjà ouvert par l'appelant (null : ouvert ici si besoin).
+     */
+    public ProjectAnalysis getOrLoadSnapshot(File snapshot, AnalysisSnapshot opened) throws IOException {
+        String key = key(snapshot);
+        String stamp = snapshot.length() + ":" + snapshot.lastModified();
+        synchronized (this) {
+            ProjectAnalysis cached = entries.get(key);
+            if (cached != null && stamp.equals(snapshotStamps.get(key))) {
+                metrics.cacheHit();
+                return cached;
+            }
+        }
+        metrics.cacheMiss();
+        ProjectAnalysis analysis = (opened != null ? opened : AnalysisSnapshot.open(snapshot)).toProjectAnalysis();
+        synchronized (this) {
+            entries.put(key, analysis);
+            snapshotStamps.put(key, stamp);
+        }
+        return analysis;
+    }
+
+    public synchronized boolean invalidate(String key) {
+        snapshotStamps.remove(key);
+        return entries.remove(key) != null;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        snapshotStamps.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
@@ -0,0 +1,491 @@
+package webanalyzer.service;
+
+import analyse.AnalysisSession;
+import analyse.FileFacts;
+import analyse.ProjectMetrics;
+import graph.CallGraph;
+import graph.NameTable;
+import graph.SpoonParser;
+import webanalyzer.parser.Parser;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Instantané binaire d'une analyse terminée, écrit une fois puis relu par projection mémoire
+ * (FileChannel.map) sans reparser le projet : archivage des analyses par version, comparaison ultérieure.
+ *
+ * Format (version 1, big-endian, chaque tableau précédé de sa longueur) :
+ *   en-tête       MAGIC, VERSION, date de création (long), chemin du projet et empreinte (chaînes)
+ *   chaînes       décalages[S+1] puis octets UTF-8 ; toutes les autres sections y renvoient par indice
+ *   fichiers      chemin[F], empreinte du contenu[F], package[F], premier type[F+1]
+ *   types         nom qualifié[T], nom simple[T], package[T], drapeaux[T], lignes[T], attributs[T],
+ *                 première méthode[T+1]
+ *   méthodes      nom[M], paramètres[M], lignes[M], lignes du corps[M], drapeaux[M], premier appel[M+1]
+ *   appels        méthode appelée[C], type déclarant[C] (-1 si non résolu)
+ *   couplage      libellé[N], décalages[N+1], colonnes[E], valeurs[E] (double), total des relations
+ *   dendrogramme  feuille[L], gauche[K], droite[K], distance[K] (double)
+ *
+ * Les colonnes sont lues directement dans le tampon projeté, les chaînes décodées à la première lecture.
+ * Les modules (balayage union-find) sont recalculés au chargement à partir du couplage.
+ */
+public class AnalysisSnapshot {
+
+    public static final String EXTENSION = ".snap";
+
+    private static final int MAGIC = 0x414E5350; // "ANSP"
+    private static final int VERSION = 1;
+
+    private static final int TOP_LEVEL = 1;
+    private static final int CLASS = 2;
+    private static final int INTERFACE = 4;
+    private static final int HAS_BODY = 1;
+
+    private final File file;
+    private final long createdAt;
+    private final int projectPathId;
+    private final int fingerprintId;
+
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringBytes;
+    private final String[] strings;
+
+    private final IntBuffer filePath, fileHash, filePackage, fileTypes;
+    private final IntBuffer typeName, typeSimpleName, typePackage, typeFlags, typeLines, typeFields, typeMethods;
+    private final IntBuffer methodName, methodParameters, methodLines, methodBodyLines, methodFlags, methodCalls;
+    private final IntBuffer callName, callType;
+    private final IntBuffer couplingLabels, couplingRows, couplingColumns;
+    private final DoubleBuffer couplingValues;
+    private final int totalRelations;
+    private final IntBuffer leafLabels, mergeLeft, mergeRight;
+    private final DoubleBuffer mergeDistance;
+
+    private AnalysisSnapshot(File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) throw new IOException("Pas un instantané d'analyse : " + file);
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("Version d'instantané non prise en charge (" + version + ") : " + file);
+
+        this.createdAt = buffer.getLong();
+        this.projectPathId = buffer.getInt();
+        this.fingerprintId = buffer.getInt();
+
+        this.stringOffsets = ints(buffer);
+        int byteCount = buffer.getInt();
+        this.stringBytes = buffer.slice(buffer.position(), byteCount);
+        buffer.position(buffer.position() + byteCount);
+        this.strings = new String[Math.max(0, stringOffsets.limit() - 1)];
+
+        this.filePath = ints(buffer);
+        this.fileHash = ints(buffer);
+        this.filePackage = ints(buffer);
+        this.fileTypes = ints(buffer);
+
+        this.typeName = ints(buffer);
+        this.typeSimpleName = ints(buffer);
+        this.typePackage = ints(buffer);
+        this.typeFlags = ints(buffer);
+        this.typeLines = ints(buffer);
+        this.typeFields = ints(buffer);
+        this.typeMethods = ints(buffer);
+
+        this.methodName = ints(buffer);
+        this.methodParameters = ints(buffer);
+        this.methodLines = ints(buffer);
+        this.methodBodyLines = ints(buffer);
+        this.methodFlags = ints(buffer);
+        this.methodCalls = ints(buffer);
+
+        this.callName = ints(buffer);
+        this.callType = ints(buffer);
+
+        this.couplingLabels = ints(buffer);
+        this.couplingRows = ints(buffer);
+        this.couplingColumns = ints(buffer);
+        this.couplingValues = doubles(buffer);
+        this.totalRelations = buffer.getInt();
+
+        this.leafLabels = ints(buffer);
+        this.mergeLeft = ints(buffer);
+        this.mergeRight = ints(buffer);
+        this.mergeDistance = doubles(buffer);
+    }
+
+    // ---------- Lecture ----------
+
+    /**
+     * Projette le fichier en mémoire et vérifie son en-tête ; aucune donnée n'est copiée.
+     */
+    public static AnalysisSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Instantané trop volumineux : " + file);
+            try {
+                return new AnalysisSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            } catch (RuntimeException e) {
+                // tableau tronqué ou longueur incohérente
+                throw new IOException("Instantané illisible : " + file, e);
+            }
+        }
+    }
+
+    private static IntBuffer ints(ByteBuffer buffer) {
+        int n = buffer.getInt();
+        IntBuffer view = buffer.slice(buffer.position(), n * Integer.BYTES).asIntBuffer();
+        buffer.position(buffer.position() + n * Integer.BYTES);
+        return view;
+    }
+
+    private static DoubleBuffer doubles(ByteBuffer buffer) {
+        int n = buffer.getInt();
+        DoubleBuffer view = buffer.slice(buffer.position(), n * Double.BYTES).asDoubleBuffer();
+        buffer.position(buffer.position() + n * Double.BYTES);
+        return view;
+    }
+
+    public File getFile() { return file; }
+    public long getCreatedAt() { return createdAt; }
+    public String getProjectPath() { return string(projectPathId); }
+    public String getFingerprint() { return string(fingerprintId); }
+
+    /** Chaîne d'indice id de la table, décodée à la première lecture (null pour -1) */
+    public String string(int id) {
+        if (id < 0) return null;
+        String s = strings[id];
+        if (s == null) {
+            int from = stringOffsets.get(id);
+            byte[] bytes = new byte[stringOffsets.get(id + 1) - from];
+            stringBytes.get(from, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = s;
+        }
+        return s;
+    }
+
+    public int getFileCount() { return filePath.limit(); }
+    public int getTypeCount() { return typeName.limit(); }
+    public int getMethodCount() { return methodName.limit(); }
+    public int getCallCount() { return callName.limit(); }
+
+    /** Chemin du fichier f, relatif à la racine du projet */
+    public String filePath(int f) { return string(filePath.get(f)); }
+    public int typeStart(int f) { return fileTypes.get(f); }
+    public int typeEnd(int f) { return fileTypes.get(f + 1); }
+
+    public String typeName(int t) { return string(typeName.get(t)); }
+    public String typeSimpleName(int t) { return string(typeSimpleName.get(t)); }
+    public String typePackage(int t) { return string(typePackage.get(t)); }
+    public boolean isTopLevel(int t) { return (typeFlags.get(t) & TOP_LEVEL) != 0; }
+    public boolean isClass(int t) { return (typeFlags.get(t) & CLASS) != 0; }
+    public boolean isInterface(int t) { return (typeFlags.get(t) & INTERFACE) != 0; }
+    public int typeLines(int t) { return typeLines.get(t); }
+    public int typeFields(int t) { return typeFields.get(t); }
+    public int methodStart(int t) { return typeMethods.get(t); }
+    public int methodEnd(int t) { return typeMethods.get(t + 1); }
+
+    public String methodName(int m) { return string(methodName.get(m)); }
+    public int methodParameters(int m) { return methodParameters.get(m); }
+    public int methodLines(int m) { return methodLines.get(m); }
+    public int methodBodyLines(int m) { return methodBodyLines.get(m); }
+    public boolean hasBody(int m) { return (methodFlags.get(m) & HAS_BODY) != 0; }
+    public int callStart(int m) { return methodCalls.get(m); }
+    public int callEnd(int m) { return methodCalls.get(m + 1); }
+
+    public String callName(int c) { return string(callName.get(c)); }
+    /** Type déclarant de l'appel c, ou null si Spoon ne l'avait pas résolu */
+    public String callType(int c) { return string(callType.get(c)); }
+
+    // ---------- Reconstruction des structures d'analyse ----------
+
+    /**
+     * Faits par fichier, dans l'ordre d'origine.
+     */
+    public List<FileFacts> toFileFacts() {
+        List<FileFacts> facts = new ArrayList<>(getFileCount());
+        for (int f = 0; f < getFileCount(); f++) {
+            List<FileFacts.TypeFacts> types = new ArrayList<>(typeEnd(f) - typeStart(f));
+            for (int t = typeStart(f); t < typeEnd(f); t++) {
+                List<FileFacts.MethodFacts> methods = new ArrayList<>(methodEnd(t) - methodStart(t));
+                for (int m = methodStart(t); m < methodEnd(t); m++) {
+                    List<FileFacts.CallFacts> calls = new ArrayList<>(callEnd(m) - callStart(m));
+                    for (int c = callStart(m); c < callEnd(m); c++) {
+                        calls.add(new FileFacts.CallFacts(callName(c), callType(c)));
+                    }
+                    methods.add(new FileFacts.MethodFacts(methodName(m), methodParameters(m), methodLines(m),
+                            methodBodyLines(m), hasBody(m), calls));
+                }
+                types.add(new FileFacts.TypeFacts(typeName(t), typeSimpleName(t), typePackage(t),
+                        isTopLevel(t), isClass(t), isInterface(t), typeLines(t), typeFields(t), methods));
+            }
+            facts.add(new FileFacts(filePath(f), string(fileHash.get(f)), string(filePackage.get(f)), types));
+        }
+        return facts;
+    }
+
+    /**
+     * Métriques par fichier (SpoonAnalyzerGUI) ; les fichiers sont situés sous le chemin d'origine du projet.
+     */
+    public ProjectMetrics toProjectMetrics() {
+        List<FileFacts> facts = toFileFacts();
+        ProjectMetrics project = new ProjectMetrics(facts.size());
+        File root = new File(getProjectPath());
+        for (int i = 0; i < facts.size(); i++) {
+            project.merge(i, new File(root, facts.get(i).getPath()), facts.get(i));
+        }
+        return project;
+    }
+
+    /**
+     * Graphe d'appels (SpoonCallGraphGUI), construit comme SpoonParser à partir des faits.
+     */
+    public CallGraph toCallGraph() {
+        return SpoonParser.buildCallGraph(toFileFacts());
+    }
+
+    public CouplingMatrix toCouplingMatrix() {
+        String[] labels = new String[couplingLabels.limit()];
+        for (int a = 0; a < labels.length; a++) labels[a] = string(couplingLabels.get(a));
+        return CouplingMatrix.of(labels, toArray(couplingRows), toArray(couplingColumns), toArray(couplingValues),
+                totalRelations);
+    }
+
+    /** Dendrogramme enregistré, ou null si le couplage était vide */
+    public Dendrogram toDendrogram() {
+        if (leafLabels.limit() == 0) return null;
+        String[] leaves = new String[leafLabels.limit()];
+        for (int i = 0; i < leaves.length; i++) leaves[i] = string(leafLabels.get(i));
+        return new Dendrogram(leaves, toArray(mergeLeft), toArray(mergeRight), toArray(mergeDistance));
+    }
+
+    /**
+     * Analyse complète pour l'interface web : métriques et graphe d'appels recalculés depuis les faits,
+     * couplage et dendrogramme relus, modules rebalayés.
+     */
+    public ProjectAnalysis toProjectAnalysis() {
+        List<FileFacts> facts = toFileFacts();
+        Parser parser = new Parser();
+        parser.analyzeFacts(getProjectPath(), facts);
+        CallGraph callGraph = SpoonParser.buildCallGraph(facts);
+        CouplingMatrix coupling = toCouplingMatrix();
+
+        List<String> classAliases = new ArrayList<>(facts.size());
+        for (FileFacts f : facts) classAliases.add(ProjectAnalysis.extractClassName(new File(f.getPath())));
+
+        return new ProjectAnalysis(getProjectPath(), getFingerprint(), classAliases, parser, callGraph, coupling,
+                ModuleIdentifierService.sweep(coupling), toDendrogram());
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] array = new int[buffer.limit()];
+        buffer.get(0, array);
+        return array;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer) {
+        double[] array = new double[buffer.limit()];
+        buffer.get(0, array);
+        return array;
+    }
+
+    // ---------- Écriture ----------
+
+    /**
+     * Analyse le projet (incrémentale, via le cache de faits) puis écrit son instantané.
+     * @return l'analyse écrite
+     */
+    public static ProjectAnalysis create(File folder, File out) throws IOException {
+        List<File> javaFiles = AnalysisSession.listJavaFiles(folder);
+        ProjectAnalysis.Listener listener = new ProjectAnalysis.Listener() { };
+        List<FileFacts> facts = ProjectAnalysis.extractFacts(folder, javaFiles, listener);
+        ProjectAnalysis analysis = ProjectAnalysis.fromFacts(folder.getPath(), javaFiles,
+                AnalysisResultCache.fingerprint(javaFiles), facts, listener);
+        write(out, analysis, facts);
+        return analysis;
+    }
+
+    /**
+     * Écrit l'instantané d'une analyse et des faits dont elle est issue
+     * (fichier temporaire puis renommage, comme le cache de faits).
+     */
+    public static void write(File out, ProjectAnalysis analysis, List<FileFacts> facts) throws IOException {
+        NameTable strings = new NameTable();
+        int projectPath = strings.intern(analysis.getProjectPath());
+        int fingerprint = strings.intern(analysis.getFingerprint());
+
+        int typeCount = 0, methodCount = 0, callCount = 0;
+        for (FileFacts f : facts) {
+            for (FileFacts.TypeFacts t : f.getTypes()) {
+                typeCount++;
+                for (FileFacts.MethodFacts m : t.getMethods()) {
+                    methodCount++;
+                    callCount += m.getCalls().size();
+                }
+            }
+        }
+
+        int fileCount = facts.size();
+        int[] filePath = new int[fileCount], fileHash = new int[fileCount], filePackage = new int[fileCount],
+                fileTypes = new int[fileCount + 1];
+        int[] typeName = new int[typeCount], typeSimpleName = new int[typeCount], typePackage = new int[typeCount],
+                typeFlags = new int[typeCount], typeLines = new int[typeCount], typeFields = new int[typeCount],
+                typeMethods = new int[typeCount + 1];
+        int[] methodName = new int[methodCount], methodParameters = new int[methodCount],
+                methodLines = new int[methodCount], methodBodyLines = new int[methodCount],
+                methodFlags = new int[methodCount], methodCalls = new int[methodCount + 1];
+        int[] callName = new int[callCount], callType = new int[callCount];
+
+        int t = 0, m = 0, c = 0;
+        for (int f = 0; f < fileCount; f++) {
+            FileFacts file = facts.get(f);
+            filePath[f] = strings.intern(file.getPath());
+            fileHash[f] = strings.intern(file.getHash());
+            filePackage[f] = strings.intern(file.getPackageName());
+            fileTypes[f] = t;
+            for (FileFacts.TypeFacts type : file.getTypes()) {
+                typeName[t] = strings.intern(type.getQualifiedName());
+                typeSimpleName[t] = strings.intern(type.getSimpleName());
+                typePackage[t] = strings.intern(type.getPackageName());
+                typeFlags[t] = (type.isTopLevel() ? TOP_LEVEL : 0) | (type.isClass() ? CLASS : 0)
+                        | (type.isInterface() ? INTERFACE : 0);
+                typeLines[t] = type.getLines();
+                typeFields[t] = type.getFieldCount();
+                typeMethods[t] = m;
+                for (FileFacts.MethodFacts method : type.getMethods()) {
+                    methodName[m] = strings.intern(method.getName());
+                    methodParameters[m] = method.getParameterCount();
+                    methodLines[m] = method.getLines();
+                    methodBodyLines[m] = method.getBodyLines();
+                    methodFlags[m] = method.hasBody() ? HAS_BODY : 0;
+                    methodCalls[m] = c;
+                    for (FileFacts.CallFacts call : method.getCalls()) {
+                        callName[c] = strings.intern(call.getName());
+                        callType[c] = call.getDeclaringType() != null ? strings.intern(call.getDeclaringType()) : -1;
+                        c++;
+                    }
+                    m++;
+                }
+                t++;
+            }
+        }
+        fileTypes[fileCount] = t;
+        typeMethods[typeCount] = m;
+        methodCalls[methodCount] = c;
+
+        CouplingMatrix coupling = analysis.getCoupling();
+        int n = coupling.size();
+        int[] labels = new int[n], rows = new int[n + 1];
+        for (int a = 0; a < n; a++) {
+            labels[a] = strings.intern(coupling.label(a));
+            rows[a] = coupling.rowStart(a);
+        }
+        rows[n] = coupling.getNonZeroCount();
+        int[] columns = new int[coupling.getNonZeroCount()];
+        double[] values = new double[coupling.getNonZeroCount()];
+        for (int k = 0; k < columns.length; k++) {
+            columns[k] = coupling.column(k);
+            values[k] = coupling.value(k);
+        }
+
+        Dendrogram tree = analysis.getDendrogram();
+        int leafCount = tree != null ? tree.getLeafCount() : 0;
+        int mergeCount = tree != null ? tree.getNodeCount() - leafCount : 0;
+        int[] leaves = new int[leafCount], left = new int[mergeCount], right = new int[mergeCount];
+        double[] distance = new double[mergeCount];
+        for (int i = 0; i < leafCount; i++) leaves[i] = strings.intern(tree.label(i));
+        for (int i = 0; i < mergeCount; i++) {
+            left[i] = tree.getLeft(leafCount + i);
+            right[i] = tree.getRight(leafCount + i);
+            distance[i] = tree.getDistance(leafCount + i);
+        }
+
+        File dir = out.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) throw new IOException("Impossible de créer " + dir);
+        File tmp = new File(dir, out.getName() + ".tmp");
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(System.currentTimeMillis());
+            data.writeInt(projectPath);
+            data.writeInt(fingerprint);
+
+            // table des chaînes : décalages puis octets
+            byte[][] encoded = new byte[strings.size()][];
+            int[] offsets = new int[strings.size() + 1];
+            for (int id = 0; id < strings.size(); id++) {
+                encoded[id] = strings.name(id).getBytes(StandardCharsets.UTF_8);
+                offsets[id + 1] = offsets[id] + encoded[id].length;
+            }
+            writeInts(data, offsets);
+            data.writeInt(offsets[strings.size()]);
+            for (byte[] bytes : encoded) data.write(bytes);
+
+            writeInts(data, filePath, fileHash, filePackage, fileTypes);
+            writeInts(data, typeName, typeSimpleName, typePackage, typeFlags, typeLines, typeFields, typeMethods);
+            writeInts(data, methodName, methodParameters, methodLines, methodBodyLines, methodFlags, methodCalls);
+            writeInts(data, callName, callType);
+            writeInts(data, labels, rows, columns);
+            writeDoubles(data, values);
+            data.writeInt(coupling.getTotalRelations());
+            writeInts(data, leaves, left, right);
+            writeDoubles(data, distance);
+        }
+        Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeInts(DataOutputStream out, int[]... arrays) throws IOException {
+        for (int[] array : arrays) {
+            out.writeInt(array.length);
+            for (int v : array) out.writeInt(v);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] array) throws IOException {
+        out.writeInt(array.length);
+        for (double v : array) out.writeDouble(v);
+    }
+
+    // ---------- Ligne de commande ----------
+
+    /**
+     * Usage : AnalysisSnapshot <projet> <fichier.snap>   analyse le projet et écrit son instantané
+     *         AnalysisSnapshot --info <fichier.snap>     relit un instantané et affiche son contenu
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage : AnalysisSnapshot <projet> <fichier" + EXTENSION + ">");
+            System.err.println("        AnalysisSnapshot --info <fichier" + EXTENSION + ">");
+            System.exit(1);
+        }
+        if (args[0].equals("--info")) {
+            long start = System.nanoTime();
+            AnalysisSnapshot snapshot = open(new File(args[1]));
+            ProjectAnalysis analysis = snapshot.toProjectAnalysis();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Projet        : " + snapshot.getProjectPath());
+            System.out.println("Créé le       : " + new Date(snapshot.getCreatedAt()));
+            System.out.println("Empreinte     : " + snapshot.getFingerprint());
+            System.out.println("Fichiers      : " + snapshot.getFileCount());
+            System.out.println("Types         : " + snapshot.getTypeCount());
+            System.out.println("Méthodes      : " + snapshot.getMethodCount());
+            System.out.println("Appels        : " + snapshot.getCallCount());
+            System.out.println("Couplage      : " + analysis.getCoupling().size() + " classes, "
+                    + analysis.getCoupling().getNonZeroCount() + " relations");
+            System.out.println("Chargement    : " + millis + " ms");
+            return;
+        }
+        long start = System.nanoTime();
+        ProjectAnalysis analysis = create(new File(args[0]), new File(args[1]));
+        System.out.println("Instantané de " + analysis.getProjectPath() + " écrit dans " + args[1]
+                + " (" + new File(args[1]).length() / 1024 + " Ko, " + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+}
@@ -0,0 +1,228 @@
+package webanalyzer.service;
+
+import graph.CallGraph;
+import graph.NameTable;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Matrice de couplage creuse entre classes.
+ * couplage(A, B) = nombre d'appels de A vers des méthodes de B / nombre total d'appels entre classes différentes.
+ *
+ * Les classes sont indexées par des entiers (sources puis cibles, dans l'ordre de rencontre),
+ * les lignes stockées en CSR (décalages, colonnes, valeurs) et un index à adressage ouvert
+ * donne la valeur d'une paire en O(1).
+ */
+public class CouplingMatrix {
+
+    private final NameTable labels;
+    private final int[] rowOffsets;
+    private final int[] columns;
+    private final double[] values;
+    private final int totalRelations;
+    private final PairIndex index;
+
+    private CouplingMatrix(NameTable labels, int[] rowOffsets, int[] columns, double[] values, int totalRelations) {
+        this.labels = labels;
+        this.rowOffsets = rowOffsets;
+        this.columns = columns;
+        this.values = values;
+        this.totalRelations = totalRelations;
+        this.index = new PairIndex(columns.length);
+        for (int a = 0; a < labels.size(); a++) {
+            for (int k = rowOffsets[a]; k < rowOffsets[a + 1]; k++) index.put(a, columns[k], k);
+        }
+    }
+
+    /**
+     * Matrice relue telle quelle (instantané d'analyse) : libellés, lignes CSR et total des relations.
+     */
+    static CouplingMatrix of(String[] labels, int[] rowOffsets, int[] columns, double[] values, int totalRelations) {
+        NameTable table = new NameTable();
+        for (String label : labels) table.intern(label);
+        return new CouplingMatrix(table, rowOffsets, columns, values, totalRelations);
+    }
+
+    /**
+     * Calcule la matrice en une passe sur les arêtes du graphe d'appels, en parallèle sur les classes sources.
+     * Un appel est interne (ignoré) quand son type déclarant est la classe source elle-même
+     * (comparaison insensible à la casse, suffixe .java retiré).
+     */
+    public static CouplingMatrix of(CallGraph graph) {
+        NameTable names = graph.getTypeNames();
+        int nameCount = names.size();
+
+        // identifiant canonique de chaque nom, pour le test d'appel interne sans comparaison de chaînes
+        Map<String, Integer> canonical = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int[] targetKey = new int[nameCount];
+        for (int id = 0; id < nameCount; id++) {
+            targetKey[id] = canonical.computeIfAbsent(names.name(id).replace(".java", ""), k -> canonical.size());
+        }
+        int classCount = graph.getClassCount();
+        int[] sourceKey = new int[classCount];
+        for (int c = 0; c < classCount; c++) {
+            sourceKey[c] = canonical.computeIfAbsent(graph.className(c), k -> canonical.size());
+        }
+
+        // 1) comptes par ligne (colonnes = identifiants de types du graphe)
+        int[][] rowTargets = new int[classCount][];
+        int[][] rowCounts = new int[classCount][];
+        ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[nameCount]);
+
+        IntStream.range(0, classCount).parallel().forEach(c -> {
+            int[] counts = scratch.get();
+            int[] touched = new int[8];
+            int n = 0;
+            for (int m = graph.methodStart(c); m < graph.methodEnd(c); m++) {
+                for (int e = graph.edgeStart(m); e < graph.edgeEnd(m); e++) {
+                    int target = graph.edgeTargetClass(e);
+                    if (targetKey[target] == sourceKey[c]) continue;
+                    if (counts[target] == 0) {
+                        if (n == touched.length) touched = Arrays.copyOf(touched, n * 2);
+                        touched[n++] = target;
+                    }
+                    counts[target] += graph.edgeMultiplicity(e);
+                }
+            }
+            int[] targets = Arrays.copyOf(touched, n);
+            int[] rowCount = new int[n];
+            for (int i = 0; i < n; i++) {
+                rowCount[i] = counts[targets[i]];
+                counts[targets[i]] = 0;
+            }
+            rowTargets[c] = targets;
+            rowCounts[c] = rowCount;
+        });
+
+        // 2) renumérotation dense des classes et normalisation
+        int total = 0;
+        int nonZero = 0;
+        for (int c = 0; c < classCount; c++) {
+            for (int count : rowCounts[c]) total += count;
+            nonZero += rowCounts[c].length;
+        }
+
+        NameTable labels = new NameTable();
+        int[] node = new int[nameCount];
+        Arrays.fill(node, -1);
+        for (int c = 0; c < classCount; c++) {
+            if (rowTargets[c].length == 0) continue;
+            node[graph.classNameId(c)] = labels.intern(graph.className(c));
+            for (int t : rowTargets[c]) if (node[t] < 0) node[t] = labels.intern(names.name(t));
+        }
+
+        int nodeCount = labels.size();
+        int[] rowOffsets = new int[nodeCount + 1];
+        for (int c = 0; c < classCount; c++) {
+            if (rowTargets[c].length > 0) rowOffsets[node[graph.classNameId(c)] + 1] = rowTargets[c].length;
+        }
+        for (int a = 0; a < nodeCount; a++) rowOffsets[a + 1] += rowOffsets[a];
+
+        int[] columns = new int[nonZero];
+        double[] values = new double[nonZero];
+        for (int c = 0; c < classCount; c++) {
+            if (rowTargets[c].length == 0) continue;
+            int k = rowOffsets[node[graph.classNameId(c)]];
+            for (int i = 0; i < rowTargets[c].length; i++, k++) {
+                columns[k] = node[rowTargets[c][i]];
+                values[k] = (double) rowCounts[c][i] / total;
+            }
+        }
+
+        return new CouplingMatrix(labels, rowOffsets, columns, values, total);
+    }
+
+    // ---------- Accès ----------
+
+    /** Nombre de classes (sources et cibles) présentes dans la matrice */
+    public int size() { return labels.size(); }
+
+    /** Nombre de paires (A, B) de couplage non nul */
+    public int getNonZeroCount() { return columns.length; }
+
+    /** Nombre total d'appels entre classes différentes */
+    public int getTotalRelations() { return totalRelations; }
+
+    public String label(int a) { return labels.name(a); }
+
+    /** Indice de la classe, ou -1 si elle n'apparaît dans aucune relation */
+    public int indexOf(String className) {
+        return className == null ? -1 : labels.find(className);
+    }
+
+    public int rowStart(int a) { return rowOffsets[a]; }
+    public int rowEnd(int a) { return rowOffsets[a + 1]; }
+    public int column(int k) { return columns[k]; }
+    public double value(int k) { return values[k]; }
+
+    public double get(int a, int b) {
+        int k = index.get(a, b);
+        return k < 0 ? 0.0 : values[k];
+    }
+
+    /** Couplage de A vers B (0 si aucune relation) */
+    public double get(String a, String b) {
+        int ia = indexOf(a);
+        int ib = indexOf(b);
+        return ia < 0 || ib < 0 ? 0.0 : get(ia, ib);
+    }
+
+    /**
+     * Copie sous la forme historique Map<A, Map<B, couplage>> (lignes vides omises).
+     */
+    public Map<String, Map<String, Double>> toMap() {
+        Map<String, Map<String, Double>> map = new LinkedHashMap<>();
+        for (int a = 0; a < size(); a++) {
+            if (rowStart(a) == rowEnd(a)) continue;
+            Map<String, Double> row = new LinkedHashMap<>();
+            for (int k = rowStart(a); k < rowEnd(a); k++) row.put(label(columns[k]), values[k]);
+            map.put(label(a), row);
+        }
+        return map;
+    }
+
+    /**
+     * Table de hachage (a, b) -> position dans values, à adressage ouvert et sondage linéaire.
+     */
+    private static final class PairIndex {
+        private final long[] keys;
+        private final int[] slots;
+        private final int mask;
+
+        PairIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(keys, -1L);
+        }
+
+        private static long key(int a, int b) {
+            return ((long) a << 32) | (b & 0xFFFFFFFFL);
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        void put(int a, int b, int value) {
+            long key = key(a, b);
+            int i = slot(key);
+            while (keys[i] != -1L && keys[i] != key) i = (i + 1) & mask;
+            keys[i] = key;
+            slots[i] = value;
+        }
+
+        int get(int a, int b) {
+            long key = key(a, b);
+            int i = slot(key);
+            while (keys[i] != -1L) {
+                if (keys[i] == key) return slots[i];
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package webanalyzer.service;
+
+import java.util.Arrays;
+
+/**
+ * Dendrogramme compact : nœuds numérotés par des entiers, enfants/parents et distances en tableaux.
+ *
+ * Feuilles 0..n-1 (classes), nœud interne n + i pour la fusion i ; un nœud a toujours un identifiant
+ * plus grand que ses enfants et la racine est le dernier nœud.
+ * Les libellés des clusters ne sont construits qu'à l'affichage. L'objet est immuable et sans état
+ * partagé : plusieurs requêtes peuvent en construire en parallèle.
+ */
+public class Dendrogram {
+
+    /** Au-delà de ce nombre de classes, le libellé d'un cluster est abrégé */
+    public static final int MAX_LABEL_LEAVES = 4;
+
+    // marqueurs de la pile de construction des libellés
+    private static final int CLOSE = -1;
+    private static final int COMMA = -2;
+
+    private final String[] leafLabels;
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final int[] size;
+    private final double[] distance;
+
+    /**
+     * @param leafLabels nom de chaque feuille
+     * @param mergeLeft  premier cluster de la fusion i
+     * @param mergeRight second cluster de la fusion i
+     * @param mergeDistance couplage de la fusion i
+     */
+    public Dendrogram(String[] leafLabels, int[] mergeLeft, int[] mergeRight, double[] mergeDistance) {
+        int n = leafLabels.length;
+        int count = n + mergeLeft.length;
+        this.leafLabels = leafLabels;
+        this.left = new int[count];
+        this.right = new int[count];
+        this.parent = new int[count];
+        this.size = new int[count];
+        this.distance = new double[count];
+
+        Arrays.fill(left, 0, n, -1);
+        Arrays.fill(right, 0, n, -1);
+        Arrays.fill(parent, -1);
+        Arrays.fill(size, 0, n, 1);
+        for (int i = 0; i < mergeLeft.length; i++) {
+            int node = n + i;
+            left[node] = mergeLeft[i];
+            right[node] = mergeRight[i];
+            distance[node] = mergeDistance[i];
+            parent[mergeLeft[i]] = node;
+            parent[mergeRight[i]] = node;
+            size[node] = size[mergeLeft[i]] + size[mergeRight[i]];
+        }
+    }
+
+    public int getLeafCount() { return leafLabels.length; }
+    public int getNodeCount() { return left.length; }
+
+    /** Racine, ou -1 si le dendrogramme est vide */
+    public int getRoot() { return left.length - 1; }
+
+    public boolean isLeaf(int node) { return left[node] < 0; }
+    public int getLeft(int node) { return left[node]; }
+    public int getRight(int node) { return right[node]; }
+    public int getParent(int node) { return parent[node]; }
+    public double getDistance(int node) { return distance[node]; }
+
+    /** Nombre de classes sous le nœud */
+    public int getSize(int node) { return size[node]; }
+
+    /** Identifiant du nœud pour Cytoscape */
+    public String id(int node) {
+        return "n" + node;
+    }
+
+    /**
+     * Libellé complet "(gauche,droite)" du nœud, construit à la demande.
+     */
+    public String label(int node) {
+        if (isLeaf(node)) return leafLabels[node];
+        StringBuilder sb = new StringBuilder();
+        appendLabel(node, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Libellé d'affichage : complet pour les petits clusters, abrégé au-delà de MAX_LABEL_LEAVES classes.
+     */
+    public String displayLabel(int node) {
+        if (size[node] <= MAX_LABEL_LEAVES) return label(node);
+        return "[" + size[node] + " classes]";
+    }
+
+    // parcours itératif : la profondeur peut atteindre le nombre de classes
+    private void appendLabel(int node, StringBuilder sb) {
+        int[] stack = new int[2 * size[node]];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            if (current == CLOSE) {
+                sb.append(')');
+            } else if (current == COMMA) {
+                sb.append(',');
+            } else if (isLeaf(current)) {
+                sb.append(leafLabels[current]);
+            } else {
+                if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                sb.append('(');
+                stack[top++] = CLOSE;
+                stack[top++] = right[current];
+                stack[top++] = COMMA;
+                stack[top++] = left[current];
+            }
+        }
+    }
+
+    /**
+     * Feuilles dans l'ordre d'affichage (gauche à droite).
+     */
+    public int[] leafOrder() {
+        int[] order = new int[getLeafCount()];
+        if (order.length == 0) return order;
+        int[] stack = new int[getNodeCount()];
+        int top = 0, k = 0;
+        stack[top++] = getRoot();
+        while (top > 0) {
+            int node = stack[--top];
+            if (isLeaf(node)) {
+                order[k++] = node;
+            } else {
+                stack[top++] = right[node];
+                stack[top++] = left[node];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Nœuds en préordre (racine d'abord, puis sous-arbre gauche, puis droit).
+     */
+    public int[] preOrder() {
+        int[] order = new int[getNodeCount()];
+        if (order.length == 0) return order;
+        int[] stack = new int[getNodeCount()];
+        int top = 0, k = 0;
+        stack[top++] = getRoot();
+        while (top > 0) {
+            int node = stack[--top];
+            order[k++] = node;
+            if (!isLeaf(node)) {
+                stack[top++] = right[node];
+                stack[top++] = left[node];
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,269 @@
+package webanalyzer.service;
+
+import java.util.Arrays;
+
+/**
+ * Classification hiérarchique par lien moyen sur la matrice de couplage (similarité : plus fort = plus proche).
+ *
+ * À chaque étape la paire de clusters de plus fort couplage est fusionnée, et le couplage du nouveau
+ * cluster C = A ∪ B avec un autre cluster O vaut (couplage(A, O) + couplage(B, O)) / 2.
+ * Entre deux classes d'origine, la paire est choisie sur le plus fort des deux sens et la mise à jour
+ * utilise le sens sortant (A -> O), comme l'algorithme historique de DendrogramService.
+ *
+ * Seuls les couplages non nuls sont stockés (table primitive par cluster) et les paires candidates sont
+ * tenues dans un tas binaire avec suppression paresseuse : O(E log E) au lieu de O(n³).
+ * Les clusters sans aucun couplage entre eux sont fusionnés en dernier, à distance 0.
+ *
+ * Numérotation : feuilles 0..n-1 (indices de la matrice), la fusion i crée le cluster n + i (cf. Dendrogram).
+ */
+public final class LinkageClustering {
+
+    private LinkageClustering() {
+    }
+
+    public static Dendrogram cluster(CouplingMatrix matrix) {
+        int n = matrix.size();
+        int total = Math.max(0, 2 * n - 1);
+        int mergeCount = Math.max(0, n - 1);
+
+        int[] left = new int[mergeCount];
+        int[] right = new int[mergeCount];
+        double[] distance = new double[mergeCount];
+        boolean[] active = new boolean[total];
+        IntDoubleMap[] links = new IntDoubleMap[total];
+        PairHeap heap = new PairHeap(Math.max(16, matrix.getNonZeroCount()));
+
+        // Couplage symétrique initial : le plus fort des deux sens
+        for (int a = 0; a < n; a++) {
+            active[a] = true;
+            links[a] = new IntDoubleMap(4);
+        }
+        for (int a = 0; a < n; a++) {
+            for (int k = matrix.rowStart(a); k < matrix.rowEnd(a); k++) {
+                int b = matrix.column(k);
+                if (a == b) continue;
+                double v = matrix.value(k);
+                if (v > links[a].get(b)) {
+                    links[a].put(b, v);
+                    links[b].put(a, v);
+                }
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            IntDoubleMap row = links[a];
+            for (int s = 0; s < row.capacity(); s++) {
+                int b = row.keyAt(s);
+                if (b > a) heap.push(row.valueAt(s), a, b);
+            }
+        }
+
+        int next = n;
+        while (next < total && !heap.isEmpty()) {
+            double value = heap.topValue();
+            int a = heap.topA();
+            int b = heap.topB();
+            heap.pop();
+            if (!active[a] || !active[b]) continue;  // entrée périmée
+
+            // entre deux feuilles, la gauche est la source du sens le plus fort
+            if (a < n && b < n && matrix.get(b, a) > matrix.get(a, b)) {
+                int t = a; a = b; b = t;
+            }
+
+            int c = next++;
+            left[c - n] = a;
+            right[c - n] = b;
+            distance[c - n] = value;
+            active[a] = false;
+            active[b] = false;
+            active[c] = true;
+
+            IntDoubleMap merged = new IntDoubleMap(links[a].size() + links[b].size());
+            links[c] = merged;
+            for (int side = 0; side < 2; side++) {
+                IntDoubleMap row = links[side == 0 ? a : b];
+                for (int s = 0; s < row.capacity(); s++) {
+                    int o = row.keyAt(s);
+                    if (o < 0 || !active[o] || merged.containsKey(o)) continue;
+                    double v = (outgoing(matrix, links, n, a, o) + outgoing(matrix, links, n, b, o)) / 2.0;
+                    if (v <= 0) continue;
+                    merged.put(o, v);
+                    links[o].put(c, v);
+                    heap.push(v, o, c);
+                }
+            }
+            links[a] = null;
+            links[b] = null;
+        }
+
+        // Clusters restants (aucun couplage entre eux) : fusion à distance 0, par ordre de création
+        int current = -1;
+        int created = next;
+        for (int id = 0; id < created; id++) {
+            if (!active[id]) continue;
+            if (current < 0) {
+                current = id;
+                continue;
+            }
+            int c = next++;
+            left[c - n] = current;
+            right[c - n] = id;
+            distance[c - n] = 0.0;
+            active[current] = false;
+            active[id] = false;
+            active[c] = true;
+            current = c;
+        }
+
+        String[] labels = new String[n];
+        for (int i = 0; i < n; i++) labels[i] = matrix.label(i);
+        return new Dendrogram(labels, left, right, distance);
+    }
+
+    /** Couplage de x vers o : orienté entre deux feuilles, symétrique dès qu'un cluster fusionné est en jeu */
+    private static double outgoing(CouplingMatrix matrix, IntDoubleMap[] links, int n, int x, int o) {
+        if (x < n && o < n) return matrix.get(x, o);
+        return links[x].get(o);
+    }
+
+    /**
+     * Table int -> double à adressage ouvert (clé -1 = case vide, absence = 0).
+     */
+    private static final class IntDoubleMap {
+        private int[] keys;
+        private double[] values;
+        private int size;
+
+        IntDoubleMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(2, expected) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, -1);
+        }
+
+        int size() { return size; }
+        int capacity() { return keys.length; }
+        int keyAt(int slot) { return keys[slot]; }
+        double valueAt(int slot) { return values[slot]; }
+
+        private int slot(int key) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (keys.length - 1);
+        }
+
+        double get(int key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key); keys[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return 0.0;
+        }
+
+        boolean containsKey(int key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key); keys[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == key) return true;
+            }
+            return false;
+        }
+
+        void put(int key, double value) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (keys[i] != -1 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == -1) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Tas binaire max sur (couplage, a, b) en tableaux parallèles ;
+     * à couplage égal, la paire créée le plus tôt passe en premier.
+     */
+    private static final class PairHeap {
+        private double[] value;
+        private int[] a;
+        private int[] b;
+        private long[] order;
+        private int size;
+        private long counter;
+
+        PairHeap(int capacity) {
+            value = new double[capacity];
+            a = new int[capacity];
+            b = new int[capacity];
+            order = new long[capacity];
+        }
+
+        boolean isEmpty() { return size == 0; }
+        double topValue() { return value[0]; }
+        int topA() { return a[0]; }
+        int topB() { return b[0]; }
+
+        void push(double v, int x, int y) {
+            if (size == value.length) {
+                int capacity = size * 2;
+                value = Arrays.copyOf(value, capacity);
+                a = Arrays.copyOf(a, capacity);
+                b = Arrays.copyOf(b, capacity);
+                order = Arrays.copyOf(order, capacity);
+            }
+            int i = size++;
+            set(i, v, x, y, counter++);
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        void pop() {
+            size--;
+            if (size == 0) return;
+            set(0, value[size], a[size], b[size], order[size]);
+            int i = 0;
+            while (true) {
+                int l = 2 * i + 1;
+                if (l >= size) break;
+                int best = l + 1 < size && before(l + 1, l) ? l + 1 : l;
+                if (!before(best, i)) break;
+                swap(i, best);
+                i = best;
+            }
+        }
+
+        private boolean before(int i, int j) {
+            if (value[i] != value[j]) return value[i] > value[j];
+            return order[i] < order[j];
+        }
+
+        private void set(int i, double v, int x, int y, long o) {
+            value[i] = v;
+            a[i] = x;
+            b[i] = y;
+            order[i] = o;
+        }
+
+        private void swap(int i, int j) {
+            double v = value[i]; value[i] = value[j]; value[j] = v;
+            int t = a[i]; a[i] = a[j]; a[j] = t;
+            t = b[i]; b[i] = b[j]; b[j] = t;
+            long o = order[i]; order[i] = order[j]; order[j] = o;
+        }
+    }
+}
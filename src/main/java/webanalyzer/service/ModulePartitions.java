@@ -0,0 +1,209 @@
+package webanalyzer.service;
+
+import java.util.*;
+
+/**
+ * Partitions en modules pour tous les seuils de couplage, calculées une seule fois.
+ *
+ * Les relations de la matrice sont triées par couplage décroissant puis balayées avec un union-find
+ * en tableaux : chaque valeur distincte de couplage est un niveau, et chaque union réussie est
+ * enregistrée avec son niveau. La partition pour un seuil t (relations de couplage >= t) est le
+ * préfixe des unions des niveaux >= t : une requête ne rejoue que ces unions, sans retrier ni
+ * reconstruire de graphe.
+ */
+public class ModulePartitions {
+
+    private final String[] labels;
+    // valeurs distinctes de couplage, décroissantes (niveau j = thresholds[j])
+    private final double[] thresholds;
+    // niveau à partir duquel la classe appartient à un module
+    private final int[] activation;
+    // unions réussies, dans l'ordre du balayage ; mergeEnd[j] = nombre d'unions des niveaux < j
+    private final int[] mergeA;
+    private final int[] mergeB;
+    private final int[] mergeEnd;
+    // nombre de modules et de classes concernées à chaque niveau
+    private final int[] moduleCount;
+    private final int[] activeCount;
+
+    private ModulePartitions(String[] labels, double[] thresholds, int[] activation,
+                             int[] mergeA, int[] mergeB, int[] mergeEnd, int[] moduleCount, int[] activeCount) {
+        this.labels = labels;
+        this.thresholds = thresholds;
+        this.activation = activation;
+        this.mergeA = mergeA;
+        this.mergeB = mergeB;
+        this.mergeEnd = mergeEnd;
+        this.moduleCount = moduleCount;
+        this.activeCount = activeCount;
+    }
+
+    /**
+     * Balaye toutes les relations de la matrice (O(E log E) pour le tri, puis quasi linéaire).
+     */
+    public static ModulePartitions of(CouplingMatrix matrix) {
+        int n = matrix.size();
+        int edgeCount = matrix.getNonZeroCount();
+
+        String[] labels = new String[n];
+        for (int i = 0; i < n; i++) labels[i] = matrix.label(i);
+
+        int[] source = new int[edgeCount];
+        for (int a = 0; a < n; a++) {
+            for (int k = matrix.rowStart(a); k < matrix.rowEnd(a); k++) source[k] = a;
+        }
+
+        // valeurs distinctes décroissantes, puis tri des relations par niveau (tri par dénombrement)
+        double[] sorted = new double[edgeCount];
+        for (int k = 0; k < edgeCount; k++) sorted[k] = matrix.value(k);
+        Arrays.sort(sorted);
+        double[] descending = new double[edgeCount];
+        int distinct = 0;
+        for (int k = edgeCount - 1; k >= 0; k--) {
+            if (distinct == 0 || sorted[k] != descending[distinct - 1]) descending[distinct++] = sorted[k];
+        }
+        double[] thresholds = Arrays.copyOf(descending, distinct);
+
+        int[] level = new int[edgeCount];
+        int[] levelStart = new int[distinct + 1];
+        for (int k = 0; k < edgeCount; k++) {
+            level[k] = levelOf(thresholds, matrix.value(k));
+            levelStart[level[k] + 1]++;
+        }
+        for (int j = 0; j < distinct; j++) levelStart[j + 1] += levelStart[j];
+        int[] byLevel = new int[edgeCount];
+        int[] fill = Arrays.copyOf(levelStart, distinct);
+        for (int k = 0; k < edgeCount; k++) byLevel[fill[level[k]]++] = k;
+
+        // balayage
+        int[] activation = new int[n];
+        Arrays.fill(activation, Integer.MAX_VALUE);
+        UnionFind uf = new UnionFind(n);
+        int[] mergeA = new int[Math.max(0, n - 1)];
+        int[] mergeB = new int[Math.max(0, n - 1)];
+        int[] mergeEnd = new int[distinct + 1];
+        int[] moduleCount = new int[distinct];
+        int[] activeCount = new int[distinct];
+        int merges = 0, active = 0;
+
+        for (int j = 0; j < distinct; j++) {
+            mergeEnd[j] = merges;
+            for (int i = levelStart[j]; i < levelStart[j + 1]; i++) {
+                int k = byLevel[i];
+                int a = source[k];
+                int b = matrix.column(k);
+                if (activation[a] == Integer.MAX_VALUE) { activation[a] = j; active++; }
+                if (activation[b] == Integer.MAX_VALUE) { activation[b] = j; active++; }
+                if (uf.union(a, b)) {
+                    mergeA[merges] = a;
+                    mergeB[merges] = b;
+                    merges++;
+                }
+            }
+            activeCount[j] = active;
+            moduleCount[j] = active - merges;
+        }
+        mergeEnd[distinct] = merges;
+
+        return new ModulePartitions(labels, thresholds, activation,
+                Arrays.copyOf(mergeA, merges), Arrays.copyOf(mergeB, merges), mergeEnd, moduleCount, activeCount);
+    }
+
+    // indice de la valeur dans le tableau décroissant des seuils
+    private static int levelOf(double[] thresholds, double value) {
+        int lo = 0, hi = thresholds.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (thresholds[mid] > value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Nombre de niveaux pris en compte pour le seuil t (valeurs de couplage >= t) */
+    private int levelsFor(double threshold) {
+        int lo = 0, hi = thresholds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (thresholds[mid] >= threshold) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Valeurs distinctes de couplage (décroissantes) : les seuils où la partition change */
+    public double[] getThresholds() {
+        return thresholds.clone();
+    }
+
+    public int getModuleCount(double threshold) {
+        int levels = levelsFor(threshold);
+        return levels == 0 ? 0 : moduleCount[levels - 1];
+    }
+
+    public int getClassCount(double threshold) {
+        int levels = levelsFor(threshold);
+        return levels == 0 ? 0 : activeCount[levels - 1];
+    }
+
+    /**
+     * Modules pour le seuil donné : composantes connexes des relations de couplage >= threshold.
+     * Les classes sans aucune relation retenue n'apparaissent dans aucun module.
+     */
+    public List<Set<String>> modulesAt(double threshold) {
+        int levels = levelsFor(threshold);
+        List<Set<String>> modules = new ArrayList<>();
+        if (levels == 0) return modules;
+
+        int n = labels.length;
+        UnionFind uf = new UnionFind(n);
+        for (int m = 0; m < mergeEnd[levels]; m++) uf.union(mergeA[m], mergeB[m]);
+
+        int[] moduleOfRoot = new int[n];
+        Arrays.fill(moduleOfRoot, -1);
+        for (int i = 0; i < n; i++) {
+            if (activation[i] >= levels) continue;
+            int root = uf.find(i);
+            if (moduleOfRoot[root] < 0) {
+                moduleOfRoot[root] = modules.size();
+                modules.add(new LinkedHashSet<>());
+            }
+            modules.get(moduleOfRoot[root]).add(labels[i]);
+        }
+        return modules;
+    }
+
+    /**
+     * Union-find itératif (compression par division de chemin, union par taille).
+     */
+    private static final class UnionFind {
+        private final int[] parent;
+        private final int[] size;
+
+        UnionFind(int n) {
+            parent = new int[n];
+            size = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        int find(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        boolean union(int a, int b) {
+            int ra = find(a), rb = find(b);
+            if (ra == rb) return false;
+            if (size[ra] < size[rb]) { int t = ra; ra = rb; rb = t; }
+            parent[rb] = ra;
+            size[ra] += size[rb];
+            return true;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package webanalyzer.service;
+
+import analyse.AnalysisListener;
+import analyse.FactsCache;
+import analyse.FileFacts;
+import analyse.ParallelFileAnalyzer;
+import graph.CallGraph;
+import graph.SpoonParser;
+import webanalyzer.parser.Parser;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+
+/**
+ * Résultat complet de l'analyse d'un projet pour l'interface web :
+ * métriques, graphe d'appels, couplage, partitions en modules et dendrogramme.
+ *
+ * Immuable une fois construit, ce qui permet de le garder en cache et de le partager entre requêtes ;
+ * les données volumineuses sont écrites en flux à la demande (AnalysisJsonWriter).
+ */
+public class ProjectAnalysis {
+
+    /** Étapes successives d'une analyse */
+    public enum Phase { QUEUED, DISCOVERY, PARSING, METRICS, COUPLING, MODULES, DENDROGRAM, DONE }
+
+    /**
+     * Suivi d'une analyse : fichiers terminés (AnalysisListener), changements d'étape, résultats
+     * intermédiaires dès qu'ils sont calculés, et annulation.
+     */
+    public interface Listener extends AnalysisListener {
+        default void phase(Phase phase) {
+        }
+
+        default void metricsReady(Parser parser) {
+        }
+
+        default void couplingReady(CouplingMatrix coupling) {
+        }
+
+        default void modulesReady(ModulePartitions modules) {
+        }
+
+        default void dendrogramReady(Dendrogram dendrogram) {
+        }
+
+        /**
+         * Résultat complet, qu'il vienne d'être calculé ou qu'il soit servi depuis le cache.
+         */
+        default void completed(ProjectAnalysis analysis) {
+        }
+    }
+
+    private final String projectPath;
+    private final String fingerprint;
+    private final List<String> classAliases;
+    private final Parser parser;
+    private final CallGraph callGraph;
+    private final CouplingMatrix coupling;
+    private final ModulePartitions modules;
+    private final Dendrogram dendrogram;
+
+    ProjectAnalysis(String projectPath, String fingerprint, List<String> classAliases, Parser parser,
+                            CallGraph callGraph, CouplingMatrix coupling, ModulePartitions modules, Dendrogram dendrogram) {
+        this.projectPath = projectPath;
+        this.fingerprint = fingerprint;
+        this.classAliases = Collections.unmodifiableList(classAliases);
+        this.parser = parser;
+        this.callGraph = callGraph;
+        this.coupling = coupling;
+        this.modules = modules;
+        this.dendrogram = dendrogram;
+    }
+
+    /**
+     * Analyse complète : extraction des faits (incrémentale, via le cache disque), métriques,
+     * graphe d'appels, couplage, balayage des modules et dendrogramme.
+     */
+    public static ProjectAnalysis run(String projectPath, File folder, List<File> javaFiles, String fingerprint) {
+        return run(projectPath, folder, javaFiles, fingerprint, new Listener() { });
+    }
+
+    /**
+     * Analyse complète avec suivi de progression.
+     * @throws CancellationException si le listener demande l'annulation (vérifié entre les étapes)
+     */
+    public static ProjectAnalysis run(String projectPath, File folder, List<File> javaFiles, String fingerprint,
+                                      Listener listener) {
+        listener.phase(Phase.PARSING);
+        return fromFacts(projectPath, javaFiles, fingerprint, extractFacts(folder, javaFiles, listener), listener);
+    }
+
+    /**
+     * Faits de chaque fichier (incrémental, via le cache disque), dans l'ordre de javaFiles.
+     */
+    public static List<FileFacts> extractFacts(File folder, List<File> javaFiles, AnalysisListener listener) {
+        return new ParallelFileAnalyzer()
+                .withCache(FactsCache.open(folder))
+                .withListener(listener)
+                .analyze(javaFiles)
+                .getFileFacts();
+    }
+
+    /**
+     * Étapes qui suivent l'extraction : métriques, graphe d'appels, couplage, modules et dendrogramme.
+     */
+    public static ProjectAnalysis fromFacts(String projectPath, List<File> javaFiles, String fingerprint,
+                                            List<FileFacts> facts, Listener listener) {
+        nextPhase(listener, Phase.METRICS);
+        Parser parser = new Parser();
+        parser.analyzeFacts(projectPath, facts);
+        CallGraph callGraph = SpoonParser.buildCallGraph(facts);
+        // les faits ne servent plus : couplage et regroupement ne travaillent que sur le graphe compact
+        facts = null;
+        listener.metricsReady(parser);
+
+        nextPhase(listener, Phase.COUPLING);
+        CouplingMatrix coupling = CouplingMatrix.of(callGraph);
+        listener.couplingReady(coupling);
+
+        nextPhase(listener, Phase.MODULES);
+        ModulePartitions modules = ModuleIdentifierService.sweep(coupling);
+        listener.modulesReady(modules);
+
+        nextPhase(listener, Phase.DENDROGRAM);
+        Dendrogram dendrogram = DendrogramService.buildDendrogram(coupling);
+        listener.dendrogramReady(dendrogram);
+
+        // Liste pour affichage (noms simples)
+        List<String> classAliases = javaFiles.stream()
+                .map(ProjectAnalysis::extractClassName)
+                .collect(Collectors.toList());
+
+        ProjectAnalysis analysis = new ProjectAnalysis(projectPath, fingerprint, classAliases, parser, callGraph,
+                coupling, modules, dendrogram);
+        listener.completed(analysis);
+        listener.phase(Phase.DONE);
+        return analysis;
+    }
+
+    /**
+     * Synthèse des métriques globales (réponses JSON).
+     */
+    public static Map<String, Object> metricsSummary(Parser parser) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("classes", parser.getTotalClasses());
+        metrics.put("interfaces", parser.getTotalInterfaces());
+        metrics.put("methods", parser.getTotalMethods());
+        metrics.put("attributes", parser.getTotalAttributes());
+        metrics.put("packages", parser.getTotalPackage());
+        metrics.put("lines", parser.getTotalLines());
+        metrics.put("maxParameters", parser.getMaxParameters());
+        metrics.put("avgMethodsPerClass", parser.getAvgMethodsPerClass());
+        metrics.put("avgLinesPerMethod", parser.getAvgLinesPerMethod());
+        metrics.put("avgAttributesPerClass", parser.getAvgAttributesPerClass());
+        return metrics;
+    }
+
+    private static void nextPhase(Listener listener, Phase phase) {
+        if (listener.isCancelled()) throw new CancellationException("Analyse annulée");
+        listener.phase(phase);
+    }
+
+    public String getProjectPath() { return projectPath; }
+    public String getFingerprint() { return fingerprint; }
+    public List<String> getClassAliases() { return classAliases; }
+    public Parser getParser() { return parser; }
+    public CallGraph getCallGraph() { return callGraph; }
+    public CouplingMatrix getCoupling() { return coupling; }
+    public ModulePartitions getModules() { return modules; }
+    public Dendrogram getDendrogram() { return dendrogram; }
+
+    static String extractClassName(File file) {
+        String name = file.getName();
+        if (name.endsWith(".java")) {
+            name = name.substring(0, name.length() - 5);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,154 @@
+package analyse;
+
+import graph.SpoonClassMethodCallVisitor;
+import graph.SpoonParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Types déclarants des appels qui traversent plusieurs fichiers : appel chaîné sur un type
+ * d'un autre package et méthode héritée d'une classe d'un autre fichier.
+ */
+class ParallelFileAnalyzerTest {
+
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void writeProject() throws IOException {
+        write("p/q/A.java", "package p.q;\npublic class A { public void run() {} }\n");
+        write("p/q/B.java", "package p.q;\npublic class B { public void work() {} }\n");
+        write("p/r/C.java", "package p.r;\nimport p.q.*;\npublic class C extends A { public B getB() { return new B(); } }\n");
+        write("p/r/D.java", "package p.r;\npublic class D { void go(C c) { c.getB().work(); c.run(); } }\n");
+    }
+
+    @Test
+    void resolvesCrossFileCallsLikeTheSharedSession() {
+        List<File> files = AnalysisSession.listJavaFiles(root.toFile());
+        // un fichier par lot : aucun fichier ne voit les autres s'ils sont parsés séparément
+        List<FileFacts> facts = new ParallelFileAnalyzer(2, 1).analyze(files).getFileFacts();
+
+        assertEquals(List.of("B.work", "C.getB", "A.run"), callsOf(facts, "D", "go"));
+        assertEquals(callsOf(AnalysisSession.open(root.toString()).extractFacts(), "D", "go"),
+                callsOf(facts, "D", "go"));
+    }
+
+    @Test
+    void callGraphKeepsTheDeclaringClasses() {
+        Map<String, Map<String, List<SpoonClassMethodCallVisitor.MethodCall>>> graph =
+                SpoonParser.buildGraph(new ParallelFileAnalyzer(2, 1).analyze(AnalysisSession.listJavaFiles(root.toFile())).getFileFacts());
+
+        List<String> calls = new ArrayList<>();
+        for (SpoonClassMethodCallVisitor.MethodCall call : graph.get("D").get("go")) {
+            calls.add(call.declaringClass + "." + call.name);
+        }
+        assertEquals(List.of("B.work", "C.getB", "A.run"), calls);
+    }
+
+    @Test
+    void cacheIsInvalidatedWhenAnotherFileChanges(@TempDir Path cacheDir) throws IOException {
+        List<File> files = AnalysisSession.listJavaFiles(root.toFile());
+        List<FileFacts> first = new ParallelFileAnalyzer(2, 1)
+                .withCache(new FactsCache(root.toFile(), cacheDir.toFile()))
+                .analyze(files)
+                .getFileFacts();
+        assertEquals(List.of("B.work", "C.getB", "A.run"), callsOf(first, "D", "go"));
+
+        // C.java n'hérite plus de A : D.java est inchangé, mais c.run() ne vient plus de A
+        write("p/r/C.java", "package p.r;\nimport p.q.*;\npublic class C { public B getB() { return new B(); } public void run() {} }\n");
+        List<FileFacts> second = new ParallelFileAnalyzer(2, 1)
+                .withCache(new FactsCache(root.toFile(), cacheDir.toFile()))
+                .analyze(files)
+                .getFileFacts();
+        assertEquals(List.of("B.work", "C.getB", "C.run"), callsOf(second, "D", "go"));
+
+        // fichier supprimé : les autres sont inchangés, mais run() ne vient plus de A
+        write("p/r/C.java", "package p.r;\nimport p.q.*;\npublic class C extends A { public B getB() { return new B(); } }\n");
+        new ParallelFileAnalyzer(2, 1).withCache(new FactsCache(root.toFile(), cacheDir.toFile())).analyze(files);
+        Files.delete(root.resolve("p/q/A.java"));
+        List<File> remaining = AnalysisSession.listJavaFiles(root.toFile());
+        FactsCache cache = new FactsCache(root.toFile(), cacheDir.toFile());
+        List<FileFacts> third = new ParallelFileAnalyzer(2, 1).withCache(cache).analyze(remaining).getFileFacts();
+        List<String> expected = callsOf(AnalysisSession.open(root.toString()).extractFacts(), "D", "go");
+        assertNotEquals("A.run", expected.get(2));
+        assertEquals(expected, callsOf(third, "D", "go"));
+        assertEquals(remaining.size(), cache.size());
+    }
+
+    @Test
+    void unchangedProjectIsReadFromTheCache(@TempDir Path cacheDir) {
+        List<File> files = AnalysisSession.listJavaFiles(root.toFile());
+        new ParallelFileAnalyzer(2, 1).withCache(new FactsCache(root.toFile(), cacheDir.toFile())).analyze(files);
+
+        AtomicInteger fromCache = new AtomicInteger();
+        List<FileFacts> facts = new ParallelFileAnalyzer(2, 1)
+                .withCache(new FactsCache(root.toFile(), cacheDir.toFile()))
+                .withListener(new AnalysisListener() {
+                    @Override
+                    public void fileAnalyzed(int index, File file, FileFacts f, boolean cached) {
+                        if (cached) fromCache.incrementAndGet();
+                    }
+                })
+                .analyze(files)
+                .getFileFacts();
+        assertEquals(files.size(), fromCache.get());
+        assertEquals(List.of("B.work", "C.getB", "A.run"), callsOf(facts, "D", "go"));
+    }
+
+    @Test
+    void onlyChangedFilesAndTheirDependentsAreReparsed(@TempDir Path cacheDir) throws IOException {
+        List<File> files = AnalysisSession.listJavaFiles(root.toFile());
+        new ParallelFileAnalyzer(2, 1).withCache(new FactsCache(root.toFile(), cacheDir.toFile())).analyze(files);
+
+        // B.java référencé par C (getB) et D (c.getB().work()) ; A.java n'en dépend pas
+        write("p/q/B.java", "package p.q;\npublic class B { public void work() {} public void rest() {} }\n");
+        List<String> reparsed = new ArrayList<>();
+        List<FileFacts> facts = new ParallelFileAnalyzer(2, 1)
+                .withCache(new FactsCache(root.toFile(), cacheDir.toFile()))
+                .withListener(new AnalysisListener() {
+                    @Override
+                    public synchronized void fileAnalyzed(int index, File file, FileFacts f, boolean cached) {
+                        if (!cached) reparsed.add(file.getName());
+                    }
+                })
+                .analyze(files)
+                .getFileFacts();
+        reparsed.sort(null);
+        assertEquals(List.of("B.java", "C.java", "D.java"), reparsed);
+        assertEquals(List.of("B.work", "C.getB", "A.run"), callsOf(facts, "D", "go"));
+    }
+
+    private static List<String> callsOf(List<FileFacts> facts, String type, String method) {
+        List<String> calls = new ArrayList<>();
+        for (FileFacts file : facts) {
+            for (FileFacts.TypeFacts t : file.getTypes()) {
+                if (!t.getSimpleName().equals(type)) continue;
+                for (FileFacts.MethodFacts m : t.getMethods()) {
+                    if (!m.getName().equals(method)) continue;
+                    for (FileFacts.CallFacts c : m.getCalls()) calls.add(c.getDeclaringType() + "." + c.getName());
+                }
+            }
+        }
+        return calls;
+    }
+
+    private void write(String relative, String source) throws IOException {
+        Path file = root.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    }
+}